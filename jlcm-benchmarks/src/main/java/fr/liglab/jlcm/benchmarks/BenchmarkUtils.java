@@ -0,0 +1,80 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.benchmarks;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public final class BenchmarkUtils {
+
+	private BenchmarkUtils() {
+	}
+
+	/**
+	 * @param generator
+	 *            "quest" for a dataset similar to the classic T10I4D*K (1000
+	 *            items, transactions of 10 items on average, 2000 potential
+	 *            patterns of 4 items on average), "zipf" for a sparser one
+	 *            (10000 items, transactions of 10 items on average), or
+	 *            "dense" (60 items, transactions of 20 items on average, 20
+	 *            potential patterns of 10 items on average)
+	 */
+	public static SyntheticDataset generate(String generator, int nbTransactions) {
+		if ("quest".equals(generator)) {
+			return SyntheticDataset.quest(nbTransactions, 1000, 10, 2000, 4, 42);
+		} else if ("zipf".equals(generator)) {
+			return SyntheticDataset.zipf(nbTransactions, 10000, 10, 1.1, 42);
+		} else if ("dense".equals(generator)) {
+			return SyntheticDataset.quest(nbTransactions, 60, 20, 20, 10, 42);
+		} else {
+			throw new IllegalArgumentException("Unknown generator: " + generator);
+		}
+	}
+
+	/**
+	 * @return n frequent items of the given step, evenly spread among its
+	 *         candidates (or all of them if there are less than n)
+	 */
+	public static int[] spreadExtensions(ExplorationStep state, int n) {
+		final int[] supportCounts = state.counters.supportCounts;
+		int nbCandidates = 0;
+		for (int i = 0; i <= state.counters.getMaxFrequent(); i++) {
+			if (supportCounts[i] > 0) {
+				nbCandidates++;
+			}
+		}
+
+		final int[] extensions = new int[Math.min(n, nbCandidates)];
+		final double step = ((double) nbCandidates) / extensions.length;
+		int rank = 0;
+		int j = 0;
+		for (int i = 0; i <= state.counters.getMaxFrequent() && j < extensions.length; i++) {
+			if (supportCounts[i] > 0) {
+				if (rank == (int) (j * step)) {
+					extensions[j++] = i;
+				}
+				rank++;
+			}
+		}
+		return extensions;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.liglab.jlcm.internals.Counters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+/**
+ * Items counting over the projected supports of a few root extensions, as done
+ * by ExplorationStep.next()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CountersBenchmark {
+
+	@Param({ "100000" })
+	public int transactions;
+
+	@Param({ "quest", "zipf" })
+	public String generator;
+
+	@Param({ "20" })
+	public int minSupport;
+
+	private ExplorationStep initState;
+	private int[] extensions;
+
+	@Setup
+	public void setup() {
+		this.initState = new ExplorationStep(this.minSupport,
+				BenchmarkUtils.generate(this.generator, this.transactions));
+		this.extensions = BenchmarkUtils.spreadExtensions(this.initState, 16);
+	}
+
+	@Benchmark
+	public void projectedCounting(Blackhole blackhole) {
+		for (int extension : this.extensions) {
+			Counters counters = new Counters(this.minSupport, this.initState.dataset.getSupport(extension)
+					.iterator(), extension, this.initState.counters.getMaxFrequent());
+			blackhole.consume(counters);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.liglab.jlcm.io.FileCollector;
+
+/**
+ * Output of random patterns by FileCollector
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileCollectorBenchmark {
+
+	@Param({ "1000000" })
+	public int patterns;
+
+	private int[][] generated;
+	private int[] supports;
+	private File output;
+
+	@Setup
+	public void setup() throws IOException {
+		Random random = new Random(42);
+		this.generated = new int[this.patterns][];
+		this.supports = new int[this.patterns];
+		for (int i = 0; i < this.patterns; i++) {
+			this.generated[i] = new int[1 + random.nextInt(10)];
+			for (int j = 0; j < this.generated[i].length; j++) {
+				this.generated[i][j] = random.nextInt(100000);
+			}
+			this.supports[i] = 1 + random.nextInt(100000);
+		}
+		this.output = File.createTempFile("jlcm-bench-", ".out");
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.output.delete();
+	}
+
+	@Benchmark
+	public long write() throws IOException {
+		// avoids FileCollector's warning about overwriting
+		this.output.delete();
+		FileCollector collector = new FileCollector(this.output.getPath());
+		for (int i = 0; i < this.generated.length; i++) {
+			collector.collect(this.supports[i], this.generated[i], this.generated[i].length);
+		}
+		return collector.close();
+	}
+}
@@ -0,0 +1,87 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.FileReader;
+
+/**
+ * Parsing of an ASCII dataset by FileReader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileReaderBenchmark {
+
+	@Param({ "100000" })
+	public int transactions;
+
+	@Param({ "quest", "zipf" })
+	public String generator;
+
+	private File input;
+
+	@Setup
+	public void setup() throws IOException {
+		this.input = File.createTempFile("jlcm-bench-", ".dat");
+		BenchmarkUtils.generate(this.generator, this.transactions).writeTo(this.input.getPath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.input.delete();
+	}
+
+	@Benchmark
+	public long parse() {
+		FileReader reader = new FileReader(this.input.getPath());
+		long checksum = 0;
+		while (reader.hasNext()) {
+			TransactionReader transaction = reader.next();
+			while (transaction.hasNext()) {
+				checksum += transaction.next();
+			}
+		}
+		reader.close();
+		return checksum;
+	}
+}
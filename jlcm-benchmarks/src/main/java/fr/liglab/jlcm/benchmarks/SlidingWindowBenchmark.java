@@ -0,0 +1,130 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.benchmarks;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.liglab.jlcm.SlidingWindowMiner;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.NullCollector;
+
+/**
+ * Latency of a slide : each invocation adds slideSize transactions to a full
+ * window and mines it. When storeSupport equals minSupport the window is mined
+ * from scratch at each slide, otherwise closed itemsets are updated
+ * incrementally - the average includes slides which have to mine the window
+ * again because the store support got above minSupport.
+ *
+ * The stream cycles over 2 * windowSize generated transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SlidingWindowBenchmark {
+
+	@Param({ "50000" })
+	public int windowSize;
+
+	@Param({ "250" })
+	public int slideSize;
+
+	@Param({ "quest" })
+	public String generator;
+
+	@Param({ "250" })
+	public int minSupport;
+
+	@Param({ "250", "190" })
+	public int storeSupport;
+
+	private TIntArrayList[] stream;
+	private int position;
+	private SlidingWindowMiner miner;
+
+	@Setup
+	public void setup() {
+		this.stream = new TIntArrayList[2 * this.windowSize];
+		int i = 0;
+		for (TransactionReader transaction : BenchmarkUtils.generate(this.generator, this.stream.length)) {
+			TIntArrayList copy = new TIntArrayList();
+			while (transaction.hasNext()) {
+				copy.add(transaction.next());
+			}
+			this.stream[i++] = copy;
+		}
+
+		this.miner = new SlidingWindowMiner(this.windowSize, this.slideSize, this.minSupport, this.storeSupport, 1);
+		for (this.position = 0; this.position < this.windowSize; this.position++) {
+			this.miner.add(new StreamedTransaction(this.stream[this.position]));
+		}
+		this.miner.mine(new NullCollector());
+	}
+
+	@Benchmark
+	public long slide() {
+		for (int i = 0; i < this.slideSize; i++) {
+			this.miner.add(new StreamedTransaction(this.stream[this.position]));
+			this.position = (this.position + 1) % this.stream.length;
+		}
+		NullCollector collector = new NullCollector();
+		this.miner.mine(collector);
+		return collector.close();
+	}
+
+	private static final class StreamedTransaction implements TransactionReader {
+		private final TIntArrayList items;
+		private int position = 0;
+
+		StreamedTransaction(TIntArrayList items) {
+			this.items = items;
+		}
+
+		public int getTransactionSupport() {
+			return 1;
+		}
+
+		public int next() {
+			return this.items.getQuick(this.position++);
+		}
+
+		public boolean hasNext() {
+			return this.position < this.items.size();
+		}
+	}
+}
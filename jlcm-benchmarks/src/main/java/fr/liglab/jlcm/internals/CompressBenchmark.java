@@ -0,0 +1,102 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.liglab.jlcm.benchmarks.BenchmarkUtils;
+
+/**
+ * Transactions compression (IndexedTransactionsList.compress, through
+ * Dataset.compress) of a projected dataset, as done when instanciating an
+ * ExplorationStep. Compression works in place, so each invocation gets a fresh
+ * copy of the dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompressBenchmark {
+
+	@Param({ "100000" })
+	public int transactions;
+
+	@Param({ "quest", "zipf" })
+	public String generator;
+
+	@Param({ "20" })
+	public int minSupport;
+
+	private Dataset projected;
+	private int coreItem;
+	private Dataset fresh;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		ExplorationStep initState = new ExplorationStep(this.minSupport, BenchmarkUtils.generate(this.generator,
+				this.transactions));
+
+		// among a few extensions, we keep the one having the biggest projection
+		Counters counters = null;
+		Dataset.TransactionsIterable support = null;
+		for (int extension : BenchmarkUtils.spreadExtensions(initState, 32)) {
+			Dataset.TransactionsIterable candidateSupport = initState.dataset.getSupport(extension);
+			Counters candidate = new Counters(this.minSupport, candidateSupport.iterator(), extension,
+					initState.counters.getMaxFrequent());
+			if (counters == null || candidate.distinctTransactionLengthSum > counters.distinctTransactionLengthSum) {
+				counters = candidate;
+				support = candidateSupport;
+			}
+		}
+
+		final int[] renaming = counters.compressRenaming(initState.counters.getReverseRenaming());
+		this.projected = new Dataset(counters, new TransactionsRenamingDecorator(support.iterator(), renaming),
+				Integer.MAX_VALUE);
+		this.coreItem = counters.getMaxCandidate();
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		this.fresh = this.projected.clone();
+	}
+
+	@Benchmark
+	public Dataset compress() {
+		this.fresh.compress(this.coreItem);
+		return this.fresh;
+	}
+}
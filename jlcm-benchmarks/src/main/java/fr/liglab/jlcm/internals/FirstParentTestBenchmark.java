@@ -0,0 +1,109 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.liglab.jlcm.benchmarks.BenchmarkUtils;
+import fr.liglab.jlcm.internals.Selector.WrongFirstParentException;
+
+/**
+ * First-parent tests of all candidates of a depth-1 ExplorationStep
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FirstParentTestBenchmark {
+
+	@Param({ "100000" })
+	public int transactions;
+
+	@Param({ "quest", "zipf" })
+	public String generator;
+
+	@Param({ "20" })
+	public int minSupport;
+
+	private ExplorationStep state;
+	private final FirstParentTest test = new FirstParentTest();
+
+	@Setup
+	public void setup() {
+		ExplorationStep initState = new ExplorationStep(this.minSupport, BenchmarkUtils.generate(this.generator,
+				this.transactions));
+
+		// we keep the child having the most candidates
+		int mostCandidates = -1;
+		ExplorationStep child = initState.next();
+		while (child != null) {
+			if (child.dataset != null) {
+				final int candidates = countCandidates(child);
+				if (candidates > mostCandidates) {
+					mostCandidates = candidates;
+					this.state = child;
+				}
+			}
+			child = initState.next();
+		}
+	}
+
+	private static int countCandidates(ExplorationStep step) {
+		int candidates = 0;
+		for (int i = 0; i < step.counters.getMaxCandidate(); i++) {
+			if (step.counters.supportCounts[i] > 0) {
+				candidates++;
+			}
+		}
+		return candidates;
+	}
+
+	@Benchmark
+	public int allCandidates() {
+		final int[] supportCounts = this.state.counters.supportCounts;
+		int rejected = 0;
+		for (int candidate = 0; candidate < this.state.counters.getMaxCandidate(); candidate++) {
+			if (supportCounts[candidate] > 0) {
+				try {
+					this.test.allowExploration(candidate, this.state);
+				} catch (WrongFirstParentException e) {
+					rejected++;
+				}
+			}
+		}
+		return rejected;
+	}
+}
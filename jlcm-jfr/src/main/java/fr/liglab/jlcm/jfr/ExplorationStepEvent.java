@@ -0,0 +1,65 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("fr.liglab.jlcm.ExplorationStep")
+@Label("Exploration Step")
+@Category("jLCM")
+@Description("A new ExplorationStep, once its dataset has been instanciated")
+@StackTrace(false)
+class ExplorationStepEvent extends Event {
+
+	@Label("Depth")
+	@Description("Distance from the initial step")
+	int depth;
+
+	@Label("Core Item")
+	@Description("Extension item, as an original ID")
+	int coreItem;
+
+	@Label("Pattern Length")
+	int patternLength;
+
+	@Label("Transactions")
+	@Description("Count of projected transactions, including duplicates")
+	int transactionsCount;
+
+	@Label("Distinct Transactions")
+	int distinctTransactionsCount;
+
+	@Label("Distinct Transactions Length Sum")
+	long distinctTransactionLengthSum;
+
+	@Label("Frequent Items")
+	int nbFrequents;
+
+	@Label("Representation")
+	@Description("Transactions and occurrences storage chosen by Dataset")
+	String representation;
+}
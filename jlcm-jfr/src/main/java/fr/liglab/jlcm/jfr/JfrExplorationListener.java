@@ -0,0 +1,100 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.jfr;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.util.ExplorationListener;
+import fr.liglab.jlcm.util.SampledExplorationListener;
+
+/**
+ * Emits Java Flight Recorder events for jLCM's exploration. Events are only
+ * filled and committed while a recording has them enabled, but the listener
+ * is still invoked for each step : use install() with a sampling period
+ * greater than 1 when mining big datasets.
+ * 
+ * For example, with a period of 100 :
+ * 
+ * JfrExplorationListener.install(100);
+ * new PLCM(collector, 8).lcm(initState);
+ * 
+ * and run the JVM with -XX:StartFlightRecording
+ */
+public final class JfrExplorationListener implements ExplorationListener {
+
+	/**
+	 * Registers a JfrExplorationListener in ExplorationStep.listener
+	 * 
+	 * @param samplingPeriod
+	 *            emit one event out of samplingPeriod steps creations and
+	 *            datasets compressions (per thread). Steals are always
+	 *            emitted.
+	 */
+	public static void install(int samplingPeriod) {
+		if (samplingPeriod == 1) {
+			ExplorationStep.listener = new JfrExplorationListener();
+		} else {
+			ExplorationStep.listener = new SampledExplorationListener(new JfrExplorationListener(), samplingPeriod);
+		}
+	}
+
+	public static void uninstall() {
+		ExplorationStep.listener = null;
+	}
+
+	@Override
+	public void stepCreated(ExplorationStep step) {
+		ExplorationStepEvent event = new ExplorationStepEvent();
+		if (event.isEnabled()) {
+			event.depth = step.getDepth();
+			event.coreItem = step.parent.counters.getReverseRenaming()[step.core_item];
+			event.patternLength = step.pattern.length;
+			event.transactionsCount = step.counters.transactionsCount;
+			event.distinctTransactionsCount = step.counters.distinctTransactionsCount;
+			event.distinctTransactionLengthSum = step.counters.distinctTransactionLengthSum;
+			event.nbFrequents = step.counters.nbFrequents;
+			event.representation = (step.dataset == null) ? "none" : step.dataset.getRepresentation();
+			event.commit();
+		}
+	}
+
+	@Override
+	public void jobStolen(int thiefId, int victimId, int stackPosition) {
+		StealEvent event = new StealEvent();
+		if (event.isEnabled()) {
+			event.thief = thiefId;
+			event.victim = victimId;
+			event.stackPosition = stackPosition;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void datasetCompressed(int coreItem, int transactionsBefore, int transactionsAfter) {
+		CompressionEvent event = new CompressionEvent();
+		if (event.isEnabled()) {
+			event.coreItem = coreItem;
+			event.transactionsBefore = transactionsBefore;
+			event.transactionsAfter = transactionsAfter;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MaxSupportSelector;
+import fr.liglab.jlcm.io.PatternsCollector;
+
+/**
+ * Mines by decreasing support levels, so when a CancellationToken stops the
+ * exploration, the most frequent patterns have been collected first.
+ * 
+ * The first level is half of the most frequent item's support, and each next
+ * level halves the previous one, down to the initial step's minimum support.
+ * Each level is a complete PLCM run which only outputs patterns having a
+ * support in [level, previous level[, so no pattern is collected twice.
+ * Levels decrease geometrically, so the upper part of the search space is
+ * explored again at each level but it's usually small compared to the
+ * level's new patterns.
+ * 
+ * Like SupportTuner, runs are restarted from the initial step given at
+ * instantiation, so they don't re-load the dataset but also ignore its
+ * selectors.
+ */
+public final class AnytimeMiner {
+
+	private final ExplorationStep initState;
+	private final int nbThreads;
+	private final Map<PLCMCounters, Long> counters = new TreeMap<PLCMCounters, Long>();
+
+	/**
+	 * @param initState
+	 *            an initial ExplorationStep, which will not be consumed
+	 * @param nbThreads
+	 */
+	public AnytimeMiner(ExplorationStep initState, int nbThreads) {
+		if (initState.parent != null) {
+			throw new IllegalArgumentException("AnytimeMiner needs an initial ExplorationStep");
+		}
+		this.initState = initState;
+		this.nbThreads = nbThreads;
+	}
+
+	/**
+	 * Mines until completion or until token stops the exploration. Collector is
+	 * not closed.
+	 * 
+	 * @return the lowest level which has been completely mined : all closed
+	 *         patterns having at least this support have been collected. -1 if
+	 *         the exploration was stopped during the first level.
+	 */
+	public int lcm(PatternsCollector collector, CancellationToken token) {
+		final int minSupport = this.initState.counters.minSupport;
+		int maxSupport = minSupport;
+		for (int i = 0; i <= this.initState.counters.getMaxFrequent(); i++) {
+			maxSupport = Math.max(maxSupport, this.initState.counters.supportCounts[i]);
+		}
+
+		int completed = -1;
+		int previous = Integer.MAX_VALUE;
+		int level = Math.max(minSupport, maxSupport / 2);
+
+		while (true) {
+			ExplorationStep levelState = this.initState.restart(level);
+			levelState.appendSelector(new MaxSupportSelector(previous));
+
+			PLCM algo = new PLCM(collector, this.nbThreads);
+			algo.setCancellationToken(token);
+			algo.lcm(levelState);
+			this.addCounters(algo.getCounters());
+
+			if (token != null && token.isCancelled()) {
+				return completed;
+			}
+			completed = level;
+
+			if (level == minSupport) {
+				return completed;
+			}
+			previous = level;
+			level = Math.max(minSupport, level / 2);
+		}
+	}
+
+	private void addCounters(Map<PLCMCounters, Long> runCounters) {
+		for (Entry<PLCMCounters, Long> entry : runCounters.entrySet()) {
+			Long current = this.counters.get(entry.getKey());
+			this.counters.put(entry.getKey(), entry.getValue() + (current == null ? 0 : current));
+		}
+	}
+
+	/**
+	 * @return counters summed over all levels mined so far
+	 */
+	public Map<PLCMCounters, Long> getCounters() {
+		return this.counters;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops a PLCM exploration (see PLCM.setCancellationToken) when cancel() is
+ * invoked, or when a time or patterns budget is exhausted. Mining threads
+ * check it before each candidate extension, so lcm() returns shortly after :
+ * the collector is left open and PLCM's counters are those of the partial
+ * exploration.
+ * 
+ * A token can be shared by successive explorations (as AnytimeMiner does) :
+ * budgets are global.
+ */
+public final class CancellationToken {
+
+	public enum Cause {
+		CANCELLED, TIME_BUDGET, PATTERNS_BUDGET
+	}
+
+	private final long timeBudgetNanos;
+	private final long patternsBudget;
+	private final AtomicLong collected = new AtomicLong(0);
+
+	private volatile long deadline = 0;
+	private volatile Cause cause = null;
+
+	/**
+	 * A token without budget, which will only stop exploration on cancel()
+	 */
+	public CancellationToken() {
+		this(0, 0);
+	}
+
+	/**
+	 * @param timeBudgetMillis
+	 *            maximum mining time, counted from the first exploration
+	 *            using this token - 0 for unlimited
+	 * @param patternsBudget
+	 *            maximum count of collected patterns - 0 for unlimited
+	 */
+	public CancellationToken(long timeBudgetMillis, long patternsBudget) {
+		if (timeBudgetMillis < 0 || patternsBudget < 0) {
+			throw new IllegalArgumentException("Invalid budgets: " + timeBudgetMillis + "ms, " + patternsBudget
+					+ " patterns");
+		}
+		this.timeBudgetNanos = timeBudgetMillis * 1000000;
+		this.patternsBudget = patternsBudget;
+	}
+
+	public void cancel() {
+		this.stop(Cause.CANCELLED);
+	}
+
+	private void stop(Cause stopCause) {
+		if (this.cause == null) {
+			this.cause = stopCause;
+		}
+	}
+
+	public boolean isCancelled() {
+		if (this.cause != null) {
+			return true;
+		}
+		final long end = this.deadline;
+		if (end != 0 && System.nanoTime() - end > 0) {
+			this.stop(Cause.TIME_BUDGET);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return why exploration has been stopped, or null if it has not
+	 */
+	public Cause getCause() {
+		this.isCancelled();
+		return this.cause;
+	}
+
+	public boolean hasTimeBudget() {
+		return this.timeBudgetNanos > 0;
+	}
+
+	/**
+	 * @return patterns collected by explorations using this token
+	 */
+	public long getCollectedCount() {
+		return this.collected.get();
+	}
+
+	/**
+	 * Starts the clock, if it's not started yet
+	 */
+	synchronized void start() {
+		if (this.timeBudgetNanos > 0 && this.deadline == 0) {
+			final long end = System.nanoTime() + this.timeBudgetNanos;
+			this.deadline = (end == 0) ? 1 : end;
+		}
+	}
+
+	/**
+	 * @return false if the pattern should not be collected, because the
+	 *         patterns budget is exhausted or exploration has been cancelled
+	 */
+	boolean patternCollected() {
+		if (this.isCancelled()) {
+			return false;
+		}
+		final long count = this.collected.incrementAndGet();
+		if (this.patternsBudget > 0) {
+			if (count >= this.patternsBudget) {
+				this.stop(Cause.PATTERNS_BUDGET);
+			}
+			if (count > this.patternsBudget) {
+				this.collected.decrementAndGet();
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,317 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.liglab.jlcm.PLCM.PLCMThread;
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+/**
+ * Frontier of an exploration, as saved by PLCM.checkpoint() and given to
+ * PLCM.resume().
+ * 
+ * Each step stacked by mining threads is identified by its path from the
+ * initial step : the core items (each one in its parent's internal IDs) that
+ * lead to it, along with its candidates iterator's position. Candidates below
+ * this position have been explored, or their sub-tree is on a stack too. So
+ * resuming from the initial step only re-computes the stacked steps. Steps
+ * whose pattern has not been collected yet, because the exploration was
+ * cancelled meanwhile, are marked as pending.
+ * 
+ * The checkpoint is only valid for the same input, minimum support and
+ * selectors. It also contains the state of the collector, if it's a
+ * CheckpointableCollector.
+ * 
+ * File format (plain text) :
+ * 
+ * <pre>
+ * jLCM checkpoint 1
+ * root [minimum support] [frequent items count] [distinct transactions count]
+ * collector [state...]
+ * thread
+ * [position] [path...]
+ * pending [position] [path...]
+ * thread
+ * ...
+ * </pre>
+ */
+public final class Checkpoint {
+
+	private static final String HEADER = "jLCM checkpoint 1";
+
+	private final int minSupport;
+	private final int nbFrequents;
+	private final int distinctTransactionsCount;
+	private final long[] collectorState;
+
+	/**
+	 * for each thread, its stacked steps
+	 */
+	private final List<List<StackedStep>> stacks;
+
+	private Checkpoint(int minSupport, int nbFrequents, int distinctTransactionsCount, long[] collectorState,
+			List<List<StackedStep>> stacks) {
+		this.minSupport = minSupport;
+		this.nbFrequents = nbFrequents;
+		this.distinctTransactionsCount = distinctTransactionsCount;
+		this.collectorState = collectorState;
+		this.stacks = stacks;
+	}
+
+	/**
+	 * Should only be invoked while mining threads are paused
+	 */
+	static Checkpoint capture(ExplorationStep initState, List<PLCMThread> threads, long[] collectorState) {
+		List<List<StackedStep>> stacks = new ArrayList<List<StackedStep>>(threads.size());
+		for (PLCMThread thread : threads) {
+			List<StackedStep> stack = new ArrayList<StackedStep>(thread.stackedJobs.size());
+			for (int i = 0; i < thread.stackedJobs.size(); i++) {
+				final ExplorationStep step = thread.stackedJobs.get(i);
+				final int position = step.getCandidatesPosition();
+				final boolean pending = thread.topUncollected && i == thread.stackedJobs.size() - 1;
+				if (position >= 0 || pending) {
+					stack.add(new StackedStep(position, getPath(step), pending));
+				}
+			}
+			stacks.add(stack);
+		}
+		return new Checkpoint(initState.counters.minSupport, initState.counters.nbFrequents,
+				initState.counters.distinctTransactionsCount, collectorState, stacks);
+	}
+
+	private static int[] getPath(ExplorationStep step) {
+		final int[] path = new int[step.getDepth()];
+		int i = path.length - 1;
+		for (ExplorationStep s = step; s.parent != null; s = s.parent) {
+			path[i--] = s.core_item;
+		}
+		return path;
+	}
+
+	/**
+	 * @return collector's state, as returned by
+	 *         CheckpointableCollector.checkpoint() - null if the collector was
+	 *         not checkpointable
+	 */
+	public long[] getCollectorState() {
+		return this.collectorState;
+	}
+
+	/**
+	 * @return how many steps are stacked in this checkpoint
+	 */
+	public int getStackedStepsCount() {
+		int count = 0;
+		for (List<StackedStep> stack : this.stacks) {
+			count += stack.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Re-computes stacked steps from the initial step. Candidates iterators
+	 * (including initState's) are moved to their checkpointed positions.
+	 * 
+	 * @param nbThreads
+	 *            stacks are merged if there are less threads now than at the
+	 *            checkpoint
+	 * @param pending
+	 *            steps whose pattern should be collected before resuming are
+	 *            added to this list
+	 * @return steps to stack for each thread
+	 * @throws IllegalArgumentException
+	 *             if initState does not seem to be built from the same input
+	 *             and minimum support as this checkpoint
+	 */
+	List<List<ExplorationStep>> rebuild(ExplorationStep initState, int nbThreads, List<ExplorationStep> pending) {
+		if (initState.counters.minSupport != this.minSupport || initState.counters.nbFrequents != this.nbFrequents
+				|| initState.counters.distinctTransactionsCount != this.distinctTransactionsCount) {
+			throw new IllegalArgumentException("This checkpoint was made from another dataset or minimum support");
+		}
+
+		List<List<ExplorationStep>> rebuilt = new ArrayList<List<ExplorationStep>>(nbThreads);
+		for (int i = 0; i < nbThreads; i++) {
+			rebuilt.add(new ArrayList<ExplorationStep>());
+		}
+
+		Map<String, ExplorationStep> steps = new HashMap<String, ExplorationStep>();
+		for (int i = 0; i < this.stacks.size(); i++) {
+			for (StackedStep stacked : this.stacks.get(i)) {
+				ExplorationStep step = rebuild(steps, initState, stacked.path, stacked.path.length);
+				if (step != null) {
+					step.skipCandidates(stacked.position);
+					rebuilt.get(i % nbThreads).add(step);
+					if (stacked.pending) {
+						pending.add(step);
+					}
+				}
+			}
+		}
+		return rebuilt;
+	}
+
+	/**
+	 * @return null if the step can't be found anymore (when a selector became
+	 *         more selective)
+	 */
+	private static ExplorationStep rebuild(Map<String, ExplorationStep> steps, ExplorationStep initState,
+			int[] path, int length) {
+		if (length == 0) {
+			return initState;
+		}
+
+		final String key = Arrays.toString(Arrays.copyOf(path, length));
+		if (steps.containsKey(key)) {
+			return steps.get(key);
+		}
+
+		ExplorationStep step = null;
+		ExplorationStep parent = rebuild(steps, initState, path, length - 1);
+		if (parent != null) {
+			step = parent.getExtension(path[length - 1]);
+		}
+		steps.put(key, step);
+		return step;
+	}
+
+	/**
+	 * Writes to a temporary file which is then renamed, so path always
+	 * contains a complete checkpoint
+	 */
+	void write(String path) throws IOException {
+		File tmp = new File(path + ".tmp");
+		BufferedWriter writer = new BufferedWriter(new FileWriter(tmp));
+		try {
+			writer.write(HEADER);
+			writer.write("\nroot " + this.minSupport + " " + this.nbFrequents + " " + this.distinctTransactionsCount);
+			writer.write("\ncollector");
+			if (this.collectorState != null) {
+				for (long value : this.collectorState) {
+					writer.write(" " + value);
+				}
+			}
+			for (List<StackedStep> stack : this.stacks) {
+				writer.write("\nthread");
+				for (StackedStep step : stack) {
+					writer.write(step.pending ? "\npending " : "\n");
+					writer.write(Integer.toString(step.position));
+					for (int item : step.path) {
+						writer.write(" " + item);
+					}
+				}
+			}
+			writer.write('\n');
+		} finally {
+			writer.close();
+		}
+
+		if (!tmp.renameTo(new File(path))) {
+			throw new IOException("Can't move " + tmp + " to " + path);
+		}
+	}
+
+	public static Checkpoint read(String path) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		try {
+			if (!HEADER.equals(reader.readLine())) {
+				throw new IOException(path + " is not a jLCM checkpoint");
+			}
+
+			long[] root = parse(reader.readLine(), "root");
+			long[] collectorState = parse(reader.readLine(), "collector");
+			if (collectorState.length == 0) {
+				collectorState = null;
+			}
+
+			List<List<StackedStep>> stacks = new ArrayList<List<StackedStep>>();
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if ("thread".equals(line)) {
+					stacks.add(new ArrayList<StackedStep>());
+				} else if (stacks.isEmpty()) {
+					throw new IOException("Malformed checkpoint " + path);
+				} else {
+					final boolean pending = line.startsWith("pending ");
+					long[] values = parse(line, pending ? "pending" : null);
+					int[] stepPath = new int[values.length - 1];
+					for (int i = 0; i < stepPath.length; i++) {
+						stepPath[i] = (int) values[i + 1];
+					}
+					stacks.get(stacks.size() - 1).add(new StackedStep((int) values[0], stepPath, pending));
+				}
+			}
+
+			return new Checkpoint((int) root[0], (int) root[1], (int) root[2], collectorState, stacks);
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed checkpoint " + path, e);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Malformed checkpoint " + path, e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @param prefix
+	 *            expected first token, or null
+	 */
+	private static long[] parse(String line, String prefix) throws IOException {
+		if (line == null) {
+			throw new IOException("Unexpected end of checkpoint");
+		}
+		String[] tokens = line.trim().split(" ");
+		int offset = 0;
+		if (prefix != null) {
+			if (!prefix.equals(tokens[0])) {
+				throw new IOException("Expected " + prefix + " in checkpoint, got " + line);
+			}
+			offset = 1;
+		}
+		long[] values = new long[tokens.length - offset];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Long.parseLong(tokens[i + offset]);
+		}
+		return values;
+	}
+
+	private static final class StackedStep {
+		final int position;
+		final int[] path;
+		final boolean pending;
+
+		StackedStep(int position, int[] path, boolean pending) {
+			this.position = position;
+			this.path = path;
+			this.pending = pending;
+		}
+	}
+}
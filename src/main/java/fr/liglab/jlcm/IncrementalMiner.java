@@ -0,0 +1,662 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.util.ItemsetsTrie;
+
+/**
+ * Maintains closed frequent itemsets while transactions are appended to the
+ * dataset, without reading previous transactions again.
+ *
+ * After mine(), closed itemsets having a support of at least storeSupport are
+ * kept in an ItemsetsTrie, with original item IDs. Let D be previous
+ * transactions and Δ the appended ones. A closed itemset Z of D∪Δ is
+ * either :
+ *
+ * - unknown in D, because it has no stored superset. Then its support in D is
+ * below storeSupport, and it may only reach the new store support thanks to Δ.
+ *
+ * - a subset of its closure in D, X, which is stored. Then Z is the
+ * intersection of X with Z's closure in Δ, so Z is a closed itemset of Δ
+ * restricted to X's items, and its support in D is X's one.
+ *
+ * So append() first mines Δ at the store's relative threshold, to find the
+ * greatest support in Δ of an unknown itemset : the store support is raised
+ * by this amount only. Then, for each stored itemset X, closed subsets of X
+ * in Δ are enumerated with a minimum support of newStoreSupport -
+ * support(X), which is high for itemsets near the store's boundary and low
+ * only for the most frequent ones - whose closed subsets are results anyway.
+ * Cost depends on the delta's size and on the count of stored itemsets, but
+ * previous transactions are never read.
+ *
+ * When items' frequencies are stable, the store support is raised by a few
+ * times storeSupport * delta / dataset after each append (the excess comes
+ * from unknown itemsets which happen to be more frequent in the delta), so
+ * the store's relative threshold raises slowly. For example, appending 1% of
+ * the dataset ten times to a store mined at 2% raises it to about 2.4%. But an
+ * unknown itemset which is frequent in the delta raises the store support by
+ * its whole support in the delta. When the wanted support gets below
+ * getStoreSupport(), call mine() again on the whole dataset.
+ *
+ * Transactions can also be removed, which only requires to read them : the
+ * store support is unchanged. slide() removes and appends transactions at
+ * once, raising the store support much less than append() when items'
+ * frequencies are stable.
+ */
+public final class IncrementalMiner {
+
+	/**
+	 * marks candidates which have already been stored in the updated trie
+	 */
+	private static final int STORED = -1;
+
+	private final int nbThreads;
+
+	private ItemsetsTrie store = null;
+	private int storeSupport = 0;
+	private int transactionsCount = 0;
+	private int storedCount = 0;
+
+	/**
+	 * @param nbThreads
+	 *            how many threads will mine the dataset or each delta
+	 */
+	public IncrementalMiner(int nbThreads) {
+		if (nbThreads < 1) {
+			throw new IllegalArgumentException("nbThreads has to be > 0, given " + nbThreads);
+		}
+		this.nbThreads = nbThreads;
+	}
+
+	/**
+	 * Mines the whole dataset, replacing the store
+	 *
+	 * @param transactions
+	 *            will be iterated twice
+	 * @param storeSupport
+	 *            absolute minimum support of stored itemsets - should be lower
+	 *            than the support you're interested in, in order to leave some
+	 *            margin for future deltas
+	 */
+	public void mine(Iterable<TransactionReader> transactions, int storeSupport) {
+		if (storeSupport < 1) {
+			throw new IllegalArgumentException("storeSupport has to be > 0, given " + storeSupport);
+		}
+		ExplorationStep initState = new ExplorationStep(storeSupport, transactions);
+		TrieWriter mined = new TrieWriter();
+		new PLCM(mined, this.nbThreads).lcm(initState);
+
+		this.store = mined.trie;
+		this.storedCount = (int) mined.close();
+		this.storeSupport = storeSupport;
+		this.transactionsCount = initState.counters.transactionsCount;
+	}
+
+	/**
+	 * Updates the store with appended transactions. Afterwards, the store
+	 * contains all closed itemsets of the extended dataset having a support of
+	 * at least getStoreSupport(), which is raised by the greatest support in
+	 * the delta of an itemset that wasn't stored.
+	 *
+	 * @param delta
+	 *            new transactions, will be iterated three times
+	 */
+	public void append(Iterable<TransactionReader> delta) {
+		this.slide(Collections.<TransactionReader> emptyList(), delta);
+	}
+
+	/**
+	 * Removes and appends transactions at once, as when a window slides over
+	 * the dataset. Removed transactions should have been mined or appended
+	 * before.
+	 *
+	 * While appending, all stored itemsets still occurring in remaining
+	 * transactions are kept, whatever their support. Their support is the one
+	 * of any subset they're the previous closure of, so enumerating subsets
+	 * works as in append(). And an itemset having no superset in the previous
+	 * store had a support below getStoreSupport() : it's now below this
+	 * support, minus its support in removed transactions, plus its support in
+	 * appended ones. So the store support is only raised by the greatest
+	 * difference between an unknown itemset's support in appended and removed
+	 * transactions, which remains small when items' frequencies are stable.
+	 *
+	 * @param removed
+	 *            transactions to remove, will be iterated once
+	 * @param appended
+	 *            new transactions, will be iterated three times
+	 */
+	public void slide(Iterable<TransactionReader> removed, Iterable<TransactionReader> appended) {
+		if (this.store == null) {
+			throw new IllegalStateException("mine() should be called first");
+		}
+
+		TIntObjectHashMap<TIntArrayList> removedOccurrences = new TIntObjectHashMap<TIntArrayList>();
+		TIntArrayList removedWeights = new TIntArrayList();
+		final int removedCount = loadVertical(removed, removedOccurrences, removedWeights);
+
+		TIntObjectHashMap<TIntArrayList> occurrences = new TIntObjectHashMap<TIntArrayList>();
+		TIntArrayList weights = new TIntArrayList();
+		final int deltaCount = loadVertical(appended, occurrences, weights);
+
+		if (deltaCount == 0) {
+			this.removeFromStore(removedOccurrences, removedWeights, this.storeSupport);
+			this.transactionsCount -= removedCount;
+			return;
+		}
+		if (removedCount >= this.transactionsCount) {
+			throw new IllegalStateException("No transaction would remain before appending, please mine() again");
+		}
+		final ItemsetsTrie previous = this.store;
+		if (removedCount > 0) {
+			this.store = getRemaining(previous, removedOccurrences, removedWeights);
+			this.transactionsCount -= removedCount;
+		}
+
+		// unknown itemsets below this support in the delta are not mined
+		final int deltaSupport = (int) Math.max(1,
+				((long) deltaCount * this.storeSupport + this.transactionsCount - 1) / this.transactionsCount);
+		UnknownSupportCollector unknown = new UnknownSupportCollector(previous, this.store, this.storeSupport,
+				removedOccurrences, removedWeights);
+		new PLCM(unknown, this.nbThreads).lcm(new ExplorationStep(deltaSupport, appended));
+
+		final int newStoreSupport = this.storeSupport + Math.max(deltaSupport - 1, unknown.maxExcess);
+
+		ItemsetsTrie updated = new ItemsetsTrie();
+		int updatedCount = 0;
+
+		// closed itemsets => their support in the delta, or STORED
+		TObjectIntHashMap<TIntArrayList> candidates = new TObjectIntHashMap<TIntArrayList>();
+		TIntArrayList key = new TIntArrayList();
+		for (int node = 1; node < this.store.getNodesCount(); node++) {
+			final int previousSupport = this.store.getSupport(node);
+			if (previousSupport > 0) {
+				final int[] itemset = this.store.getItemset(node);
+				final int[][] itemsOccurrences = getItemsOccurrences(itemset, occurrences);
+
+				// a stored itemset is a candidate too - its support in the delta
+				// may be known already, if it has been enumerated from a superset
+				final TIntArrayList stored = TIntArrayList.wrap(itemset);
+				final int support = previousSupport
+						+ (candidates.containsKey(stored) ? candidates.get(stored) : getSupport(itemsOccurrences,
+								weights));
+				if (support >= newStoreSupport) {
+					updated.add(itemset, itemset.length, support);
+					updatedCount++;
+				}
+				candidates.put(stored, STORED);
+
+				final int minSupport = Math.max(1, newStoreSupport - previousSupport);
+				if (minSupport <= deltaCount) {
+					enumerateClosed(itemset, itemsOccurrences, weights, minSupport, new boolean[itemset.length],
+							null, -1, candidates, key);
+				}
+			}
+		}
+
+		// enumerated itemsets which weren't stored : their support in previous
+		// transactions is the one of their closure, which is stored
+		for (TIntArrayList candidate : candidates.keySet()) {
+			final int candidateSupport = candidates.get(candidate);
+			if (candidateSupport != STORED) {
+				final int[] itemset = candidate.toArray();
+				final int support = this.store.getSupersetsMaxSupport(itemset, itemset.length) + candidateSupport;
+				if (support >= newStoreSupport) {
+					updated.add(itemset, itemset.length, support);
+					updatedCount++;
+				}
+			}
+		}
+
+		if (removedCount > 0) {
+			// stored itemsets whose closure has been removed, and itemsets
+			// enumerated from them, may not be closed
+			ItemsetsTrie closed = new ItemsetsTrie();
+			updatedCount = 0;
+			for (int node = 1; node < updated.getNodesCount(); node++) {
+				final int support = updated.getSupport(node);
+				if (support > 0) {
+					final int[] itemset = updated.getItemset(node);
+					if (!updated.hasStrictSuperset(itemset, itemset.length, support)) {
+						closed.add(itemset, itemset.length, support);
+						updatedCount++;
+					}
+				}
+			}
+			updated = closed;
+		}
+
+		this.store = updated;
+		this.storedCount = updatedCount;
+		this.storeSupport = newStoreSupport;
+		this.transactionsCount += deltaCount;
+	}
+
+	/**
+	 * @return stored itemsets which still occur after removing transactions
+	 *         (given in a vertical layout), with their updated support. Some
+	 *         may not be closed anymore.
+	 */
+	private static ItemsetsTrie getRemaining(ItemsetsTrie store, TIntObjectHashMap<TIntArrayList> occurrences,
+			TIntArrayList weights) {
+		ItemsetsTrie remaining = new ItemsetsTrie();
+		for (int node = 1; node < store.getNodesCount(); node++) {
+			final int previousSupport = store.getSupport(node);
+			if (previousSupport > 0) {
+				final int[] itemset = store.getItemset(node);
+				final int support = previousSupport - getSupport(getItemsOccurrences(itemset, occurrences), weights);
+				if (support > 0) {
+					remaining.add(itemset, itemset.length, support);
+				}
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Updates the store after removing transactions, which should have been
+	 * mined or appended before. Removal can't create a closed itemset : if Z
+	 * is closed in the remaining transactions, transactions containing Z
+	 * before the removal have no other common item, so Z was closed and at
+	 * least as frequent. Hence the store remains complete down to
+	 * getStoreSupport() : stored itemsets are updated, or dropped if their
+	 * support is now too low or if they got a superset of the same support.
+	 *
+	 * @param removed
+	 *            transactions to remove, will be iterated once
+	 */
+	public void remove(Iterable<TransactionReader> removed) {
+		if (this.store == null) {
+			throw new IllegalStateException("mine() should be called before remove()");
+		}
+
+		TIntObjectHashMap<TIntArrayList> occurrences = new TIntObjectHashMap<TIntArrayList>();
+		TIntArrayList weights = new TIntArrayList();
+		final int removedCount = loadVertical(removed, occurrences, weights);
+		this.removeFromStore(occurrences, weights, this.storeSupport);
+		this.transactionsCount -= removedCount;
+	}
+
+	/**
+	 * Updates supports of stored itemsets, given removed transactions in a
+	 * vertical layout, and only keeps itemsets which remain closed and have at
+	 * least minSupport
+	 */
+	private void removeFromStore(TIntObjectHashMap<TIntArrayList> occurrences, TIntArrayList weights,
+			int minSupport) {
+		if (weights.isEmpty()) {
+			return;
+		}
+
+		ItemsetsTrie remaining = new ItemsetsTrie();
+		List<int[]> decreased = new ArrayList<int[]>();
+		TIntArrayList decreasedSupports = new TIntArrayList();
+		ItemsetsTrie updated = new ItemsetsTrie();
+		int updatedCount = 0;
+
+		for (int node = 1; node < this.store.getNodesCount(); node++) {
+			final int previousSupport = this.store.getSupport(node);
+			if (previousSupport > 0) {
+				final int[] itemset = this.store.getItemset(node);
+				final int removedSupport = getSupport(getItemsOccurrences(itemset, occurrences), weights);
+				final int support = previousSupport - removedSupport;
+				if (support >= minSupport) {
+					remaining.add(itemset, itemset.length, support);
+					if (removedSupport == 0) {
+						// supersets' supports are unchanged too, so it's still
+						// closed
+						updated.add(itemset, itemset.length, support);
+						updatedCount++;
+					} else {
+						decreased.add(itemset);
+						decreasedSupports.add(support);
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < decreased.size(); i++) {
+			final int[] itemset = decreased.get(i);
+			final int support = decreasedSupports.getQuick(i);
+			if (!remaining.hasStrictSuperset(itemset, itemset.length, support)) {
+				updated.add(itemset, itemset.length, support);
+				updatedCount++;
+			}
+		}
+
+		this.store = updated;
+		this.storedCount = updatedCount;
+	}
+
+	/**
+	 * Loads transactions in a vertical layout
+	 *
+	 * @param occurrences
+	 *            filled with item => indices of transactions containing it, in
+	 *            increasing order
+	 * @param weights
+	 *            filled with transactions' supports
+	 * @return sum of transactions' supports
+	 */
+	private static int loadVertical(Iterable<TransactionReader> transactions,
+			TIntObjectHashMap<TIntArrayList> occurrences, TIntArrayList weights) {
+		int count = 0;
+		for (TransactionReader transaction : transactions) {
+			final int weight = transaction.getTransactionSupport();
+			while (transaction.hasNext()) {
+				final int item = transaction.next();
+				TIntArrayList itemOccurrences = occurrences.get(item);
+				if (itemOccurrences == null) {
+					itemOccurrences = new TIntArrayList();
+					occurrences.put(item, itemOccurrences);
+				}
+				itemOccurrences.add(weights.size());
+			}
+			weights.add(weight);
+			count += weight;
+		}
+		return count;
+	}
+
+	/**
+	 * @return for each item of itemset, indices of transactions containing it
+	 */
+	private static int[][] getItemsOccurrences(int[] itemset, TIntObjectHashMap<TIntArrayList> occurrences) {
+		final int[][] itemsOccurrences = new int[itemset.length][];
+		for (int i = 0; i < itemset.length; i++) {
+			TIntArrayList itemOccurrences = occurrences.get(itemset[i]);
+			itemsOccurrences[i] = itemOccurrences == null ? new int[0] : itemOccurrences.toArray();
+		}
+		return itemsOccurrences;
+	}
+
+	/**
+	 * @return sum of weights of transactions containing all items
+	 */
+	private static int getSupport(int[][] itemsOccurrences, TIntArrayList weights) {
+		int[] itemsetOccurrences = null;
+		for (int[] itemOccurrences : itemsOccurrences) {
+			itemsetOccurrences = intersect(itemsetOccurrences, itemOccurrences);
+		}
+		return sum(weights, itemsetOccurrences);
+	}
+
+	/**
+	 * Enumerates closed itemsets of the delta restricted to a stored itemset's
+	 * items, by prefix-preserving closure extension - as in LCM.
+	 *
+	 * @param itemset
+	 *            stored itemset
+	 * @param itemsOccurrences
+	 *            indices of delta's transactions containing each item
+	 * @param minSupport
+	 *            in the delta
+	 * @param current
+	 *            current closed itemset, as a mask on itemset
+	 * @param currentOccurrences
+	 *            indices of delta's transactions containing current, null
+	 *            meaning all transactions
+	 * @param core
+	 *            extensions are only tried after this index in itemset
+	 * @param found
+	 *            closed itemsets are added here, with their support in the
+	 *            delta. Closed subsets shared by many stored itemsets are only
+	 *            added once, but their extensions are still enumerated because
+	 *            they depend on the stored itemset.
+	 * @param key
+	 *            used as a buffer
+	 */
+	private static void enumerateClosed(int[] itemset, int[][] itemsOccurrences, TIntArrayList weights,
+			int minSupport, boolean[] current, int[] currentOccurrences, int core,
+			TObjectIntHashMap<TIntArrayList> found, TIntArrayList key) {
+
+		for (int extension = core + 1; extension < itemset.length; extension++) {
+			if (current[extension]) {
+				continue;
+			}
+			final int[] occurrences = intersect(currentOccurrences, itemsOccurrences[extension]);
+			final int support = sum(weights, occurrences);
+			if (support < minSupport) {
+				continue;
+			}
+
+			boolean[] closure = Arrays.copyOf(current, current.length);
+			boolean prefixPreserved = true;
+			for (int i = 0; i < itemset.length && prefixPreserved; i++) {
+				if (!closure[i] && (i == extension || contains(itemsOccurrences[i], occurrences))) {
+					closure[i] = true;
+					prefixPreserved = (i >= extension);
+				}
+			}
+
+			if (prefixPreserved) {
+				key.resetQuick();
+				for (int i = 0; i < itemset.length; i++) {
+					if (closure[i]) {
+						key.add(itemset[i]);
+					}
+				}
+				if (!found.containsKey(key)) {
+					found.put(new TIntArrayList(key), support);
+				}
+				enumerateClosed(itemset, itemsOccurrences, weights, minSupport, closure, occurrences, extension,
+						found, key);
+			}
+		}
+	}
+
+	/**
+	 * @param a
+	 *            sorted, or null meaning all indices
+	 * @param b
+	 *            sorted
+	 */
+	private static int[] intersect(int[] a, int[] b) {
+		if (a == null) {
+			return b;
+		}
+		int[] intersection = new int[Math.min(a.length, b.length)];
+		int length = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				intersection[length++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(intersection, length);
+	}
+
+	/**
+	 * @return true if sorted array a contains all elements of sorted array b
+	 */
+	private static boolean contains(int[] a, int[] b) {
+		int i = 0;
+		for (int element : b) {
+			while (i < a.length && a[i] < element) {
+				i++;
+			}
+			if (i == a.length || a[i] != element) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int sum(TIntArrayList weights, int[] indices) {
+		int sum = 0;
+		for (int index : indices) {
+			sum += weights.getQuick(index);
+		}
+		return sum;
+	}
+
+	/**
+	 * Writes stored itemsets having at least the given support. Writer is not
+	 * closed.
+	 *
+	 * @param minSupport
+	 *            should be at least getStoreSupport()
+	 * @return how many itemsets have been written
+	 */
+	public long collect(PatternsWriter writer, int minSupport) {
+		if (this.store == null) {
+			throw new IllegalStateException("mine() should be called before collect()");
+		}
+		if (minSupport < this.storeSupport) {
+			throw new IllegalArgumentException("The store is only complete down to a support of "
+					+ this.storeSupport + ", given " + minSupport + " - please mine() again");
+		}
+
+		long count = 0;
+		for (int node = 1; node < this.store.getNodesCount(); node++) {
+			final int support = this.store.getSupport(node);
+			if (support >= minSupport) {
+				final int[] itemset = this.store.getItemset(node);
+				writer.collect(support, itemset, itemset.length);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the lowest support down to which the store is complete
+	 */
+	public int getStoreSupport() {
+		return this.storeSupport;
+	}
+
+	/**
+	 * @return sum of transactions' weights, including all appended ones
+	 */
+	public int getTransactionsCount() {
+		return this.transactionsCount;
+	}
+
+	/**
+	 * @return how many closed itemsets are stored
+	 */
+	public int getStoredCount() {
+		return this.storedCount;
+	}
+
+	/**
+	 * Finds by how much collected itemsets, which can't be enumerated from
+	 * remaining stored itemsets, may exceed the store support once appended.
+	 * That's their support minus their support in removed transactions if
+	 * they had no superset in the previous store, or minus (store support - 1)
+	 * if their stored supersets only occurred in removed transactions.
+	 */
+	private static final class UnknownSupportCollector extends PatternsWriter {
+		private final ItemsetsTrie previous;
+		private final ItemsetsTrie remaining;
+		private final int storeSupport;
+		private final TIntObjectHashMap<TIntArrayList> removedOccurrences;
+		private final TIntArrayList removedWeights;
+		private long count = 0;
+		int maxExcess = 0;
+
+		UnknownSupportCollector(ItemsetsTrie previous, ItemsetsTrie remaining, int storeSupport,
+				TIntObjectHashMap<TIntArrayList> removedOccurrences, TIntArrayList removedWeights) {
+			this.previous = previous;
+			this.remaining = remaining;
+			this.storeSupport = storeSupport;
+			this.removedOccurrences = removedOccurrences;
+			this.removedWeights = removedWeights;
+		}
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			final int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			int excess = 0;
+			// excess can't be greater than support
+			if (support > this.maxExcess) {
+				if (this.previous.getSupersetsMaxSupport(sorted, length) == 0) {
+					excess = support
+							- getSupport(getItemsOccurrences(sorted, this.removedOccurrences), this.removedWeights);
+				} else if (this.remaining != this.previous
+						&& this.remaining.getSupersetsMaxSupport(sorted, length) == 0) {
+					excess = support - this.storeSupport + 1;
+				}
+			}
+			synchronized (this) {
+				this.count++;
+				if (excess > this.maxExcess) {
+					this.maxExcess = excess;
+				}
+			}
+		}
+
+		public long close() {
+			return this.count;
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	/**
+	 * Inserts patterns in a trie, sorted and with their original item IDs
+	 */
+	private static final class TrieWriter extends PatternsWriter {
+		final ItemsetsTrie trie = new ItemsetsTrie();
+		private long count = 0;
+		private long lengths = 0;
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			final int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			this.trie.add(sorted, length, support);
+			synchronized (this) {
+				this.count++;
+				this.lengths += length;
+			}
+		}
+
+		public long close() {
+			return this.count;
+		}
+
+		public int getAveragePatternLength() {
+			return this.count == 0 ? 0 : (int) (this.lengths / this.count);
+		}
+	}
+}
@@ -21,6 +21,8 @@
 
 package fr.liglab.jlcm;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -30,7 +32,10 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MemoryFootprint;
+import fr.liglab.jlcm.io.CheckpointableCollector;
 import fr.liglab.jlcm.io.PatternsCollector;
+import fr.liglab.jlcm.util.ExplorationListener;
 import fr.liglab.jlcm.util.ProgressWatcherThread;
 
 /**
@@ -43,9 +48,59 @@ public class PLCM {
 	private ProgressWatcherThread progressWatch;
 	protected static long chrono;
 
+	/**
+	 * When true, threads accumulate the time spent in each phase of the
+	 * exploration in the *NanoTime counters. Disabled by default because it
+	 * adds two System.nanoTime() calls per measured phase.
+	 */
+	public static boolean measureTimes = false;
+
+	/**
+	 * When true, lcm() estimates the exploration's memory footprint (see
+	 * MemoryFootprint) and starts fewer threads if they would not fit in the
+	 * heap. Disabled by default because the per-thread estimate is a
+	 * heuristic.
+	 */
+	public static boolean checkMemory = false;
+
+	/**
+	 * When true, lcm() records the time threads spend in each root sub-tree,
+	 * so getProgressEstimate() and the ProgressWatcherThread can estimate the
+	 * remaining time. Disabled by default because it adds a System.nanoTime()
+	 * call per iteration of mining threads.
+	 */
+	public static boolean estimateProgress = false;
+
+	/**
+	 * When true, lcm() registers a PLCMStatusMXBean in the platform MBean
+	 * server while it runs, so it can be watched from JConsole, a
+	 * MetricsExporter or a MemoryPeakWatcherThread. Disabled by default because
+	 * SupportTuner, AnytimeMiner, SlidingWindowMiner or PartitionWorker
+	 * call lcm() for many short runs.
+	 */
+	public static boolean registerStatus = false;
+
 	private final PatternsCollector collector;
 
 	private final long[] globalCounters;
+
+	private volatile ProgressEstimator progressEstimator = null;
+
+	/**
+	 * Checkpoints' synchronization : mining threads pause at the beginning of
+	 * their loop while checkpointRequested is true. runningThreads and
+	 * pausedThreads are guarded by checkpointLock.
+	 */
+	private final Object checkpointLock = new Object();
+	private volatile boolean checkpointRequested = false;
+	private int runningThreads = 0;
+	private int pausedThreads = 0;
+	private ExplorationStep checkpointedState = null;
+
+	private String checkpointPath = null;
+	private long checkpointPeriod = 0;
+
+	private volatile CancellationToken cancellationToken = null;
 	
 	public PLCM(PatternsCollector patternsCollector, int nbThreads) {
 		this(patternsCollector, nbThreads, null);
@@ -66,41 +121,284 @@ public class PLCM {
 	 * Initial invocation
 	 */
 	public final void lcm(final ExplorationStep initState) {
-		if (initState.pattern.length > 0) {
-			this.collector.collect(initState);
+		this.explore(initState, null);
+	}
+
+	/**
+	 * Resumes an exploration from a checkpoint (see checkpoint() and
+	 * setCheckpointing()). If the collector is a CheckpointableCollector, its
+	 * output is first rolled back to the checkpoint.
+	 * 
+	 * @param initState
+	 *            a new initial step, built from the same input, minimum support
+	 *            and selectors than the checkpointed exploration
+	 */
+	public final void resume(final ExplorationStep initState, final Checkpoint checkpoint) {
+		this.explore(initState, checkpoint);
+	}
+
+	private void explore(final ExplorationStep initState, final Checkpoint checkpoint) {
+		if (checkpoint == null) {
+			if (initState.pattern.length > 0) {
+				this.collect(initState);
+			}
+		} else if (checkpoint.getCollectorState() != null && this.collector instanceof CheckpointableCollector) {
+			((CheckpointableCollector) this.collector).restore(checkpoint.getCollectorState());
 		}
 
-		this.initializeAndStartThreads(initState);
+		if (checkMemory) {
+			this.fitThreadsInHeap(initState);
+		}
 
-		if (this.progressWatch != null) {
-			this.progressWatch.setInitState(initState);
-			this.progressWatch.start();
+		final CancellationToken token = this.cancellationToken;
+		if (token != null) {
+			token.start();
 		}
-		
-		for (PLCMThread t : this.threads) {
+
+		if (estimateProgress) {
+			this.progressEstimator = new ProgressEstimator(initState, this.threads.size());
+			for (PLCMThread t : this.threads) {
+				t.recorder = this.progressEstimator.newRecorder();
+			}
+		} else {
+			this.progressEstimator = null;
+			for (PLCMThread t : this.threads) {
+				t.recorder = null;
+			}
+		}
+
+		// whatever happens, the MBean (which holds initState) is unregistered and
+		// helper threads are stopped
+		PLCMStatus status = null;
+		boolean watching = false;
+		CheckpointThread checkpointer = null;
+		try {
+			if (registerStatus) {
+				status = PLCMStatus.register(this, initState);
+			}
+
+			List<List<ExplorationStep>> stacks = null;
+			if (checkpoint != null) {
+				List<ExplorationStep> pending = new ArrayList<ExplorationStep>();
+				stacks = checkpoint.rebuild(initState, this.threads.size(), pending);
+				for (ExplorationStep step : pending) {
+					this.collect(step);
+				}
+			}
+
+			synchronized (this.checkpointLock) {
+				this.runningThreads = this.threads.size();
+				this.checkpointedState = initState;
+			}
+
+			if (stacks == null) {
+				this.initializeAndStartThreads(initState);
+			} else {
+				for (int i = 0; i < this.threads.size(); i++) {
+					PLCMThread t = this.threads.get(i);
+					for (ExplorationStep step : stacks.get(i)) {
+						t.init(step);
+					}
+					t.start();
+				}
+			}
+
+			if (this.progressWatch != null) {
+				this.progressWatch.setInitState(initState);
+				this.progressWatch.setEstimator(this.progressEstimator);
+				this.progressWatch.start();
+				watching = true;
+			}
+
+			if (this.checkpointPath != null) {
+				checkpointer = new CheckpointThread(this.checkpointPath, this.checkpointPeriod);
+				checkpointer.start();
+			}
+
+			for (PLCMThread t : this.threads) {
+				try {
+					t.join();
+					for (int i = 0; i < t.counters.length; i++) {
+						this.globalCounters[i] += t.counters[i];
+					}
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			// threads stopped with their stacks intact, so the run can be resumed
+			if (this.checkpointPath != null && token != null && token.isCancelled()) {
+				try {
+					this.saveCheckpoint(this.checkpointPath);
+				} catch (IOException e) {
+					e.printStackTrace(System.err);
+				}
+			}
+		} finally {
+			if (watching) {
+				this.progressWatch.interrupt();
+			}
+
+			if (checkpointer != null) {
+				checkpointer.interrupt();
+				try {
+					checkpointer.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			if (status != null) {
+				status.unregister();
+			}
+		}
+
+		// if the exploration failed or has been cancelled, the last checkpoint
+		// is kept
+		if (checkpointer != null && (token == null || !token.isCancelled())) {
+			new File(this.checkpointPath).delete();
+		}
+	}
+
+	/**
+	 * Allows to stop lcm() (or resume()) before the exploration completes.
+	 * Once the token is cancelled or its budget exhausted, lcm() returns
+	 * normally : the collector should be closed as usual. If checkpointing is
+	 * enabled, a last checkpoint is written before returning, so the
+	 * exploration can be resumed.
+	 * 
+	 * @param token
+	 *            null to remove a previously set token
+	 */
+	public void setCancellationToken(CancellationToken token) {
+		this.cancellationToken = token;
+	}
+
+	/**
+	 * Makes lcm() and resume() save a checkpoint periodically. The checkpoint
+	 * file is deleted once the exploration completes, and kept if it's
+	 * cancelled (see setCancellationToken).
+	 * 
+	 * @param path
+	 *            checkpoint file
+	 * @param periodMillis
+	 *            delay between two checkpoints
+	 */
+	public void setCheckpointing(String path, long periodMillis) {
+		if (periodMillis <= 0) {
+			throw new IllegalArgumentException("periodMillis has to be > 0, given " + periodMillis);
+		}
+		this.checkpointPath = path;
+		this.checkpointPeriod = periodMillis;
+	}
+
+	/**
+	 * Pauses mining threads, saves the exploration's frontier to path and
+	 * resumes mining. If the collector is a CheckpointableCollector, its output
+	 * is flushed and its state is saved too. Can be invoked from any thread
+	 * while lcm() is running.
+	 * 
+	 * @return false if the exploration is not running (nothing is written)
+	 */
+	public synchronized boolean checkpoint(String path) throws IOException {
+		synchronized (this.checkpointLock) {
+			if (this.runningThreads == 0) {
+				return false;
+			}
+			this.checkpointRequested = true;
 			try {
-				t.join();
-				for (int i = 0; i < t.counters.length; i++) {
-					this.globalCounters[i] += t.counters[i];
+				while (this.pausedThreads < this.runningThreads) {
+					this.checkpointLock.wait();
+				}
+				if (this.runningThreads == 0) {
+					return false;
+				}
+
+				this.saveCheckpoint(path);
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} finally {
+				this.checkpointRequested = false;
+				this.checkpointLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Should only be invoked while mining threads are paused or terminated
+	 */
+	private synchronized void saveCheckpoint(String path) throws IOException {
+		long[] collectorState = null;
+		if (this.collector instanceof CheckpointableCollector) {
+			collectorState = ((CheckpointableCollector) this.collector).checkpoint();
+		}
+		Checkpoint.capture(this.checkpointedState, this.threads, collectorState).write(path);
+	}
+
+	private void pauseForCheckpoint() {
+		synchronized (this.checkpointLock) {
+			this.pausedThreads++;
+			this.checkpointLock.notifyAll();
+			try {
+				while (this.checkpointRequested) {
+					this.checkpointLock.wait();
 				}
 			} catch (InterruptedException e) {
 				throw new RuntimeException(e);
+			} finally {
+				this.pausedThreads--;
 			}
 		}
-		
-		if (this.progressWatch != null) {
-			this.progressWatch.interrupt();
+	}
+
+	private void threadTerminated() {
+		synchronized (this.checkpointLock) {
+			this.runningThreads--;
+			this.checkpointLock.notifyAll();
 		}
 	}
-	
+
+	private void fitThreadsInHeap(final ExplorationStep initState) {
+		final MemoryFootprint footprint = new MemoryFootprint(initState.counters, this.threads.size());
+		final int maxThreads = footprint.getMaxThreads(Runtime.getRuntime().maxMemory());
+		if (maxThreads < 1) {
+			throw new IllegalStateException("Not enough memory to mine even with a single thread - " + footprint);
+		}
+		if (maxThreads < this.threads.size()) {
+			System.err.println("Starting " + maxThreads + " threads instead of " + this.threads.size()
+					+ " to fit in the heap - " + footprint);
+			while (this.threads.size() > maxThreads) {
+				this.threads.remove(this.threads.size() - 1);
+			}
+		}
+	}
+
 	void createThreads(int nbThreads) {
 		for (int i = 0; i < nbThreads; i++) {
 			this.threads.add(new PLCMThread(i));
 		}
 	}
 
-	public final void collect(ExplorationStep step) {
-		this.collector.collect(step);
+	/**
+	 * @return false if the step should have been collected but its pattern has
+	 *         been refused by the cancellation token
+	 */
+	public final boolean collect(ExplorationStep step) {
+		final long start = startTimer();
+		boolean refused = false;
+		if (step.isSelectedForOutput()) {
+			final CancellationToken token = this.cancellationToken;
+			if (token == null || token.patternCollected()) {
+				this.collector.collect(step);
+				incrementCounter(PLCMCounters.CollectedPatterns);
+			} else {
+				refused = true;
+			}
+		}
+		stopTimer(PLCMCounters.CollectNanoTime, start);
+		return !refused;
 	}
 
 	void initializeAndStartThreads(final ExplorationStep initState) {
@@ -110,6 +408,20 @@ public class PLCM {
 		}
 	}
 
+	/**
+	 * @return an estimation of the progression of lcm(), which may be
+	 *         running in another thread - null if lcm() has not been called or
+	 *         if estimateProgress is false
+	 */
+	public ProgressEstimator.Estimate getProgressEstimate() {
+		final ProgressEstimator estimator = this.progressEstimator;
+		if (estimator == null) {
+			return null;
+		} else {
+			return estimator.estimate();
+		}
+	}
+
 	public Map<PLCMCounters, Long> getCounters() {
 		HashMap<PLCMCounters, Long> map = new HashMap<PLCMCounters, Long>();
 
@@ -164,6 +476,7 @@ public class PLCM {
 			if (victim != thief) {
 				ExplorationStep e = stealJob(thief, victim);
 				if (e != null) {
+					thief.counters[PLCMCounters.JobSteals.ordinal()]++;
 					return e;
 				}
 			}
@@ -180,6 +493,10 @@ public class PLCM {
 			if (next != null) {
 				thief.init(sj);
 				victim.lock.readLock().unlock();
+				final ExplorationListener listener = ExplorationStep.listener;
+				if (listener != null) {
+					listener.jobStolen(thief.id, victim.id, stealPos);
+				}
 				return next;
 			}
 		}
@@ -187,12 +504,65 @@ public class PLCM {
 		return null;
 	}
 
+	/**
+	 * Increments the current thread's counter - does nothing if the current
+	 * thread is not a PLCMThread (for example when an ExplorationStep is
+	 * driven by a benchmark or a test)
+	 */
+	public static void incrementCounter(PLCMCounters key) {
+		final Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			((PLCMThread) current).counters[key.ordinal()]++;
+		}
+	}
+
+	/**
+	 * @return true if the current thread is a PLCMThread whose exploration has
+	 *         been cancelled (see setCancellationToken)
+	 */
+	public static boolean isCancelled() {
+		final Thread current = Thread.currentThread();
+		if (current instanceof PLCMThread) {
+			return ((PLCMThread) current).isCancelled();
+		}
+		return false;
+	}
+
+	/**
+	 * @return a value to give to stopTimer(), 0 if measureTimes is disabled
+	 */
+	public static long startTimer() {
+		return measureTimes ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Adds the time elapsed since start to the current thread's counter - does
+	 * nothing if start is 0 (see startTimer()) or if the current thread is not a
+	 * PLCMThread
+	 */
+	public static void stopTimer(PLCMCounters key, long start) {
+		if (start != 0) {
+			final Thread current = Thread.currentThread();
+			if (current instanceof PLCMThread) {
+				((PLCMThread) current).counters[key.ordinal()] += System.nanoTime() - start;
+			}
+		}
+	}
+
 	/**
 	 * Some classes in EnumerationStep may declare counters here. see references
 	 * to PLCMCounters.counters
+	 * 
+	 * *NanoTime counters are only filled when PLCM.measureTimes is true. Phases
+	 * are measured separately, except StealNanoTime which includes the
+	 * computation of the stolen extension (so its counting, first-parent tests,
+	 * dataset instanciation and compression are also counted in the
+	 * corresponding counters).
 	 */
 	public enum PLCMCounters {
-		ExplorationStepInstances, ExplorationStepCaughtWrongFirstParents, FirstParentTestRejections, TransactionsCompressions
+		ExplorationStepInstances, ExplorationStepCaughtWrongFirstParents, FirstParentTestRejections, TransactionsCompressions,
+		CollectedPatterns, JobSteals,
+		CountingNanoTime, FirstParentTestNanoTime, DatasetInstanciationNanoTime, CompressionNanoTime, CollectNanoTime, StealNanoTime
 	}
 
 	public class PLCMThread extends Thread {
@@ -200,6 +570,13 @@ public class PLCM {
 		final ReadWriteLock lock;
 		final List<ExplorationStep> stackedJobs;
 		protected final int id;
+		ProgressEstimator.Recorder recorder = null;
+
+		/**
+		 * true if the step on top of the stack has not been collected, because
+		 * exploration has been cancelled meanwhile
+		 */
+		boolean topUncollected = false;
 
 		public PLCMThread(final int id) {
 			super("PLCMThread" + id);
@@ -213,6 +590,9 @@ public class PLCM {
 			this.lock.writeLock().lock();
 			this.stackedJobs.add(initState);
 			this.lock.writeLock().unlock();
+			if (this.recorder != null) {
+				this.recorder.pushed(initState);
+			}
 		}
 
 		@Override
@@ -220,49 +600,116 @@ public class PLCM {
 			return this.id;
 		}
 
+		boolean isCancelled() {
+			final CancellationToken token = cancellationToken;
+			return token != null && token.isCancelled();
+		}
+
 		@Override
 		public void run() {
 			// no need to readlock, this thread is the only one that can do
 			// writes
-			boolean exit = false;
-			while (!exit) {
-				ExplorationStep sj = null;
-				if (!this.stackedJobs.isEmpty()) {
-					sj = this.stackedJobs.get(this.stackedJobs.size() - 1);
-
-					ExplorationStep extended = sj.next();
-					// iterator is finished, remove it from the stack
-					if (extended == null) {
-						this.lock.writeLock().lock();
-
-						this.stackedJobs.remove(this.stackedJobs.size() - 1);
-						this.counters[PLCMCounters.ExplorationStepInstances.ordinal()]++;
-						this.counters[PLCMCounters.ExplorationStepCaughtWrongFirstParents.ordinal()] += sj
-								.getCaughtWrongFirstParentCount();
-
-						this.lock.writeLock().unlock();
-					} else {
-						this.lcm(extended);
+			final ProgressEstimator.Recorder recorder = this.recorder;
+			try {
+				while (true) {
+					if (checkpointRequested) {
+						pauseForCheckpoint();
 					}
-
-				} else { // our list was empty, we should steal from another
-							// thread
-					ExplorationStep stolj = stealJob(this);
-					if (stolj == null) {
-						exit = true;
-					} else {
-						lcm(stolj);
+					if (this.isCancelled()) {
+						break;
 					}
+					final long iterationStart = (recorder == null) ? 0 : System.nanoTime();
+					ExplorationStep sj = null;
+					if (!this.stackedJobs.isEmpty()) {
+						sj = this.stackedJobs.get(this.stackedJobs.size() - 1);
+
+						ExplorationStep extended = sj.next();
+						if (extended == null && this.isCancelled()) {
+							// sj may have more candidates : leave it stacked, for
+							// the checkpoint
+							break;
+						} else if (extended == null) {
+							// iterator is finished, remove it from the stack
+							this.lock.writeLock().lock();
+
+							this.stackedJobs.remove(this.stackedJobs.size() - 1);
+							this.counters[PLCMCounters.ExplorationStepInstances.ordinal()]++;
+							this.counters[PLCMCounters.ExplorationStepCaughtWrongFirstParents.ordinal()] += sj
+									.getCaughtWrongFirstParentCount();
+
+							this.lock.writeLock().unlock();
+							if (recorder != null) {
+								recorder.popped(sj, System.nanoTime() - iterationStart);
+							}
+						} else {
+							this.lcm(extended);
+							if (recorder != null) {
+								recorder.spent(extended, System.nanoTime() - iterationStart);
+							}
+						}
+
+					} else { // our list was empty, we should steal from another
+								// thread
+						final long start = startTimer();
+						ExplorationStep stolj = stealJob(this);
+						stopTimer(PLCMCounters.StealNanoTime, start);
+						if (stolj == null) {
+							break;
+						} else {
+							lcm(stolj);
+							if (recorder != null) {
+								recorder.spent(stolj, System.nanoTime() - iterationStart);
+							}
+						}
+					}
+				}
+			} finally {
+				if (recorder != null) {
+					recorder.flush();
 				}
+				// also when dying on an exception, so checkpoints don't wait
+				// for this thread
+				threadTerminated();
 			}
 		}
 
 		private void lcm(ExplorationStep state) {
-			collect(state);
+			// the step is stacked even if it's refused, so the checkpoint
+			// contains its pattern and its sub-tree
+			this.topUncollected = !collect(state);
 
+			if (this.recorder != null) {
+				this.recorder.pushed(state);
+			}
 			this.lock.writeLock().lock();
 			this.stackedJobs.add(state);
 			this.lock.writeLock().unlock();
 		}
 	}
+
+	private final class CheckpointThread extends Thread {
+		private final String path;
+		private final long period;
+
+		CheckpointThread(String path, long period) {
+			super("PLCMCheckpointThread");
+			this.setDaemon(true);
+			this.path = path;
+			this.period = period;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					Thread.sleep(this.period);
+					checkpoint(this.path);
+				}
+			} catch (InterruptedException e) {
+				// exploration is over
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+			}
+		}
+	}
 }
@@ -0,0 +1,173 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.PLCM.PLCMThread;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.ExplorationStep.Progress;
+
+/**
+ * PLCMStatusMXBean implementation, registered by PLCM.lcm()
+ */
+final class PLCMStatus implements PLCMStatusMXBean {
+
+	static final String DOMAIN = "fr.liglab.jlcm";
+
+	private static final AtomicInteger runs = new AtomicInteger(0);
+
+	private final PLCM algo;
+	private final ExplorationStep initState;
+	private final long start;
+	private ObjectName name;
+
+	private PLCMStatus(PLCM algo, ExplorationStep initState) {
+		this.algo = algo;
+		this.initState = initState;
+		this.start = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the registered instance, or null if registration failed (a
+	 *         warning is printed on stderr, mining can go on without it)
+	 */
+	static PLCMStatus register(PLCM algo, ExplorationStep initState) {
+		PLCMStatus status = new PLCMStatus(algo, initState);
+		try {
+			status.name = new ObjectName(DOMAIN + ":type=PLCM,run=" + runs.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(status, status.name);
+			return status;
+		} catch (JMException e) {
+			System.err.println("Could not register PLCM's MBean: " + e);
+			return null;
+		} catch (SecurityException e) {
+			System.err.println("Could not register PLCM's MBean: " + e);
+			return null;
+		}
+	}
+
+	void unregister() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(this.name);
+		} catch (JMException e) {
+			System.err.println("Could not unregister PLCM's MBean: " + e);
+		}
+	}
+
+	private long sumCounter(int ordinal) {
+		long sum = 0;
+		for (PLCMThread t : this.algo.threads) {
+			sum += t.counters[ordinal];
+		}
+		return sum;
+	}
+
+	public int getThreadsCount() {
+		return this.algo.threads.size();
+	}
+
+	public long getCollectedPatterns() {
+		return this.sumCounter(PLCMCounters.CollectedPatterns.ordinal());
+	}
+
+	public int[] getStackDepths() {
+		int[] depths = new int[this.algo.threads.size()];
+		for (int i = 0; i < depths.length; i++) {
+			depths[i] = this.algo.threads.get(i).stackedJobs.size();
+		}
+		return depths;
+	}
+
+	public int[] getExplorationDepths() {
+		int[] depths = new int[this.algo.threads.size()];
+		for (int i = 0; i < depths.length; i++) {
+			PLCMThread t = this.algo.threads.get(i);
+			// thieves readlock too, the owner only writelocks
+			t.lock.readLock().lock();
+			if (t.stackedJobs.isEmpty()) {
+				depths[i] = -1;
+			} else {
+				depths[i] = t.stackedJobs.get(t.stackedJobs.size() - 1).getDepth();
+			}
+			t.lock.readLock().unlock();
+		}
+		return depths;
+	}
+
+	public int getRootCandidate() {
+		if (this.initState.dataset == null) {
+			return -1;
+		}
+		Progress progress = this.initState.getProgression();
+		return progress.current >= progress.last ? -1 : progress.current;
+	}
+
+	public int getRootLast() {
+		if (this.initState.dataset == null) {
+			return -1;
+		}
+		return this.initState.getProgression().last;
+	}
+
+	public Map<String, Long> getCounters() {
+		Map<String, Long> counters = new HashMap<String, Long>();
+		for (PLCMCounters counter : PLCMCounters.values()) {
+			counters.put(counter.toString(), this.sumCounter(counter.ordinal()));
+		}
+		return counters;
+	}
+
+	public long getSteals() {
+		return this.sumCounter(PLCMCounters.JobSteals.ordinal());
+	}
+
+	public double getStealsPerSecond() {
+		final long elapsed = Math.max(1, this.getElapsedMillis());
+		return 1000.0 * this.getSteals() / elapsed;
+	}
+
+	public long getPeakMemory() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	public long getElapsedMillis() {
+		return System.currentTimeMillis() - this.start;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.util.Map;
+
+/**
+ * Live status of a PLCM run, registered in the platform MBean server as
+ * fr.liglab.jlcm:type=PLCM,run=[run number] while PLCM.lcm() is running, if
+ * PLCM.registerStatus is true.
+ * 
+ * Values are read without synchronization from mining threads, so they may be
+ * slightly outdated.
+ */
+public interface PLCMStatusMXBean {
+
+	/**
+	 * Matches all PLCMStatusMXBean instances registered by running PLCMs
+	 */
+	public static final String NAMES_PATTERN = "fr.liglab.jlcm:type=PLCM,*";
+
+	public int getThreadsCount();
+
+	/**
+	 * @return how many patterns have been given to the collector so far
+	 */
+	public long getCollectedPatterns();
+
+	/**
+	 * @return each thread's count of stacked ExplorationSteps
+	 */
+	public int[] getStackDepths();
+
+	/**
+	 * @return for each thread, depth (see ExplorationStep.getDepth()) of the
+	 *         ExplorationStep on top of its stack, or -1 if its stack is empty
+	 */
+	public int[] getExplorationDepths();
+
+	/**
+	 * @return the next candidate extension of the initial ExplorationStep
+	 *         (internal ID), or -1 if they have all been explored
+	 */
+	public int getRootCandidate();
+
+	/**
+	 * @return the upper bound (exclusive) of the initial ExplorationStep's
+	 *         candidate extensions (internal IDs)
+	 */
+	public int getRootLast();
+
+	/**
+	 * @return PLCMCounters, summed over all threads
+	 */
+	public Map<String, Long> getCounters();
+
+	public long getSteals();
+
+	/**
+	 * @return steals count divided by the time elapsed since mining started
+	 */
+	public double getStealsPerSecond();
+
+	/**
+	 * @return peak memory usage of the JVM's heap, in bytes
+	 */
+	public long getPeakMemory();
+
+	public long getElapsedMillis();
+}
@@ -0,0 +1,378 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.Counters;
+import fr.liglab.jlcm.internals.Counters.ExtensionsIterator;
+import fr.liglab.jlcm.io.FileReader;
+
+/**
+ * Distributes an exploration among several worker processes (see
+ * PartitionWorker) on the local host, so each JVM can mine with a smaller
+ * heap.
+ * 
+ * The coordinator only counts items' supports in the input file. Workers
+ * connect to its socket, load the same file and repeatedly ask for a chunk of
+ * the initial step's extensions (as internal item IDs), whose sub-trees they
+ * mine with PLCM. Extensions are given by decreasing estimated cost (see
+ * ProgressEstimator), and a chunk's estimated cost is half of the remaining
+ * cost divided by the count of connected workers : first chunks contain a
+ * single expensive extension, and idle workers get smaller chunks at the end.
+ * 
+ * If a worker disconnects before reporting its chunk, the chunk is given
+ * again to another worker. In that case the disconnected worker's output may
+ * contain some patterns twice.
+ */
+public final class PartitionCoordinator {
+
+	/**
+	 * Sent by a worker instead of a patterns count, when it can't mine
+	 */
+	static final long WORKER_FAILURE = -1;
+
+	private final String inputPath;
+	private final int minSupport;
+	private final int nbFrequents;
+	private final int distinctTransactionsCount;
+	private final boolean rootHasPattern;
+
+	/**
+	 * guarded by this
+	 */
+	private final LinkedList<Integer> pending = new LinkedList<Integer>();
+	private final double[] costs;
+	private double pendingCost = 0;
+	private int outstandingChunks = 0;
+	private int connectedWorkers = 0;
+	private boolean rootGiven = false;
+	private long collected = 0;
+	private final long[] counters = new long[PLCMCounters.values().length];
+
+	private ServerSocket server = null;
+
+	/**
+	 * @param inputPath
+	 *            to an input file in ASCII format, which should be readable by
+	 *            workers too
+	 * @param minSupport
+	 */
+	public PartitionCoordinator(String inputPath, int minSupport) {
+		this.inputPath = new File(inputPath).getAbsolutePath();
+		this.minSupport = minSupport;
+
+		FileReader reader = new FileReader(inputPath);
+		Counters rootCounters = new Counters(minSupport, reader);
+		reader.close();
+
+		this.nbFrequents = rootCounters.nbFrequents;
+		this.distinctTransactionsCount = rootCounters.distinctTransactionsCount;
+		this.rootHasPattern = rootCounters.closure.length > 0;
+
+		ExtensionsIterator candidates = rootCounters.getExtensionsIterator();
+		this.costs = ProgressEstimator.getRootCosts(rootCounters, candidates.last());
+		for (int candidate = candidates.next(); candidate >= 0; candidate = candidates.next()) {
+			this.pending.add(candidate);
+			this.pendingCost += candidate < this.costs.length ? this.costs[candidate] : 0;
+		}
+		Collections.sort(this.pending, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(cost(b), cost(a));
+			}
+		});
+	}
+
+	private double cost(int candidate) {
+		return candidate < this.costs.length ? this.costs[candidate] : 0;
+	}
+
+	/**
+	 * Starts listening for workers on the loopback interface
+	 * 
+	 * @return the port workers should connect to
+	 */
+	public int start() throws IOException {
+		this.server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		Thread acceptor = new Thread("PartitionCoordinator") {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						final Socket socket = server.accept();
+						Thread handler = new Thread("PartitionCoordinator-" + socket.getPort()) {
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						};
+						handler.setDaemon(true);
+						handler.start();
+					}
+				} catch (IOException e) {
+					// server socket closed
+				}
+			}
+		};
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return this.server.getLocalPort();
+	}
+
+	/**
+	 * Starts worker processes with the current JVM and class path. Their
+	 * outputs are copied to System.err.
+	 * 
+	 * @param nbWorkers
+	 * @param threadsPerWorker
+	 * @param outputPrefix
+	 *            worker i will write its patterns to outputPrefix + i + "-"
+	 *            + [thread ID] + ".dat" - if null, workers only count patterns
+	 * @param jvmOptions
+	 *            for example "-Xmx2g"
+	 * @return worker processes - they close their output after
+	 *         awaitCompletion() returns, so wait for them before reading it
+	 */
+	public List<Process> launchWorkers(int nbWorkers, int threadsPerWorker, String outputPrefix,
+			String... jvmOptions) throws IOException {
+		if (this.server == null) {
+			throw new IllegalStateException("start() should be invoked before launchWorkers()");
+		}
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Process> processes = new ArrayList<Process>(nbWorkers);
+		for (int i = 0; i < nbWorkers; i++) {
+			List<String> command = new ArrayList<String>();
+			command.add(java);
+			Collections.addAll(command, jvmOptions);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(PartitionWorker.class.getName());
+			command.add(Integer.toString(this.server.getLocalPort()));
+			command.add(Integer.toString(threadsPerWorker));
+			if (outputPrefix != null) {
+				command.add(outputPrefix + i + "-");
+			}
+
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.redirectErrorStream(true);
+			Process process = builder.start();
+			process.getOutputStream().close();
+			copyInBackground(process.getInputStream(), System.err);
+			processes.add(process);
+		}
+		return processes;
+	}
+
+	private static void copyInBackground(final InputStream from, final OutputStream to) {
+		Thread copier = new Thread("PartitionWorkerOutput") {
+			@Override
+			public void run() {
+				byte[] buffer = new byte[4096];
+				try {
+					for (int read = from.read(buffer); read >= 0; read = from.read(buffer)) {
+						to.write(buffer, 0, read);
+					}
+				} catch (IOException e) {
+					// process terminated
+				}
+			}
+		};
+		copier.setDaemon(true);
+		copier.start();
+	}
+
+	/**
+	 * Blocks until all extensions' sub-trees have been mined, then stops
+	 * listening. If all workers fail, this waits for new workers.
+	 * 
+	 * @return total count of collected patterns
+	 */
+	public long awaitCompletion() throws InterruptedException {
+		synchronized (this) {
+			while (!this.pending.isEmpty() || this.outstandingChunks > 0) {
+				this.wait();
+			}
+		}
+		try {
+			this.server.close();
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+		return this.getCollected();
+	}
+
+	public synchronized long getCollected() {
+		return this.collected;
+	}
+
+	/**
+	 * @return counters reported by workers so far
+	 */
+	public synchronized Map<PLCMCounters, Long> getCounters() {
+		HashMap<PLCMCounters, Long> map = new HashMap<PLCMCounters, Long>();
+		PLCMCounters[] keys = PLCMCounters.values();
+		for (int i = 0; i < this.counters.length; i++) {
+			map.put(keys[i], this.counters[i]);
+		}
+		return map;
+	}
+
+	/**
+	 * Protocol, after the coordinator sent the job's description (input path,
+	 * minimum support, and root counters' fingerprint) : the worker sends its
+	 * previous chunk's report (collected patterns count, then PLCMCounters
+	 * count and values), the coordinator replies with the next chunk (items
+	 * count, whether the root pattern should be collected, then items). An
+	 * empty chunk ends the connection.
+	 */
+	private void serve(Socket socket) {
+		Chunk chunk = null;
+		synchronized (this) {
+			this.connectedWorkers++;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			out.writeUTF(this.inputPath);
+			out.writeInt(this.minSupport);
+			out.writeInt(this.nbFrequents);
+			out.writeInt(this.distinctTransactionsCount);
+			out.flush();
+
+			while (true) {
+				final long chunkPatterns = in.readLong();
+				if (chunkPatterns == WORKER_FAILURE) {
+					break;
+				}
+				long[] chunkCounters = new long[in.readInt()];
+				for (int i = 0; i < chunkCounters.length; i++) {
+					chunkCounters[i] = in.readLong();
+				}
+				if (chunk != null) {
+					this.completed(chunkPatterns, chunkCounters);
+				}
+
+				chunk = this.nextChunk();
+				if (chunk == null) {
+					out.writeInt(0);
+					out.flush();
+					break;
+				}
+				out.writeInt(chunk.items.length);
+				out.writeBoolean(chunk.withRoot);
+				for (int item : chunk.items) {
+					out.writeInt(item);
+				}
+				out.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace(System.err);
+			}
+			synchronized (this) {
+				this.connectedWorkers--;
+				if (chunk != null) {
+					this.giveBack(chunk);
+				}
+			}
+		}
+	}
+
+	private synchronized Chunk nextChunk() {
+		if (this.pending.isEmpty()) {
+			return null;
+		}
+
+		final double target = this.pendingCost / (2 * Math.max(1, this.connectedWorkers));
+		List<Integer> items = new ArrayList<Integer>();
+		double chunkCost = 0;
+		while (!this.pending.isEmpty() && (items.isEmpty() || chunkCost < target)) {
+			final int item = this.pending.removeFirst();
+			items.add(item);
+			chunkCost += cost(item);
+		}
+		this.pendingCost -= chunkCost;
+		this.outstandingChunks++;
+
+		int[] chunkItems = new int[items.size()];
+		for (int i = 0; i < chunkItems.length; i++) {
+			chunkItems[i] = items.get(i);
+		}
+		final boolean withRoot = this.rootHasPattern && !this.rootGiven;
+		this.rootGiven = true;
+		return new Chunk(chunkItems, withRoot);
+	}
+
+	private synchronized void completed(long chunkPatterns, long[] chunkCounters) {
+		this.collected += chunkPatterns;
+		for (int i = 0; i < chunkCounters.length && i < this.counters.length; i++) {
+			this.counters[i] += chunkCounters[i];
+		}
+		this.outstandingChunks--;
+		this.notifyAll();
+	}
+
+	private synchronized void giveBack(Chunk chunk) {
+		for (int i = chunk.items.length - 1; i >= 0; i--) {
+			this.pending.addFirst(chunk.items[i]);
+			this.pendingCost += cost(chunk.items[i]);
+		}
+		if (chunk.withRoot) {
+			this.rootGiven = false;
+		}
+		this.outstandingChunks--;
+		this.notifyAll();
+	}
+
+	private static final class Chunk {
+		final int[] items;
+		final boolean withRoot;
+
+		Chunk(int[] items, boolean withRoot) {
+			this.items = items;
+			this.withRoot = withRoot;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MaxSupportSelector;
+import fr.liglab.jlcm.internals.RootItemsSelector;
+import fr.liglab.jlcm.io.FileCollector;
+import fr.liglab.jlcm.io.MultiThreadedFileCollector;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.io.PatternsCollector;
+
+/**
+ * Mines chunks of an exploration given by a PartitionCoordinator, until the
+ * coordinator has no more chunk. The input file is loaded once, and each
+ * chunk is mined by a new PLCM instance restarted from the initial step.
+ */
+public final class PartitionWorker {
+
+	private final int port;
+	private final int nbThreads;
+	private final PatternsCollector collector;
+
+	/**
+	 * @param port
+	 *            coordinator's port on the local host
+	 * @param nbThreads
+	 *            mining threads
+	 * @param collector
+	 *            will receive all patterns mined by this worker - it is not
+	 *            closed by run()
+	 */
+	public PartitionWorker(int port, int nbThreads, PatternsCollector collector) {
+		this.port = port;
+		this.nbThreads = nbThreads;
+		this.collector = collector;
+	}
+
+	/**
+	 * @return how many chunks have been mined
+	 */
+	public int run() throws IOException {
+		Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), this.port);
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			final String path = in.readUTF();
+			final int minSupport = in.readInt();
+			final int nbFrequents = in.readInt();
+			final int distinctTransactionsCount = in.readInt();
+
+			ExplorationStep initState = new ExplorationStep(minSupport, path);
+			if (initState.counters.nbFrequents != nbFrequents
+					|| initState.counters.distinctTransactionsCount != distinctTransactionsCount) {
+				out.writeLong(PartitionCoordinator.WORKER_FAILURE);
+				out.flush();
+				throw new IOException("Input file " + path + " differs from the coordinator's one");
+			}
+
+			long chunkPatterns = 0;
+			long[] chunkCounters = new long[0];
+			int chunks = 0;
+
+			while (true) {
+				out.writeLong(chunkPatterns);
+				out.writeInt(chunkCounters.length);
+				for (long value : chunkCounters) {
+					out.writeLong(value);
+				}
+				out.flush();
+
+				final int nbItems = in.readInt();
+				if (nbItems == 0) {
+					return chunks;
+				}
+				final boolean withRoot = in.readBoolean();
+				int[] items = new int[nbItems];
+				for (int i = 0; i < nbItems; i++) {
+					items[i] = in.readInt();
+				}
+
+				ExplorationStep chunk = initState.restart(minSupport);
+				chunk.appendSelector(new RootItemsSelector(items));
+				if (!withRoot) {
+					// only the initial pattern has a 100% support
+					chunk.appendSelector(new MaxSupportSelector(initState.counters.transactionsCount));
+				}
+
+				CountingCollector counting = new CountingCollector(this.collector);
+				PLCM algo = new PLCM(counting, this.nbThreads);
+				algo.lcm(chunk);
+
+				chunkPatterns = counting.count.get();
+				Map<PLCMCounters, Long> counters = algo.getCounters();
+				chunkCounters = new long[PLCMCounters.values().length];
+				for (PLCMCounters key : PLCMCounters.values()) {
+					chunkCounters[key.ordinal()] = counters.get(key);
+				}
+				chunks++;
+			}
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static final class CountingCollector implements PatternsCollector {
+		private final PatternsCollector delegate;
+		final AtomicLong count = new AtomicLong();
+
+		CountingCollector(PatternsCollector delegate) {
+			this.delegate = delegate;
+		}
+
+		public void collect(ExplorationStep state) {
+			this.delegate.collect(state);
+			this.count.incrementAndGet();
+		}
+
+		public long close() {
+			return this.count.get();
+		}
+
+		public int getAveragePatternLength() {
+			return this.delegate.getAveragePatternLength();
+		}
+	}
+
+	/**
+	 * Usage : PartitionWorker PORT NB_THREADS [OUTPUT_PREFIX]
+	 * 
+	 * Patterns are written to OUTPUT_PREFIX[thread ID].dat, or only counted if
+	 * OUTPUT_PREFIX is omitted.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: PartitionWorker PORT NB_THREADS [OUTPUT_PREFIX]");
+			System.exit(1);
+		}
+		final int port = Integer.parseInt(args[0]);
+		final int nbThreads = Integer.parseInt(args[1]);
+
+		PatternsCollector collector;
+		if (args.length < 3) {
+			collector = new NullCollector();
+		} else if (nbThreads == 1) {
+			collector = new FileCollector(args[2] + "0.dat");
+		} else {
+			collector = new MultiThreadedFileCollector(args[2], nbThreads);
+		}
+
+		new PartitionWorker(port, nbThreads, collector).run();
+		collector.close();
+	}
+}
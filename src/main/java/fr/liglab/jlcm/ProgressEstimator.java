@@ -0,0 +1,314 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import fr.liglab.jlcm.internals.Counters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+/**
+ * Estimates the remaining time of a PLCM run.
+ * 
+ * The initial step's candidates are not equally expensive, so we estimate
+ * each candidate's sub-tree cost as its support count, multiplied by its
+ * distinct transactions count, multiplied by the expected count of smaller
+ * items in these transactions (a candidate's sub-tree only contains items
+ * having a smaller ID). This proxy only gives a shape : PLCM tells
+ * this estimator how much time threads spent in each sub-tree, and when a
+ * sub-tree is complete (none of its steps remains in threads' stacks). The
+ * time/cost ratio observed on the last completed candidates (which are the
+ * most similar to the remaining ones) then converts remaining costs into
+ * remaining time. Ratios' dispersion among these candidates gives the
+ * confidence band.
+ */
+public final class ProgressEstimator {
+
+	/**
+	 * How many completed candidates are used to learn the time/cost ratio
+	 */
+	private static final int WINDOW = 32;
+
+	private final ExplorationStep initState;
+	private final int nbThreads;
+	private final long start;
+
+	/**
+	 * cost proxy of each candidate of the initial step
+	 */
+	private final double[] costs;
+
+	/**
+	 * For each candidate of the initial step, how many threads' stacks contain
+	 * at least one step of its sub-tree - see Recorder
+	 */
+	private final AtomicIntegerArray holders;
+
+	/**
+	 * For each candidate of the initial step, nanoseconds spent by threads in
+	 * its sub-tree
+	 */
+	private final AtomicLongArray spent;
+
+	ProgressEstimator(ExplorationStep initState, int nbThreads) {
+		this.initState = initState;
+		this.nbThreads = nbThreads;
+		this.start = System.currentTimeMillis();
+
+		if (initState.dataset == null) {
+			this.costs = new double[0];
+		} else {
+			this.costs = getRootCosts(initState.counters, initState.getProgression().last);
+		}
+
+		this.holders = new AtomicIntegerArray(this.costs.length);
+		this.spent = new AtomicLongArray(this.costs.length);
+	}
+
+	/**
+	 * @param counters
+	 *            initial step's counters
+	 * @param last
+	 *            exclusive upper bound on the initial step's candidates
+	 * @return cost proxy of each candidate's sub-tree
+	 */
+	static double[] getRootCosts(Counters counters, int last) {
+		last = Math.min(last, counters.distinctTransactionsCounts.length);
+		final double[] costs = new double[last];
+		final double transactions = Math.max(1, counters.distinctTransactionsCount);
+		long smallerItemsOccurrences = 0;
+		for (int i = 0; i < last; i++) {
+			final int occurrences = counters.distinctTransactionsCounts[i];
+			costs[i] = ((double) counters.supportCounts[i]) * occurrences
+					* (1.0 + smallerItemsOccurrences / transactions);
+			smallerItemsOccurrences += occurrences;
+		}
+		return costs;
+	}
+
+	/**
+	 * @return the candidate of the initial step whose sub-tree contains step,
+	 *         or -1 for the initial step itself
+	 */
+	private int getRootCandidate(ExplorationStep step) {
+		final int candidate = step.rootExtension;
+		return (candidate < this.costs.length) ? candidate : -1;
+	}
+
+	/**
+	 * @return a recorder for a mining thread
+	 */
+	Recorder newRecorder() {
+		return new Recorder();
+	}
+
+	/**
+	 * Records a single thread's activity. Time is accumulated locally and
+	 * added to the shared counters when the thread moves to another sub-tree,
+	 * leaves it, or every FLUSH_NANOS. holders are only updated when the
+	 * thread's stack starts or stops containing a sub-tree.
+	 * 
+	 * Not thread-safe : it should only be used by its thread (or before the
+	 * thread starts).
+	 */
+	final class Recorder {
+		private static final long FLUSH_NANOS = 10000000;
+
+		/**
+		 * candidate -> count of its steps in the thread's stack
+		 */
+		private final TIntIntHashMap held = new TIntIntHashMap();
+		private int candidate = -1;
+		private long pending = 0;
+
+		void pushed(ExplorationStep step) {
+			final int candidate = getRootCandidate(step);
+			if (candidate >= 0 && this.held.adjustOrPutValue(candidate, 1, 1) == 1) {
+				holders.incrementAndGet(candidate);
+			}
+		}
+
+		void popped(ExplorationStep step, long nanos) {
+			this.spent(step, nanos);
+			final int candidate = getRootCandidate(step);
+			if (candidate >= 0 && this.held.adjustOrPutValue(candidate, -1, 0) == 0) {
+				this.held.remove(candidate);
+				this.flush();
+				holders.decrementAndGet(candidate);
+			}
+		}
+
+		void spent(ExplorationStep step, long nanos) {
+			final int candidate = getRootCandidate(step);
+			if (candidate != this.candidate || this.pending > FLUSH_NANOS) {
+				this.flush();
+				this.candidate = candidate;
+			}
+			this.pending += nanos;
+		}
+
+		void flush() {
+			if (this.candidate >= 0 && this.pending > 0) {
+				spent.addAndGet(this.candidate, this.pending);
+			}
+			this.pending = 0;
+		}
+	}
+
+	public Estimate estimate() {
+		int started = this.costs.length;
+		if (this.initState.dataset != null) {
+			started = Math.min(started, this.initState.getProgression().current);
+		}
+
+		double spentTotal = 0;
+		double startedCost = 0;
+		double notStartedCost = 0;
+		int[] window = new int[WINDOW];
+		int completed = 0;
+
+		for (int i = 0; i < this.costs.length; i++) {
+			spentTotal += this.spent.get(i);
+			if (i < started) {
+				startedCost += this.costs[i];
+				if (this.holders.get(i) == 0 && this.costs[i] > 0 && this.spent.get(i) > 0) {
+					window[completed % WINDOW] = i;
+					completed++;
+				}
+			} else {
+				notStartedCost += this.costs[i];
+			}
+		}
+
+		final long elapsed = System.currentTimeMillis() - this.start;
+
+		if (completed == 0) {
+			if (startedCost == 0) {
+				return new Estimate(elapsed, -1, -1, -1, spentTotal);
+			}
+			// started sub-trees may be almost complete : it only gives a lower
+			// bound
+			final double ratio = spentTotal / startedCost;
+			return new Estimate(elapsed, this.toMillis(ratio * notStartedCost), -1, -1, spentTotal);
+		}
+
+		final int windowSize = Math.min(completed, WINDOW);
+		double windowSpent = 0;
+		double windowCost = 0;
+		double[] ratios = new double[windowSize];
+		for (int j = 0; j < windowSize; j++) {
+			final int candidate = window[j];
+			windowSpent += this.spent.get(candidate);
+			windowCost += this.costs[candidate];
+			ratios[j] = this.spent.get(candidate) / this.costs[candidate];
+		}
+		Arrays.sort(ratios);
+
+		final double ratio = windowSpent / windowCost;
+		final double lowRatio = Math.min(ratio, ratios[(windowSize - 1) / 10]);
+		final double highRatio = Math.max(ratio, ratios[windowSize - 1 - (windowSize - 1) / 10]);
+
+		return new Estimate(elapsed, this.toMillis(this.remaining(lowRatio, started, notStartedCost)),
+				this.toMillis(this.remaining(ratio, started, notStartedCost)), this.toMillis(this.remaining(
+						highRatio, started, notStartedCost)), spentTotal);
+	}
+
+	/**
+	 * @return remaining threads' time, in nanoseconds
+	 */
+	private double remaining(double ratio, int started, double notStartedCost) {
+		double remaining = ratio * notStartedCost;
+		for (int i = 0; i < started; i++) {
+			if (this.holders.get(i) > 0) {
+				remaining += Math.max(0, ratio * this.costs[i] - this.spent.get(i));
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * @return wall-clock milliseconds, assuming all threads are busy
+	 */
+	private long toMillis(double threadsNanos) {
+		return (long) (threadsNanos / this.nbThreads / 1000000);
+	}
+
+	public final class Estimate {
+		public final long elapsedMillis;
+
+		/**
+		 * Estimated remaining time, -1 if it can't be estimated yet
+		 */
+		public final long remainingMillis;
+
+		/**
+		 * Remaining time's confidence band - -1 if unknown
+		 */
+		public final long lowRemainingMillis;
+		public final long highRemainingMillis;
+
+		/**
+		 * Estimated progression, in [0,1] - -1 if unknown
+		 */
+		public final double progress;
+
+		Estimate(long elapsedMillis, long lowRemainingMillis, long remainingMillis, long highRemainingMillis,
+				double spentNanos) {
+			this.elapsedMillis = elapsedMillis;
+			this.lowRemainingMillis = lowRemainingMillis;
+			this.remainingMillis = remainingMillis;
+			this.highRemainingMillis = highRemainingMillis;
+
+			if (remainingMillis < 0) {
+				this.progress = -1;
+			} else {
+				final double spentMillis = spentNanos / nbThreads / 1000000;
+				if (spentMillis + remainingMillis == 0) {
+					this.progress = 1;
+				} else {
+					this.progress = spentMillis / (spentMillis + remainingMillis);
+				}
+			}
+		}
+
+		private String format(long millis) {
+			if (millis < 0) {
+				return "?";
+			}
+			final long seconds = millis / 1000;
+			return String.format("%dh%02dm%02ds", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+		}
+
+		@Override
+		public String toString() {
+			if (this.progress < 0) {
+				return "ETA unknown yet, lower bound " + this.format(this.lowRemainingMillis);
+			}
+			return String.format("%.1f%% - ETA %s [%s, %s]", 100 * this.progress, this.format(this.remainingMillis),
+					this.format(this.lowRemainingMillis), this.format(this.highRemainingMillis));
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import fr.liglab.jlcm.internals.Counters.ExtensionsIterator;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MaxSupportSelector;
+import fr.liglab.jlcm.internals.RootItemsSelector;
+import fr.liglab.jlcm.internals.TransactionReader;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Splits an exploration into partitions that can be mined on different nodes.
+ * 
+ * A partition is a group of the initial step's extensions. Its file contains
+ * the union of these extensions' supports, in the initial step's internal
+ * item IDs, so its size is proportional to the partition rather than to the
+ * whole dataset. load() restarts the exploration from such a file, restricted
+ * to the partition's extensions : mining all partitions of an initial step
+ * yields the same patterns as mining the initial step itself, and the
+ * initial pattern is only collected from the first partition.
+ * 
+ * Files are written in a binary format, by DataOutputStream : a header (magic
+ * number, version, minimum support, whole dataset's weight, whether the
+ * initial pattern should be collected, reverse renaming, initial pattern,
+ * partition's extensions) followed by transactions as (weight, length,
+ * items...), ended by a 0 weight.
+ */
+public final class ProjectedPartitions {
+
+	private static final int MAGIC = 0x4A4C4350;
+	private static final int VERSION = 1;
+
+	private ProjectedPartitions() {
+	}
+
+	/**
+	 * Groups the initial step's extensions in nbPartitions groups of similar
+	 * estimated costs (see ProgressEstimator), by assigning them by decreasing
+	 * cost to the cheapest group so far
+	 * 
+	 * @return extensions of each group, as internal item IDs
+	 */
+	public static int[][] balance(ExplorationStep initState, int nbPartitions) {
+		ExtensionsIterator iterator = initState.counters.getExtensionsIterator();
+		final double[] costs = ProgressEstimator.getRootCosts(initState.counters, iterator.last());
+
+		List<Integer> candidates = new ArrayList<Integer>();
+		for (int candidate = iterator.next(); candidate >= 0; candidate = iterator.next()) {
+			candidates.add(candidate);
+		}
+		Collections.sort(candidates, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(costs[b], costs[a]);
+			}
+		});
+
+		TIntArrayList[] groups = new TIntArrayList[nbPartitions];
+		double[] groupsCosts = new double[nbPartitions];
+		for (int i = 0; i < nbPartitions; i++) {
+			groups[i] = new TIntArrayList();
+		}
+		for (int candidate : candidates) {
+			int cheapest = 0;
+			for (int i = 1; i < nbPartitions; i++) {
+				if (groupsCosts[i] < groupsCosts[cheapest]) {
+					cheapest = i;
+				}
+			}
+			groups[cheapest].add(candidate);
+			groupsCosts[cheapest] += costs[candidate];
+		}
+
+		int[][] result = new int[nbPartitions][];
+		for (int i = 0; i < nbPartitions; i++) {
+			result[i] = groups[i].toArray();
+			Arrays.sort(result[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes one file per group
+	 * 
+	 * @param initState
+	 *            an initial ExplorationStep, which will not be consumed
+	 * @param groups
+	 *            disjoint groups of the initial step's extensions (as internal
+	 *            item IDs) - like balance()'s output
+	 * @param prefix
+	 *            group i is written to prefix + i + ".bin"
+	 * @return files' paths
+	 */
+	public static String[] export(ExplorationStep initState, int[][] groups, String prefix) throws IOException {
+		if (initState.parent != null) {
+			throw new IllegalArgumentException("Partitions can only be exported from an initial ExplorationStep");
+		}
+		String[] paths = new String[groups.length];
+		for (int i = 0; i < groups.length; i++) {
+			paths[i] = prefix + i + ".bin";
+			exportGroup(initState, groups[i], i == 0, paths[i]);
+		}
+		return paths;
+	}
+
+	private static void exportGroup(ExplorationStep initState, int[] group, boolean withRoot, String path)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(initState.counters.minSupport);
+			out.writeInt(initState.counters.transactionsCount);
+			out.writeBoolean(withRoot);
+			writeArray(out, initState.counters.getReverseRenaming());
+			writeArray(out, initState.pattern);
+			writeArray(out, group);
+
+			BitSet inGroup = new BitSet();
+			for (int item : group) {
+				inGroup.set(item);
+			}
+
+			int[] buffer = new int[64];
+			for (int item : group) {
+				Iterator<TransactionReader> support = initState.dataset.getSupport(item).iterator();
+				while (support.hasNext()) {
+					TransactionReader transaction = support.next();
+					final int weight = transaction.getTransactionSupport();
+					int length = 0;
+					boolean alreadyWritten = false;
+					while (transaction.hasNext()) {
+						final int other = transaction.next();
+						if (other < item && inGroup.get(other)) {
+							// written with the support of a smaller item
+							alreadyWritten = true;
+						}
+						if (length == buffer.length) {
+							buffer = Arrays.copyOf(buffer, 2 * length);
+						}
+						buffer[length++] = other;
+					}
+
+					if (weight > 0 && !alreadyWritten) {
+						Arrays.sort(buffer, 0, length);
+						out.writeInt(weight);
+						out.writeInt(length);
+						for (int i = 0; i < length; i++) {
+							out.writeInt(buffer[i]);
+						}
+					}
+				}
+			}
+			out.writeInt(0);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeArray(DataOutputStream out, int[] array) throws IOException {
+		out.writeInt(array.length);
+		for (int value : array) {
+			out.writeInt(value);
+		}
+	}
+
+	private static int[] readArray(DataInputStream in) throws IOException {
+		int[] array = new int[in.readInt()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = in.readInt();
+		}
+		return array;
+	}
+
+	/**
+	 * @return an initial ExplorationStep restricted to the partition's
+	 *         extensions, ready to be given to PLCM.lcm()
+	 */
+	public static ExplorationStep load(String path) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(path + " is not a jLCM partition");
+			}
+			final int minSupport = in.readInt();
+			final int transactionsCount = in.readInt();
+			final boolean withRoot = in.readBoolean();
+			final int[] reverseRenaming = readArray(in);
+			final int[] closure = readArray(in);
+			final int[] group = readArray(in);
+
+			TIntArrayList transactions = new TIntArrayList();
+			for (int weight = in.readInt(); weight != 0; weight = in.readInt()) {
+				final int length = in.readInt();
+				transactions.add(weight);
+				transactions.add(length);
+				for (int i = 0; i < length; i++) {
+					transactions.add(in.readInt());
+				}
+			}
+
+			ExplorationStep initState = new ExplorationStep(minSupport, new PartitionTransactions(
+					transactions.toArray()), transactionsCount, closure, reverseRenaming);
+			initState.appendSelector(new RootItemsSelector(group));
+			if (!withRoot) {
+				// only the initial pattern has a 100% support
+				initState.appendSelector(new MaxSupportSelector(transactionsCount));
+			}
+			return initState;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Transactions stored as (weight, length, items...) in a single array
+	 */
+	private static final class PartitionTransactions implements Iterable<TransactionReader> {
+		private final int[] concatenated;
+
+		PartitionTransactions(int[] concatenated) {
+			this.concatenated = concatenated;
+		}
+
+		public Iterator<TransactionReader> iterator() {
+			return new Iterator<TransactionReader>() {
+				private int position = 0;
+				private final Reader reader = new Reader();
+
+				public boolean hasNext() {
+					return this.position < concatenated.length;
+				}
+
+				public TransactionReader next() {
+					this.reader.weight = concatenated[this.position];
+					this.reader.position = this.position + 2;
+					this.position += 2 + concatenated[this.position + 1];
+					this.reader.end = this.position;
+					return this.reader;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		private final class Reader implements TransactionReader {
+			int weight;
+			int position;
+			int end;
+
+			public int getTransactionSupport() {
+				return this.weight;
+			}
+
+			public int next() {
+				return concatenated[this.position++];
+			}
+
+			public boolean hasNext() {
+				return this.position < this.end;
+			}
+		}
+	}
+}
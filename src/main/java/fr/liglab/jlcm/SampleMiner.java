@@ -0,0 +1,379 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.liglab.jlcm.internals.Counters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.PatternsWriter;
+
+/**
+ * Approximate mining, on a uniform sample of the dataset's transactions.
+ *
+ * The sample is drawn at instantiation by reservoir sampling, in a single
+ * pass over the dataset - a transaction of weight w counts as w transactions.
+ * By Hoeffding's inequality, a pattern's frequency in a sample of n
+ * transactions differs from its frequency in the dataset by more than
+ * epsilon = sqrt(ln(2/(1-confidence)) / 2n) with a probability lower than
+ * 1-confidence. So the sample is mined at a threshold lowered by epsilon, and
+ * each pattern's support is estimated along with its confidence interval.
+ * Note that this bound holds for each pattern separately, not for the whole
+ * result at once.
+ *
+ * Optionally, candidates are verified against the whole dataset : it is loaded
+ * once in an initial ExplorationStep, and each candidate's exact support is
+ * counted by browsing the transactions containing its least frequent item.
+ * Candidates are verified in parallel. Verified patterns were closed in the
+ * sample, so some of them may not be closed in the dataset.
+ */
+public final class SampleMiner {
+
+	/**
+	 * A pattern and its estimated support
+	 */
+	public static final class Estimate {
+		/**
+		 * in original item IDs, sorted in increasing order
+		 */
+		public final int[] pattern;
+		public final int support;
+		public final int lowerBound;
+		public final int upperBound;
+
+		/**
+		 * true if support has been counted on the whole dataset - then
+		 * bounds are equal to support
+		 */
+		public final boolean exact;
+
+		Estimate(int[] pattern, int support, int lowerBound, int upperBound, boolean exact) {
+			this.pattern = pattern;
+			this.support = support;
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+			this.exact = exact;
+		}
+
+		@Override
+		public String toString() {
+			return Arrays.toString(this.pattern) + " " + this.support + " [" + this.lowerBound + ", "
+					+ this.upperBound + "]";
+		}
+	}
+
+	private final Iterable<TransactionReader> source;
+	private final List<int[]> sample;
+	private final int transactionsCount;
+	private final int nbThreads;
+
+	/**
+	 * @param source
+	 *            iterated once now, and once again by each verified mine()
+	 * @param sampleSize
+	 *            maximum count of sampled transactions
+	 * @param seed
+	 * @param nbThreads
+	 */
+	public SampleMiner(Iterable<TransactionReader> source, int sampleSize, long seed, int nbThreads) {
+		if (sampleSize < 1) {
+			throw new IllegalArgumentException("sampleSize has to be > 0, given " + sampleSize);
+		}
+		if (nbThreads < 1) {
+			throw new IllegalArgumentException("nbThreads has to be > 0, given " + nbThreads);
+		}
+		this.source = source;
+		this.nbThreads = nbThreads;
+		this.sample = new ArrayList<int[]>(sampleSize);
+
+		Random random = new Random(seed);
+		int[] buffer = new int[64];
+		long seen = 0;
+
+		for (TransactionReader transaction : source) {
+			int length = 0;
+			while (transaction.hasNext()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, 2 * length);
+				}
+				buffer[length++] = transaction.next();
+			}
+
+			int[] items = null;
+			for (int copy = transaction.getTransactionSupport(); copy > 0; copy--) {
+				seen++;
+				int replaced = this.sample.size();
+				if (replaced == sampleSize) {
+					replaced = (int) (random.nextDouble() * seen);
+				}
+				if (replaced < sampleSize) {
+					if (items == null) {
+						items = Arrays.copyOf(buffer, length);
+					}
+					if (replaced == this.sample.size()) {
+						this.sample.add(items);
+					} else {
+						this.sample.set(replaced, items);
+					}
+				}
+			}
+		}
+
+		if (seen > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Transactions' weights sum exceeds " + Integer.MAX_VALUE);
+		}
+		this.transactionsCount = (int) seen;
+	}
+
+	/**
+	 * @return sum of the dataset's transactions' weights
+	 */
+	public int getTransactionsCount() {
+		return this.transactionsCount;
+	}
+
+	public int getSampleSize() {
+		return this.sample.size();
+	}
+
+	/**
+	 * @param confidence
+	 *            in ]0,1[
+	 * @return maximum difference, with the given confidence, between a
+	 *         pattern's frequency in the sample and in the dataset - 0 if the
+	 *         sample contains the whole dataset
+	 */
+	public double getMargin(double confidence) {
+		if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("confidence should be in ]0,1[, given " + confidence);
+		}
+		if (this.sample.size() >= this.transactionsCount) {
+			return 0;
+		}
+		return Math.sqrt(Math.log(2 / (1 - confidence)) / (2.0 * this.sample.size()));
+	}
+
+	/**
+	 * @param minFrequency
+	 *            relative minimum support, in ]0,1]
+	 * @param confidence
+	 *            in ]0,1[, probability that each pattern's support lies in its
+	 *            estimated interval
+	 * @param verify
+	 *            if true, supports are counted on the whole dataset and only
+	 *            frequent patterns are returned
+	 * @return estimated patterns, not sorted
+	 */
+	public List<Estimate> mine(double minFrequency, double confidence, boolean verify) {
+		if (minFrequency <= 0 || minFrequency > 1) {
+			throw new IllegalArgumentException("minFrequency should be in ]0,1], given " + minFrequency);
+		}
+
+		final double margin = this.getMargin(confidence);
+		final int n = this.sample.size();
+		final int sampleSupport = Math.max(1, (int) Math.ceil((minFrequency - margin) * n));
+
+		ListWriter candidates = new ListWriter();
+		if (n > 0) {
+			new PLCM(candidates, this.nbThreads).lcm(new ExplorationStep(sampleSupport, new SampleIterable()));
+		}
+
+		if (verify) {
+			final int minSupport = Math.max(1, (int) Math.ceil(minFrequency * this.transactionsCount));
+			return this.verify(candidates.patterns, minSupport);
+		}
+
+		List<Estimate> estimates = new ArrayList<Estimate>(candidates.patterns.size());
+		for (int i = 0; i < candidates.patterns.size(); i++) {
+			final double frequency = ((double) candidates.supports.get(i)) / n;
+			final int lower = (int) Math.max(0, Math.floor((frequency - margin) * this.transactionsCount));
+			final int upper = (int) Math.min(this.transactionsCount,
+					Math.ceil((frequency + margin) * this.transactionsCount));
+			estimates.add(new Estimate(candidates.patterns.get(i),
+					(int) Math.round(frequency * this.transactionsCount), lower, upper, margin == 0));
+		}
+		return estimates;
+	}
+
+	private List<Estimate> verify(final List<int[]> patterns, final int minSupport) {
+
+		final ExplorationStep full = new ExplorationStep(minSupport, this.source);
+		final List<Estimate> verified = Collections.synchronizedList(new ArrayList<Estimate>());
+		final AtomicInteger next = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[this.nbThreads];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread("SampleMiner verification " + i) {
+				@Override
+				public void run() {
+					for (int j = next.getAndIncrement(); j < patterns.size(); j = next.getAndIncrement()) {
+						final int[] pattern = patterns.get(j);
+						final int support = countSupport(full, pattern);
+						if (support >= minSupport) {
+							verified.add(new Estimate(pattern, support, support, support, true));
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		return new ArrayList<Estimate>(verified);
+	}
+
+	/**
+	 * @return pattern's support in the initial state's dataset, or 0 if it
+	 *         contains an infrequent item
+	 */
+	private static int countSupport(ExplorationStep initState, int[] pattern) {
+		final Counters counters = initState.counters;
+		final int[] renaming = counters.getRenaming();
+
+		int[] required = new int[pattern.length];
+		int nbRequired = 0;
+		int rarest = -1;
+
+		for (int item : pattern) {
+			if (contains(counters.closure, item)) {
+				continue;
+			}
+			if (item >= renaming.length || renaming[item] < 0) {
+				return 0;
+			}
+			final int renamed = renaming[item];
+			required[nbRequired++] = renamed;
+			if (rarest < 0 || counters.supportCounts[renamed] < counters.supportCounts[rarest]) {
+				rarest = renamed;
+			}
+		}
+
+		if (rarest < 0) {
+			return counters.transactionsCount;
+		}
+
+		required = Arrays.copyOf(required, nbRequired);
+		Arrays.sort(required);
+
+		int support = 0;
+		for (TransactionReader transaction : initState.dataset.getSupport(rarest)) {
+			int found = 0;
+			while (transaction.hasNext()) {
+				if (Arrays.binarySearch(required, transaction.next()) >= 0) {
+					found++;
+				}
+			}
+			if (found == nbRequired) {
+				support += transaction.getTransactionSupport();
+			}
+		}
+		return support;
+	}
+
+	private static boolean contains(int[] items, int item) {
+		for (int i : items) {
+			if (i == item) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private final class SampleIterable implements Iterable<TransactionReader> {
+		public Iterator<TransactionReader> iterator() {
+			final Iterator<int[]> transactions = sample.iterator();
+			return new Iterator<TransactionReader>() {
+				public boolean hasNext() {
+					return transactions.hasNext();
+				}
+
+				public TransactionReader next() {
+					return new SampledTransaction(transactions.next());
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	private static final class SampledTransaction implements TransactionReader {
+		private final int[] items;
+		private int position = 0;
+
+		SampledTransaction(int[] items) {
+			this.items = items;
+		}
+
+		public int getTransactionSupport() {
+			return 1;
+		}
+
+		public int next() {
+			return this.items[this.position++];
+		}
+
+		public boolean hasNext() {
+			return this.position < this.items.length;
+		}
+	}
+
+	private static final class ListWriter extends PatternsWriter {
+		final List<int[]> patterns = new ArrayList<int[]>();
+		final List<Integer> supports = new ArrayList<Integer>();
+
+		@Override
+		public synchronized void collect(int support, int[] pattern, int length) {
+			final int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			this.patterns.add(sorted);
+			this.supports.add(support);
+		}
+
+		public synchronized long close() {
+			return this.patterns.size();
+		}
+
+		public synchronized int getAveragePatternLength() {
+			long sum = 0;
+			for (int[] pattern : this.patterns) {
+				sum += pattern.length;
+			}
+			return this.patterns.isEmpty() ? 0 : (int) (sum / this.patterns.size());
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.PatternsCollector;
+import fr.liglab.jlcm.io.PatternsWriter;
+
+/**
+ * Mines closed frequent itemsets over the last windowSize transactions of a
+ * stream.
+ *
+ * Transactions are pushed one by one with add(), which returns true every
+ * slideSize transactions : that's when mine() should be called. The window is
+ * kept in a circular buffer, along with the count of each distinct
+ * transaction in the window, which is updated when a transaction is added or
+ * evicted.
+ *
+ * Closed itemsets of the window are maintained by an IncrementalMiner, down to
+ * a storeSupport lower than minSupport. At each slide, evicted transactions
+ * are removed from it and added ones are appended, so a slide only reads the
+ * slideSize transactions which changed. Each slide may raise the store
+ * support a little : once it gets above minSupport, the whole window is mined
+ * again, at storeSupport. The lower storeSupport, the less often this happens, but
+ * the more itemsets are maintained - see getFullMinesCount().
+ *
+ * If storeSupport equals minSupport, or if the collector is not a
+ * PatternsWriter, each slide is a complete PLCM run over the window's
+ * distinct transactions, weighted.
+ *
+ * All slides' patterns go to the same collector : register a SlideListener
+ * to know which slide they belong to.
+ */
+public final class SlidingWindowMiner {
+
+	/**
+	 * Notified by the thread calling mine(), around each slide's patterns
+	 */
+	public interface SlideListener {
+
+		/**
+		 * Invoked before any pattern of this slide is collected
+		 * 
+		 * @param slide
+		 *            slide number, starting at 1
+		 * @param windowCount
+		 *            how many transactions are mined
+		 */
+		public void slideStarted(long slide, int windowCount);
+
+		/**
+		 * Invoked once all patterns of this slide have been collected
+		 */
+		public void slideMined(long slide);
+	}
+
+	private final int windowSize;
+	private final int slideSize;
+	private final int minSupport;
+	private final int storeSupport;
+	private final int nbThreads;
+
+	/**
+	 * circular buffer - next transaction will be stored at position
+	 */
+	private final TIntArrayList[] window;
+
+	/**
+	 * distinct transactions of the window => their count
+	 */
+	private final Map<TIntArrayList, int[]> counts = new LinkedHashMap<TIntArrayList, int[]>();
+
+	/**
+	 * closed itemsets of the window at the last slide, null if the window
+	 * should be mined from scratch at the next one
+	 */
+	private IncrementalMiner store = null;
+
+	/**
+	 * distinct transactions added to/evicted from the window since the last
+	 * slide => their count, only filled while there's a store
+	 */
+	private final Map<TIntArrayList, int[]> added = new LinkedHashMap<TIntArrayList, int[]>();
+	private final Map<TIntArrayList, int[]> evicted = new LinkedHashMap<TIntArrayList, int[]>();
+	private int evictedCount = 0;
+
+	private int position = 0;
+	private int filled = 0;
+	private int sinceLastSlide = 0;
+	private long slidesCount = 0;
+	private long fullMinesCount = 0;
+
+	private int[] buffer = new int[64];
+
+	private SlideListener listener = null;
+
+	/**
+	 * Closed itemsets are maintained down to 3/4 of minSupport
+	 *
+	 * @param windowSize
+	 *            how many transactions are mined at each slide
+	 * @param slideSize
+	 *            how many transactions are added between two slides
+	 * @param minSupport
+	 *            absolute minimum support, in the window
+	 * @param nbThreads
+	 */
+	public SlidingWindowMiner(int windowSize, int slideSize, int minSupport, int nbThreads) {
+		this(windowSize, slideSize, minSupport, minSupport - minSupport / 4, nbThreads);
+	}
+
+	/**
+	 * @param windowSize
+	 *            how many transactions are mined at each slide
+	 * @param slideSize
+	 *            how many transactions are added between two slides
+	 * @param minSupport
+	 *            absolute minimum support, in the window
+	 * @param storeSupport
+	 *            absolute minimum support of maintained closed itemsets, at
+	 *            most minSupport
+	 * @param nbThreads
+	 */
+	public SlidingWindowMiner(int windowSize, int slideSize, int minSupport, int storeSupport, int nbThreads) {
+		if (windowSize < 1 || slideSize < 1 || slideSize > windowSize) {
+			throw new IllegalArgumentException("Invalid window: " + windowSize + " transactions, sliding by "
+					+ slideSize);
+		}
+		if (minSupport < 1) {
+			throw new IllegalArgumentException("minSupport has to be > 0, given " + minSupport);
+		}
+		if (storeSupport < 1 || storeSupport > minSupport) {
+			throw new IllegalArgumentException("storeSupport has to be in [1, minSupport], given " + storeSupport);
+		}
+		if (nbThreads < 1) {
+			throw new IllegalArgumentException("nbThreads has to be > 0, given " + nbThreads);
+		}
+		this.windowSize = windowSize;
+		this.slideSize = slideSize;
+		this.minSupport = minSupport;
+		this.storeSupport = storeSupport;
+		this.nbThreads = nbThreads;
+		this.window = new TIntArrayList[windowSize];
+	}
+
+	/**
+	 * @param listener
+	 *            will be notified at each slide, may be null
+	 */
+	public void setListener(SlideListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Copies the transaction in the window, evicting the oldest one if the
+	 * window is full. Transaction's support is ignored : each added
+	 * transaction counts for 1.
+	 *
+	 * @return true if slideSize transactions have been added since the last
+	 *         slide, ie. it's time to call mine()
+	 */
+	public boolean add(TransactionReader transaction) {
+		int length = 0;
+		while (transaction.hasNext()) {
+			if (length == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, 2 * length);
+			}
+			this.buffer[length++] = transaction.next();
+		}
+
+		final int[] copy = Arrays.copyOf(this.buffer, length);
+		Arrays.sort(copy);
+		final TIntArrayList added = TIntArrayList.wrap(copy);
+
+		final TIntArrayList evicted = this.window[this.position];
+		if (evicted != null) {
+			int[] count = this.counts.get(evicted);
+			if (--count[0] == 0) {
+				this.counts.remove(evicted);
+			}
+			if (this.store != null) {
+				if (this.sinceLastSlide >= this.windowSize) {
+					// evicted has been added since the last slide, the store
+					// doesn't know it
+					this.dropStore();
+				} else {
+					increment(this.evicted, evicted);
+					this.evictedCount++;
+				}
+			}
+		}
+		increment(this.counts, added);
+		if (this.store != null) {
+			increment(this.added, added);
+		}
+
+		this.window[this.position] = added;
+		this.position = (this.position + 1) % this.windowSize;
+		this.filled = Math.min(this.filled + 1, this.windowSize);
+		this.sinceLastSlide++;
+
+		return this.sinceLastSlide >= this.slideSize;
+	}
+
+	private static void increment(Map<TIntArrayList, int[]> counts, TIntArrayList transaction) {
+		int[] count = counts.get(transaction);
+		if (count == null) {
+			counts.put(transaction, new int[] { 1 });
+		} else {
+			count[0]++;
+		}
+	}
+
+	private void dropStore() {
+		this.store = null;
+		this.added.clear();
+		this.evicted.clear();
+		this.evictedCount = 0;
+	}
+
+	/**
+	 * Mines the current window. Collector is not closed.
+	 */
+	public void mine(PatternsCollector collector) {
+		this.sinceLastSlide = 0;
+		this.slidesCount++;
+		if (this.listener != null) {
+			this.listener.slideStarted(this.slidesCount, this.filled);
+		}
+		if (this.filled > 0) {
+			if (this.storeSupport < this.minSupport && collector instanceof PatternsWriter) {
+				this.updateStore();
+				this.store.collect((PatternsWriter) collector, this.minSupport);
+			} else {
+				this.dropStore();
+				ExplorationStep initState = new ExplorationStep(this.minSupport, weighted(this.counts));
+				new PLCM(collector, this.nbThreads).lcm(initState);
+				this.fullMinesCount++;
+			}
+		}
+		if (this.listener != null) {
+			this.listener.slideMined(this.slidesCount);
+		}
+	}
+
+	/**
+	 * Brings the store up to date with the current window, mining it from
+	 * scratch if needed
+	 */
+	private void updateStore() {
+		if (this.store != null && this.evictedCount < this.store.getTransactionsCount()) {
+			this.store.slide(weighted(this.evicted), weighted(this.added));
+		} else {
+			this.store = null;
+		}
+		this.added.clear();
+		this.evicted.clear();
+		this.evictedCount = 0;
+
+		if (this.store == null || this.store.getStoreSupport() > this.minSupport) {
+			this.store = new IncrementalMiner(this.nbThreads);
+			this.store.mine(weighted(this.counts), this.storeSupport);
+			this.fullMinesCount++;
+		}
+	}
+
+	/**
+	 * Adds all transactions from the stream, mining the window after each
+	 * slide. The last transactions are ignored if they don't complete a
+	 * slide. Collector is not closed.
+	 *
+	 * @return how many slides have been mined
+	 */
+	public long process(Iterator<TransactionReader> stream, PatternsCollector collector) {
+		long slides = 0;
+		while (stream.hasNext()) {
+			if (this.add(stream.next())) {
+				this.mine(collector);
+				slides++;
+			}
+		}
+		return slides;
+	}
+
+	/**
+	 * @return how many transactions are currently in the window
+	 */
+	public int getWindowCount() {
+		return this.filled;
+	}
+
+	/**
+	 * @return how many times mine() has been called
+	 */
+	public long getSlidesCount() {
+		return this.slidesCount;
+	}
+
+	/**
+	 * @return how many slides have been mined from scratch, instead of
+	 *         updating closed itemsets of the previous slide
+	 */
+	public long getFullMinesCount() {
+		return this.fullMinesCount;
+	}
+
+	/**
+	 * @return distinct transactions, weighted by their count
+	 */
+	private static Iterable<TransactionReader> weighted(final Map<TIntArrayList, int[]> counts) {
+		return new Iterable<TransactionReader>() {
+			public Iterator<TransactionReader> iterator() {
+				final Iterator<Entry<TIntArrayList, int[]>> entries = counts.entrySet().iterator();
+				return new Iterator<TransactionReader>() {
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					public TransactionReader next() {
+						Entry<TIntArrayList, int[]> entry = entries.next();
+						return new WeightedTransaction(entry.getKey(), entry.getValue()[0]);
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	private static final class WeightedTransaction implements TransactionReader {
+		private final TIntArrayList items;
+		private final int support;
+		private int position = 0;
+
+		WeightedTransaction(TIntArrayList items, int support) {
+			this.items = items;
+			this.support = support;
+		}
+
+		public int getTransactionSupport() {
+			return this.support;
+		}
+
+		public int next() {
+			return this.items.getQuick(this.position++);
+		}
+
+		public boolean hasNext() {
+			return this.position < this.items.size();
+		}
+	}
+}
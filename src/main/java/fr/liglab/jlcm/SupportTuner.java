@@ -0,0 +1,292 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.RootItemsSelector;
+import fr.liglab.jlcm.io.PatternsCollector;
+import fr.liglab.jlcm.io.PatternsWriter;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Chooses a minimum support for a PLCM run, in order to get close to a target
+ * pattern count (or output size).
+ *
+ * Output size is estimated by fully mining a sample of the initial step's
+ * extensions, and extrapolating. Sampled extensions are evenly spread among
+ * candidates, as the exploration cost usually depends on their rank.
+ *
+ * All probes are done on the dataset given at instantiation, which should be
+ * loaded with the lowest minimum support you may accept.
+ */
+public final class SupportTuner {
+
+	private final ExplorationStep initState;
+	private final int nbThreads;
+	private int sampleSize = 32;
+
+	private final TIntObjectHashMap<OutputEstimate> estimates = new TIntObjectHashMap<OutputEstimate>();
+
+	/**
+	 * @param initState
+	 *            an initial ExplorationStep, which will not be consumed
+	 * @param nbThreads
+	 *            how many threads should be used when probing
+	 */
+	public SupportTuner(ExplorationStep initState, int nbThreads) {
+		if (initState.parent != null) {
+			throw new IllegalArgumentException("SupportTuner needs an initial ExplorationStep");
+		}
+		this.initState = initState;
+		this.nbThreads = nbThreads;
+	}
+
+	/**
+	 * @param n
+	 *            how many root extensions are mined for each estimation
+	 *            (default: 32)
+	 */
+	public void setSampleSize(int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException("sample size has to be > 0, given " + n);
+		}
+		this.sampleSize = n;
+		this.estimates.clear();
+	}
+
+	/**
+	 * Estimates the output of a mining run at the given minimum support, by
+	 * mining a sample of the root's sub-trees.
+	 */
+	public OutputEstimate estimate(int minimumSupport) {
+		OutputEstimate cached = this.estimates.get(minimumSupport);
+		if (cached != null) {
+			return cached;
+		}
+
+		final int[] supportCounts = this.initState.counters.supportCounts;
+		TIntArrayList candidates = new TIntArrayList();
+		for (int i = 0; i <= this.initState.counters.getMaxFrequent(); i++) {
+			if (supportCounts[i] >= minimumSupport) {
+				candidates.add(i);
+			}
+		}
+
+		int[] sample;
+		double weight;
+
+		if (candidates.size() <= this.sampleSize) {
+			sample = candidates.toArray();
+			weight = 1.0;
+		} else {
+			sample = new int[this.sampleSize];
+			final double step = ((double) candidates.size()) / this.sampleSize;
+			for (int j = 0; j < this.sampleSize; j++) {
+				sample[j] = candidates.get((int) (j * step + step / 2));
+			}
+			weight = step;
+		}
+
+		ExplorationStep probe = this.initState.restart(minimumSupport);
+		probe.appendSelector(new RootItemsSelector(sample));
+		OutputSizeCounter counter = new OutputSizeCounter();
+		PLCM algo = new PLCM(counter, this.nbThreads);
+		algo.lcm(probe);
+
+		long rootPatterns = 0;
+		long rootBytes = 0;
+		if (this.initState.pattern.length > 0) {
+			rootPatterns = 1;
+			rootBytes = OutputSizeCounter.lineLength(this.initState.counters.transactionsCount,
+					this.initState.pattern, this.initState.pattern.length);
+		}
+
+		long patterns = rootPatterns + Math.round((counter.patterns.get() - rootPatterns) * weight);
+		long bytes = rootBytes + Math.round((counter.bytes.get() - rootBytes) * weight);
+
+		OutputEstimate estimate = new OutputEstimate(minimumSupport, patterns, bytes, sample.length,
+				candidates.size());
+		this.estimates.put(minimumSupport, estimate);
+		return estimate;
+	}
+
+	/**
+	 * @return the lowest minimum support which is estimated to output at most
+	 *         targetPatterns patterns
+	 */
+	public int tuneForPatterns(long targetPatterns) {
+		return this.tune(targetPatterns, false);
+	}
+
+	/**
+	 * @return the lowest minimum support which is estimated to output at most
+	 *         targetBytes bytes, when written by a FileCollector
+	 */
+	public int tuneForBytes(long targetBytes) {
+		return this.tune(targetBytes, true);
+	}
+
+	private int tune(long target, boolean inBytes) {
+		int low = this.initState.counters.minSupport;
+
+		if (estimatedValue(low, inBytes) <= target) {
+			return low;
+		}
+
+		int high = low;
+		final int[] supportCounts = this.initState.counters.supportCounts;
+		for (int i = 0; i <= this.initState.counters.getMaxFrequent(); i++) {
+			high = Math.max(high, supportCounts[i]);
+		}
+		high++; // above any item's support, only the root's closure remains
+
+		// invariant: estimate(low) > target, estimate(high) <= target
+		while (high - low > 1) {
+			int middle = low + (high - low) / 2;
+			if (estimatedValue(middle, inBytes) <= target) {
+				high = middle;
+			} else {
+				low = middle;
+			}
+		}
+
+		return high;
+	}
+
+	private long estimatedValue(int minimumSupport, boolean inBytes) {
+		OutputEstimate estimate = this.estimate(minimumSupport);
+		return inBytes ? estimate.bytes : estimate.patterns;
+	}
+
+	/**
+	 * @return a new initial ExplorationStep for a complete run at the given
+	 *         minimum support, sharing this tuner's dataset
+	 */
+	public ExplorationStep getInitState(int minimumSupport) {
+		return this.initState.restart(minimumSupport);
+	}
+
+	/**
+	 * Launches the complete mining at the given minimum support (ideally, given
+	 * by one of the tune methods)
+	 *
+	 * @return the PLCM instance, once it has terminated - collector is not
+	 *         closed
+	 */
+	public PLCM lcm(PatternsCollector collector, int minimumSupport) {
+		PLCM algo = new PLCM(collector, this.nbThreads);
+		algo.lcm(this.getInitState(minimumSupport));
+		return algo;
+	}
+
+	public static final class OutputEstimate {
+		public final int minimumSupport;
+
+		/**
+		 * estimated pattern count
+		 */
+		public final long patterns;
+
+		/**
+		 * estimated size of FileCollector's output, in bytes
+		 */
+		public final long bytes;
+
+		/**
+		 * how many root extensions have been mined to compute this estimate
+		 */
+		public final int sampledExtensions;
+
+		/**
+		 * how many root extensions are frequent at this minimumSupport
+		 */
+		public final int candidateExtensions;
+
+		OutputEstimate(int minimumSupport, long patterns, long bytes, int sampled, int candidates) {
+			this.minimumSupport = minimumSupport;
+			this.patterns = patterns;
+			this.bytes = bytes;
+			this.sampledExtensions = sampled;
+			this.candidateExtensions = candidates;
+		}
+
+		/**
+		 * @return true if all root extensions have been mined, so patterns and
+		 *         bytes are exact
+		 */
+		public boolean isExact() {
+			return this.sampledExtensions == this.candidateExtensions;
+		}
+
+		@Override
+		public String toString() {
+			return "{\"minimumSupport\":" + this.minimumSupport + ", \"patterns\":" + this.patterns
+					+ ", \"bytes\":" + this.bytes + ", \"sampledExtensions\":" + this.sampledExtensions
+					+ ", \"candidateExtensions\":" + this.candidateExtensions + "}";
+		}
+	}
+
+	/**
+	 * Counts patterns and the bytes FileCollector would write for them
+	 */
+	private static final class OutputSizeCounter extends PatternsWriter {
+		final AtomicLong patterns = new AtomicLong(0);
+		final AtomicLong bytes = new AtomicLong(0);
+		final AtomicLong length = new AtomicLong(0);
+
+		static long lineLength(int support, int[] pattern, int length) {
+			long size = digits(support) + 1 + length; // tab, separators and '\n'
+			for (int i = 0; i < length; i++) {
+				size += digits(pattern[i]);
+			}
+			return size;
+		}
+
+		private static int digits(int i) {
+			return Integer.toString(i).length();
+		}
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			this.patterns.incrementAndGet();
+			this.length.addAndGet(length);
+			this.bytes.addAndGet(lineLength(support, pattern, length));
+		}
+
+		@Override
+		public long close() {
+			return this.patterns.get();
+		}
+
+		@Override
+		public int getAveragePatternLength() {
+			if (this.patterns.get() == 0) {
+				return 0;
+			} else {
+				return (int) (this.length.get() / this.patterns.get());
+			}
+		}
+	}
+}
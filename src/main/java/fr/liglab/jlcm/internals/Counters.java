@@ -22,14 +22,12 @@
 package fr.liglab.jlcm.internals;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import fr.liglab.jlcm.util.ItemAndSupport;
 import fr.liglab.jlcm.util.ItemsetsFactory;
-import gnu.trove.iterator.TIntIntIterator;
-import gnu.trove.map.hash.TIntIntHashMap;
 
 /**
  * This class' constructor performs item counting over a transactions database,
@@ -46,6 +44,13 @@ import gnu.trove.map.hash.TIntIntHashMap;
  */
 public final class Counters implements Cloneable {
 
+	/**
+	 * How many threads count items in the initial dataset - with 1, counting
+	 * happens in the calling thread. Otherwise the calling thread reads
+	 * transactions while other threads count them.
+	 */
+	public static int countingThreads = 1;
+
 	/**
 	 * Items occuring less than minSup times will be considered infrequent
 	 */
@@ -222,7 +227,7 @@ public final class Counters implements Cloneable {
 	 * /!\
 	 * It will perform an absolute renaming : items are renamed (and, likely,
 	 * re-ordered) by decreasing support count. For instance 0 will be the most
-	 * frequent item.
+	 * frequent item. Another constructor accepts other ItemsOrdering.
 	 * 
 	 * Indexes in arrays will refer items' new names, except for closure.
 	 * 
@@ -230,7 +235,7 @@ public final class Counters implements Cloneable {
 	 * @param transactions
 	 */
 	public Counters(int minimumSupport, Iterator<TransactionReader> transactions) {
-		this(new IntOrDouble(minimumSupport), transactions);
+		this(new IntOrDouble(minimumSupport), transactions, null);
 	}
 
 	/**
@@ -239,38 +244,40 @@ public final class Counters implements Cloneable {
 	 * @param transactions
 	 */
 	public Counters(double minimumSupport, Iterator<TransactionReader> transactions) {
-		this(new IntOrDouble(minimumSupport), transactions);
+		this(new IntOrDouble(minimumSupport), transactions, null);
+	}
+
+	/**
+	 * Does item counting over an initial dataset, renaming items in the given
+	 * order instead of decreasing support count.
+	 * 
+	 * @param minimumSupport absolute minimum support
+	 * @param transactions
+	 * @param ordering null means ItemsOrdering.Standard.DECREASING_SUPPORT
+	 */
+	public Counters(int minimumSupport, Iterator<TransactionReader> transactions, ItemsOrdering ordering) {
+		this(new IntOrDouble(minimumSupport), transactions, ordering);
+	}
+
+	/**
+	 * @param minimumSupport relative minimum support
+	 * @param transactions
+	 * @param ordering null means ItemsOrdering.Standard.DECREASING_SUPPORT
+	 */
+	public Counters(double minimumSupport, Iterator<TransactionReader> transactions, ItemsOrdering ordering) {
+		this(new IntOrDouble(minimumSupport), transactions, ordering);
 	}
 	
-	private Counters(IntOrDouble minimumSupport, Iterator<TransactionReader> transactions) {
-		TIntIntHashMap supportsMap = new TIntIntHashMap();
-		TIntIntHashMap distinctsTMap = new TIntIntHashMap();
-		int biggestItemID = 0;
+	private Counters(IntOrDouble minimumSupport, Iterator<TransactionReader> transactions,
+			final ItemsOrdering ordering) {
 
 		// item support and transactions counting
 
-		int transactionsCounter = 0;
-		int weightsSum = 0;
-		while (transactions.hasNext()) {
-			TransactionReader transaction = transactions.next();
-			int weight = transaction.getTransactionSupport();
-			
-			if (weight > 0) {
-				transactionsCounter++;
-				weightsSum += weight;
-				
-				while (transaction.hasNext()) {
-					int item = transaction.next();
-					biggestItemID = Math.max(biggestItemID, item);
-					supportsMap.adjustOrPutValue(item, weight, weight);
-					distinctsTMap.adjustOrPutValue(item, 1, 1);
-				}
-			}
-		}
+		final RootItemsCounter counted = RootItemsCounter.count(transactions, countingThreads);
 
-		this.transactionsCount = weightsSum;
-		this.distinctTransactionsCount = transactionsCounter;
-		this.renaming = new int[biggestItemID + 1];
+		this.transactionsCount = counted.weightsSum;
+		this.distinctTransactionsCount = counted.transactionsCount;
+		this.renaming = new int[counted.biggestItemID + 1];
 		Arrays.fill(this.renaming, -1);
 		
 		if (minimumSupport.isInt()) {
@@ -282,25 +289,25 @@ public final class Counters implements Cloneable {
 		// item filtering and final computations : some are infrequent, some
 		// belong to closure
 
-		final PriorityQueue<ItemAndSupport> renamingHeap = new PriorityQueue<ItemAndSupport>();
 		ItemsetsFactory closureBuilder = new ItemsetsFactory();
+		final int[] items = counted.getItems();
+		int nbFrequents = 0;
 
-		TIntIntIterator iterator = supportsMap.iterator();
-
-		while (iterator.hasNext()) {
-			iterator.advance();
-			final int item = iterator.key();
-			final int supportCount = iterator.value();
+		for (int i = 0; i < items.length; i++) {
+			final int item = items[i];
+			final int supportCount = counted.getSupport(item);
 
 			if (supportCount == this.transactionsCount) {
 				closureBuilder.add(item);
 			} else if (supportCount >= this.minSupport) {
-				renamingHeap.add(new ItemAndSupport(item, supportCount));
+				items[nbFrequents++] = item;
 			} // otherwise item is infrequent : its renaming is already -1, ciao
 		}
 
+		final int[] sorted = sortFrequents(items, nbFrequents, counted, ordering);
+
 		this.closure = closureBuilder.get();
-		this.nbFrequents = renamingHeap.size();
+		this.nbFrequents = nbFrequents;
 		this.maxFrequent = this.nbFrequents - 1;
 		this.maxCandidate = this.maxFrequent + 1;
 
@@ -309,30 +316,88 @@ public final class Counters implements Cloneable {
 		this.reverseRenaming = new int[this.nbFrequents];
 		long remainingSupportsSum = 0;
 
-		ItemAndSupport entry = renamingHeap.poll();
-		int newItemID = 0;
-
-		while (entry != null) {
-			final int item = entry.item;
-			final int support = entry.support;
+		for (int newItemID = 0; newItemID < nbFrequents; newItemID++) {
+			final int item = sorted[newItemID];
 
 			this.renaming[item] = newItemID;
 			this.reverseRenaming[newItemID] = item;
 
-			this.supportCounts[newItemID] = support;
+			this.supportCounts[newItemID] = counted.getSupport(item);
 			
-			int distinctSupport = distinctsTMap.get(item);
+			int distinctSupport = counted.getDistinctTransactionsCount(item);
 			this.distinctTransactionsCounts[newItemID] = distinctSupport;
 			remainingSupportsSum += distinctSupport;
-
-			entry = renamingHeap.poll();
-			newItemID++;
 		}
 
 		this.compactedArrays = true;
 		this.distinctTransactionLengthSum = remainingSupportsSum;
 	}
 
+	/**
+	 * Does item counting over transactions already renamed in an initial
+	 * step's base, like a partition exported by ProjectedPartitions : items
+	 * keep their IDs (and order), and infrequent ones are filtered. Closure
+	 * detection is not performed, as closure is given.
+	 * 
+	 * @param minimumSupport
+	 * @param transactions
+	 * @param transactionsCount
+	 *            sum of weights of the whole dataset the transactions come
+	 *            from
+	 * @param closure
+	 *            initial step's closure, in original item IDs
+	 * @param reverseRenaming
+	 *            initial step's reverse renaming
+	 */
+	public Counters(int minimumSupport, Iterator<TransactionReader> transactions, int transactionsCount,
+			int[] closure, int[] reverseRenaming) {
+		this.minSupport = minimumSupport;
+		this.transactionsCount = transactionsCount;
+		this.closure = closure;
+		this.reverseRenaming = reverseRenaming;
+		this.supportCounts = new int[reverseRenaming.length];
+		this.distinctTransactionsCounts = new int[reverseRenaming.length];
+
+		int transactionsCounter = 0;
+		while (transactions.hasNext()) {
+			TransactionReader transaction = transactions.next();
+			int weight = transaction.getTransactionSupport();
+
+			if (weight > 0 && transaction.hasNext()) {
+				transactionsCounter++;
+				while (transaction.hasNext()) {
+					int item = transaction.next();
+					this.supportCounts[item] += weight;
+					this.distinctTransactionsCounts[item]++;
+				}
+			}
+		}
+		this.distinctTransactionsCount = transactionsCounter;
+
+		this.renaming = new int[reverseRenaming.length];
+		long remainingDistinctTransLengths = 0;
+		int remainingFrequents = 0;
+		int biggestItemID = 0;
+
+		for (int i = 0; i < this.supportCounts.length; i++) {
+			if (this.supportCounts[i] < minimumSupport) {
+				this.supportCounts[i] = 0;
+				this.distinctTransactionsCounts[i] = 0;
+				this.renaming[i] = -1;
+			} else {
+				this.renaming[i] = i;
+				biggestItemID = i;
+				remainingFrequents++;
+				remainingDistinctTransLengths += this.distinctTransactionsCounts[i];
+			}
+		}
+
+		this.distinctTransactionLengthSum = remainingDistinctTransLengths;
+		this.nbFrequents = remainingFrequents;
+		this.maxFrequent = biggestItemID;
+		this.maxCandidate = biggestItemID + 1;
+	}
+
 	private Counters(int minSupport, int transactionsCount, int distinctTransactionsCount,
 			long distinctTransactionLengthSum, int[] supportCounts,
 			int[] distinctTransactionsCounts, int[] closure, int nbFrequents, int maxFrequent, int[] reverseRenaming,
@@ -493,11 +558,60 @@ public final class Counters implements Cloneable {
 			return this.index.get();
 		}
 
+		/**
+		 * Moves the iterator forward, so it will only return items greater or
+		 * equal to position
+		 */
+		public void skipTo(final int position) {
+			int current = this.index.get();
+			while (current < position && !this.index.compareAndSet(current, position)) {
+				current = this.index.get();
+			}
+		}
+
 		public int last() {
 			return this.max;
 		}
 	}
 	
+	/**
+	 * @return frequent items (among items[0:nbFrequents[) sorted in their
+	 *         renaming order. The default order is sorted as packed (support,
+	 *         item) pairs, other orderings by a comparator.
+	 */
+	private static int[] sortFrequents(final int[] items, final int nbFrequents, final RootItemsCounter counted,
+			final ItemsOrdering ordering) {
+		final int[] sorted = new int[nbFrequents];
+
+		if (ordering == null) {
+			// decreasing support, then increasing item ID
+			final long[] pairs = new long[nbFrequents];
+			for (int i = 0; i < nbFrequents; i++) {
+				pairs[i] = (((long) (Integer.MAX_VALUE - counted.getSupport(items[i]))) << 32) | items[i];
+			}
+			Arrays.sort(pairs);
+			for (int i = 0; i < nbFrequents; i++) {
+				sorted[i] = (int) pairs[i];
+			}
+		} else {
+			ItemAndSupport[] entries = new ItemAndSupport[nbFrequents];
+			for (int i = 0; i < nbFrequents; i++) {
+				entries[i] = new ItemAndSupport(items[i], counted.getSupport(items[i]));
+			}
+			Arrays.sort(entries, new Comparator<ItemAndSupport>() {
+				public int compare(ItemAndSupport a, ItemAndSupport b) {
+					return ordering.compare(a.item, a.support, counted.getDistinctTransactionsCount(a.item),
+							b.item, b.support, counted.getDistinctTransactionsCount(b.item));
+				}
+			});
+			for (int i = 0; i < nbFrequents; i++) {
+				sorted[i] = entries[i].item;
+			}
+		}
+
+		return sorted;
+	}
+
 	private static class IntOrDouble {
 		private final Integer i;
 		private final Double d;
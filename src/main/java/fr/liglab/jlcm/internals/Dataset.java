@@ -35,6 +35,7 @@ import fr.liglab.jlcm.internals.transactions.IntIndexedTransactionsList;
 import fr.liglab.jlcm.internals.transactions.TransactionIterator;
 import fr.liglab.jlcm.internals.transactions.TransactionsList;
 import fr.liglab.jlcm.internals.transactions.UShortIndexedTransactionsList;
+import fr.liglab.jlcm.util.ExplorationListener;
 import gnu.trove.iterator.TIntIterator;
 
 /**
@@ -115,8 +116,24 @@ public class Dataset implements Cloneable {
 	}
 
 	public void compress(int coreItem) {
-		((PLCM.PLCMThread) Thread.currentThread()).counters[PLCMCounters.TransactionsCompressions.ordinal()]++;
+		PLCM.incrementCounter(PLCMCounters.TransactionsCompressions);
+		final int before = this.transactions.size();
+		final long start = PLCM.startTimer();
 		this.transactions.compress(coreItem);
+		PLCM.stopTimer(PLCMCounters.CompressionNanoTime, start);
+
+		final ExplorationListener listener = ExplorationStep.listener;
+		if (listener != null) {
+			listener.datasetCompressed(coreItem, before, this.transactions.size());
+		}
+	}
+
+	/**
+	 * @return a short description of the chosen transactions and occurrences
+	 *         storage, like "UShortIndexedTransactionsList/UShortConsecutiveItemsConcatenatedTidList"
+	 */
+	public String getRepresentation() {
+		return this.transactions.getClass().getSimpleName() + "/" + this.tidLists.getClass().getSimpleName();
 	}
 
 	/**
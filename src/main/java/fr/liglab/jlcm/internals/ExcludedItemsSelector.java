@@ -0,0 +1,94 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import java.util.BitSet;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Restricts exploration and output to patterns containing none of the given
+ * items. An extension is pruned as soon as it (or its closure) contains an
+ * excluded item, as all patterns in its sub-tree would contain it too.
+ */
+public final class ExcludedItemsSelector extends Selector {
+
+	/**
+	 * Indexed by original item IDs
+	 */
+	private final BitSet excluded;
+
+	/**
+	 * @param initState
+	 *            the initial ExplorationStep, used to filter items
+	 * @param items
+	 *            excluded items, as original IDs
+	 */
+	public ExcludedItemsSelector(ExplorationStep initState, int... items) {
+		this(frequentItems(initState, items), null);
+	}
+
+	private ExcludedItemsSelector(BitSet excluded, Selector follower) {
+		super(follower);
+		this.excluded = excluded;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		if (this.excluded.get(state.counters.getReverseRenaming()[extension])) {
+			return false;
+		}
+		// deeper patterns have been checked by allowExtension, but initial
+		// closure may contain an excluded item
+		return state.parent != null || !this.containsExcluded(state.pattern);
+	}
+
+	@Override
+	protected boolean allowExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		return !this.containsExcluded(extendedPattern);
+	}
+
+	@Override
+	protected boolean allowOutput(ExplorationStep step) {
+		return !this.containsExcluded(step.pattern);
+	}
+
+	private boolean containsExcluded(int[] pattern) {
+		for (int item : pattern) {
+			if (this.excluded.get(item)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new ExcludedItemsSelector(this.excluded, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
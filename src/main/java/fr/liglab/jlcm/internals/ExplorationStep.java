@@ -24,11 +24,15 @@ package fr.liglab.jlcm.internals;
 import java.util.Arrays;
 import java.util.Calendar;
 
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
 import fr.liglab.jlcm.internals.Counters.ExtensionsIterator;
 import fr.liglab.jlcm.internals.Dataset.TransactionsIterable;
 import fr.liglab.jlcm.internals.Selector.WrongFirstParentException;
 import fr.liglab.jlcm.io.FileReader;
+import fr.liglab.jlcm.util.ExplorationListener;
 import fr.liglab.jlcm.util.ItemsetsFactory;
+import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 
 /**
@@ -38,12 +42,20 @@ public final class ExplorationStep implements Cloneable {
 
 	public static boolean verbose = false;
 	public static boolean ultraVerbose = false;
+
+	/**
+	 * When not null, notified of steps creation, datasets compression and
+	 * steals
+	 */
+	public static ExplorationListener listener = null;
 	
 	public final ExplorationStep parent;
 	
 	/**
 	 * Initialized with the given/parent's threshold
 	 * Set it to another value if you want to over/under-filter when calling next() 
+	 * - it may be raised while the exploration is running, candidates having a 
+	 * support count below this threshold are skipped.
 	 */
 	public int childrenThreshold;
 	
@@ -58,6 +70,12 @@ public final class ExplorationStep implements Cloneable {
 	 */
 	public final int core_item;
 
+	/**
+	 * Initial step's extension whose sub-tree contains this step (internal
+	 * ID), -1 for an initial step
+	 */
+	public final int rootExtension;
+
 	public final Dataset dataset;
 
 	public final Counters counters;
@@ -84,17 +102,34 @@ public final class ExplorationStep implements Cloneable {
 	 *            transaction containing space-separated item IDs.
 	 */
 	public ExplorationStep(int minimumSupport, String path) {
+		this(minimumSupport, path, null);
+	}
+
+	/**
+	 * Start exploration on a dataset contained in a file, renaming items in
+	 * the given order.
+	 * 
+	 * @param minimumSupport
+	 * @param path
+	 *            to an input file in ASCII format. Each line should be a
+	 *            transaction containing space-separated item IDs.
+	 * @param ordering
+	 *            null means ItemsOrdering.Standard.DECREASING_SUPPORT
+	 */
+	public ExplorationStep(int minimumSupport, String path, ItemsOrdering ordering) {
 		this.parent = null;
 		this.core_item = Integer.MAX_VALUE;
+		this.rootExtension = -1;
 		this.selectChain = null;
 		this.childrenThreshold = minimumSupport;
 
 		FileReader reader = new FileReader(path);
-		this.counters = new Counters(minimumSupport, reader);
+		this.counters = new Counters(minimumSupport, reader, ordering);
 		reader.close(this.counters.renaming);
 
 		this.pattern = this.counters.closure;
 
+		checkRootFootprint(this.counters);
 		this.dataset = new Dataset(this.counters, reader);
 
 		this.candidates = this.counters.getExtensionsIterator();
@@ -107,12 +142,25 @@ public final class ExplorationStep implements Cloneable {
 	 * threshold
 	 */
 	public ExplorationStep(int minimumSupport, Iterable<TransactionReader> source) {
+		this(minimumSupport, source, null);
+	}
+
+	/**
+	 * Start exploration on an abstract dataset, using an absolute frequency
+	 * threshold and renaming items in the given order
+	 * 
+	 * @param ordering
+	 *            null means ItemsOrdering.Standard.DECREASING_SUPPORT
+	 */
+	public ExplorationStep(int minimumSupport, Iterable<TransactionReader> source, ItemsOrdering ordering) {
 		this.parent = null;
 		this.core_item = Integer.MAX_VALUE;
+		this.rootExtension = -1;
 		this.selectChain = null;
 		this.childrenThreshold = minimumSupport;
-		this.counters = new Counters(minimumSupport, source.iterator());
+		this.counters = new Counters(minimumSupport, source.iterator(), ordering);
 		this.pattern = this.counters.closure;
+		checkRootFootprint(this.counters);
 		TransactionsRenameAndSortDecorator filtered = new TransactionsRenameAndSortDecorator(source.iterator(), this.counters.renaming);
 		this.dataset = new Dataset(this.counters, filtered);
 		this.candidates = this.counters.getExtensionsIterator();
@@ -124,25 +172,100 @@ public final class ExplorationStep implements Cloneable {
 	 * threshold
 	 */
 	public ExplorationStep(double minimumSupport, Iterable<TransactionReader> source) {
+		this(minimumSupport, source, null);
+	}
+
+	/**
+	 * Start exploration on an abstract dataset, using a relative frequency
+	 * threshold and renaming items in the given order
+	 * 
+	 * @param ordering
+	 *            null means ItemsOrdering.Standard.DECREASING_SUPPORT
+	 */
+	public ExplorationStep(double minimumSupport, Iterable<TransactionReader> source, ItemsOrdering ordering) {
 		this.parent = null;
 		this.core_item = Integer.MAX_VALUE;
+		this.rootExtension = -1;
 		this.selectChain = null;
-		this.counters = new Counters(minimumSupport, source.iterator());
+		this.counters = new Counters(minimumSupport, source.iterator(), ordering);
 		this.childrenThreshold = this.counters.minSupport;
 		this.pattern = this.counters.closure;
+		checkRootFootprint(this.counters);
 		TransactionsRenameAndSortDecorator filtered = new TransactionsRenameAndSortDecorator(source.iterator(), this.counters.renaming);
 		this.dataset = new Dataset(this.counters, filtered);
 		this.candidates = this.counters.getExtensionsIterator();
 		this.failedFPTests = new TIntIntHashMap();
 	}
+
+	/**
+	 * Start exploration on an abstract dataset, using per-item absolute
+	 * frequency thresholds : a pattern is frequent if its support reaches the
+	 * lowest threshold among its items. Counters use the lowest of all
+	 * thresholds, and a MinSupportsSelector is attached to prune the
+	 * exploration.
+	 * 
+	 * @param minSupports
+	 *            original item ID -> absolute minimum support
+	 * @param defaultMinSupport
+	 *            for items not in minSupports
+	 */
+	public ExplorationStep(TIntIntMap minSupports, int defaultMinSupport, Iterable<TransactionReader> source) {
+		this(MinSupportsSelector.getLowestMinSupport(minSupports, defaultMinSupport), source);
+		this.appendSelector(new MinSupportsSelector(minSupports, defaultMinSupport));
+	}
 	
-	private ExplorationStep(ExplorationStep parent, int childrenThreshold, int[] pattern, int core_item, Dataset dataset, Counters counters, Selector selectChain,
+	/**
+	 * Start exploration on transactions already renamed in another initial
+	 * step's base (like a partition exported by ProjectedPartitions). Items
+	 * keep the same IDs, so this step's extensions lead to the same sub-trees
+	 * as the other initial step's, as long as their supports are entirely
+	 * contained in source.
+	 * 
+	 * @param transactionsCount
+	 *            sum of weights of the whole dataset source comes from
+	 * @param closure
+	 *            the other initial step's pattern
+	 * @param reverseRenaming
+	 *            the other initial step's reverse renaming
+	 */
+	public ExplorationStep(int minimumSupport, Iterable<TransactionReader> source, int transactionsCount,
+			int[] closure, int[] reverseRenaming) {
+		this.parent = null;
+		this.core_item = Integer.MAX_VALUE;
+		this.rootExtension = -1;
+		this.selectChain = null;
+		this.childrenThreshold = minimumSupport;
+		this.counters = new Counters(minimumSupport, source.iterator(), transactionsCount, closure, reverseRenaming);
+		this.pattern = closure;
+		checkRootFootprint(this.counters);
+		TransactionsRenamingDecorator filtered = new TransactionsRenamingDecorator(source.iterator(),
+				this.counters.getRenaming());
+		this.dataset = new Dataset(this.counters, filtered);
+		this.candidates = this.counters.getExtensionsIterator();
+		this.failedFPTests = new TIntIntHashMap();
+	}
+
+	/**
+	 * Fails before allocating the initial dataset if it can't fit in the heap
+	 * anyway
+	 */
+	private static void checkRootFootprint(Counters counters) {
+		final MemoryFootprint footprint = new MemoryFootprint(counters, 1);
+		final long heap = Runtime.getRuntime().maxMemory();
+		if (footprint.getRootDatasetBytes() > heap) {
+			throw new IllegalStateException("Initial dataset needs " + footprint.getRootDatasetBytes()
+					+ " bytes but the heap is limited to " + heap + " bytes - increase -Xmx or minimum support");
+		}
+	}
+
+	private ExplorationStep(ExplorationStep parent, int childrenThreshold, int[] pattern, int core_item, int rootExtension, Dataset dataset, Counters counters, Selector selectChain,
 			ExtensionsIterator candidates, TIntIntHashMap failedFPTests) {
 		super();
 		this.childrenThreshold = childrenThreshold;
 		this.parent = parent;
 		this.pattern = pattern;
 		this.core_item = core_item;
+		this.rootExtension = rootExtension;
 		this.dataset = dataset;
 		this.counters = counters;
 		this.selectChain = selectChain;
@@ -154,7 +277,8 @@ public final class ExplorationStep implements Cloneable {
 	 * Finds an extension for current pattern in current dataset and returns the
 	 * corresponding ExplorationStep (extensions are enumerated by ascending
 	 * item IDs - in internal rebasing) Returns null when all valid extensions
-	 * have been generated
+	 * have been generated, or when the exploration has been cancelled (see
+	 * PLCM.setCancellationToken)
 	 */
 	public ExplorationStep next() {
 		if (this.candidates == null) {
@@ -162,44 +286,86 @@ public final class ExplorationStep implements Cloneable {
 		}
 
 		while (true) {
+			if (PLCM.isCancelled()) {
+				return null;
+			}
+
 			int candidate = this.candidates.next();
 
 			if (candidate < 0) {
 				return null;
 			}
 
-			try {
-				if (this.selectChain == null || this.selectChain.select(candidate, this)) {
-					TransactionsIterable support = this.dataset.getSupport(candidate);
-
-					// System.out.println("extending "+Arrays.toString(this.pattern)+
-					// " with "+
-					// candidate+" ("+this.counters.getReverseRenaming()[candidate]+")");
+			ExplorationStep extended = this.getExtension(candidate);
+			if (extended != null) {
+				return extended;
+			}
+		}
+	}
 
-					Counters candidateCounts = new Counters(this.childrenThreshold, support.iterator(),
-							candidate, this.counters.maxFrequent);
+	/**
+	 * Computes the extension of current pattern by candidate, without moving
+	 * the candidates' iterator (next() relies on this method).
+	 * 
+	 * @param candidate
+	 *            an item ID, in this step's internal rebasing
+	 * @return the corresponding ExplorationStep, or null if candidate is not a
+	 *         valid (frequent, first-parent and selected) extension
+	 */
+	public ExplorationStep getExtension(int candidate) {
+		if (this.candidates == null) {
+			return null;
+		}
 
-					int greatest = Integer.MIN_VALUE;
-					for (int i = 0; i < candidateCounts.closure.length; i++) {
-						if (candidateCounts.closure[i] > greatest) {
-							greatest = candidateCounts.closure[i];
-						}
+		try {
+			if (this.selectChain == null || this.selectChain.select(candidate, this)) {
+				// childrenThreshold may be raised concurrently (by a Selector or
+				// another thread) so we read it only once
+				final int threshold = this.childrenThreshold;
+				if (this.counters.supportCounts[candidate] < threshold) {
+					return null;
+				}
+				
+				TransactionsIterable support = this.dataset.getSupport(candidate);
+
+				// System.out.println("extending "+Arrays.toString(this.pattern)+
+				// " with "+
+				// candidate+" ("+this.counters.getReverseRenaming()[candidate]+")");
+
+				final long countingStart = PLCM.startTimer();
+				Counters candidateCounts = new Counters(threshold, support.iterator(),
+						candidate, this.counters.maxFrequent);
+				PLCM.stopTimer(PLCMCounters.CountingNanoTime, countingStart);
+
+				int greatest = Integer.MIN_VALUE;
+				for (int i = 0; i < candidateCounts.closure.length; i++) {
+					if (candidateCounts.closure[i] > greatest) {
+						greatest = candidateCounts.closure[i];
 					}
+				}
 
-					if (greatest > candidate) {
-						throw new WrongFirstParentException(candidate, greatest);
-					}
+				if (greatest > candidate) {
+					throw new WrongFirstParentException(candidate, greatest);
+				}
 
-					// instanciateDataset may choose to compress renaming - if
-					// not, at least it's set for now.
-					candidateCounts.reuseRenaming(this.counters.reverseRenaming);
+				int[] extendedPattern = ItemsetsFactory.extendRename(candidateCounts.closure, candidate,
+						this.pattern, this.counters.reverseRenaming);
 
-					return new ExplorationStep(this, candidate, candidateCounts, support);
+				if (this.selectChain != null
+						&& !this.selectChain.selectExtension(candidate, extendedPattern, candidateCounts, this)) {
+					return null;
 				}
-			} catch (WrongFirstParentException e) {
-				addFailedFPTest(e.extension, e.firstParent);
+
+				// instanciateDataset may choose to compress renaming - if
+				// not, at least it's set for now.
+				candidateCounts.reuseRenaming(this.counters.reverseRenaming);
+
+				return new ExplorationStep(this, candidate, extendedPattern, candidateCounts, support);
 			}
+		} catch (WrongFirstParentException e) {
+			addFailedFPTest(e.extension, e.firstParent);
 		}
+		return null;
 	}
 
 	/**
@@ -208,17 +374,20 @@ public final class ExplorationStep implements Cloneable {
 	 * @param parent
 	 * @param extension
 	 *            a first-parent extension from parent step
+	 * @param pattern
+	 *            closure of parent's pattern U extension, in original item IDs
 	 * @param candidateCounts
 	 *            extension's counters from parent step
 	 * @param support
 	 *            previously-computed extension's support
 	 */
-	protected ExplorationStep(ExplorationStep parent, int extension, Counters candidateCounts,
+	protected ExplorationStep(ExplorationStep parent, int extension, int[] pattern, Counters candidateCounts,
 			TransactionsIterable support) {
 		
 		this.childrenThreshold = candidateCounts.minSupport;
 		this.parent = parent;
 		this.core_item = extension;
+		this.rootExtension = (parent.parent == null) ? extension : parent.rootExtension;
 		this.counters = candidateCounts;
 		int[] reverseRenaming = parent.counters.reverseRenaming;
 
@@ -231,8 +400,7 @@ public final class ExplorationStep implements Cloneable {
 			}
 		}
 
-		this.pattern = ItemsetsFactory
-				.extendRename(candidateCounts.closure, extension, parent.pattern, reverseRenaming);
+		this.pattern = pattern;
 
 		if (this.counters.nbFrequents == 0 || this.counters.distinctTransactionsCount == 0) {
 			this.candidates = null;
@@ -244,6 +412,10 @@ public final class ExplorationStep implements Cloneable {
 
 			if (parent.selectChain == null) {
 				this.selectChain = new FirstParentTest(null);
+			} else if (parent.parent == null) {
+				// initial step does not perform first-parent tests, but it may
+				// have been given some selectors
+				this.selectChain = parent.selectChain.append(new FirstParentTest());
 			} else {
 				this.selectChain = parent.selectChain.copy();
 			}
@@ -251,16 +423,23 @@ public final class ExplorationStep implements Cloneable {
 			this.dataset = instanciateDataset(parent.counters, support);
 			this.candidates = this.counters.getExtensionsIterator();
 		}
+
+		final ExplorationListener l = listener;
+		if (l != null) {
+			l.stepCreated(this);
+		}
 	}
 
 	private Dataset instanciateDataset(Counters parentCounters, TransactionsIterable support) {
 
+		final long start = PLCM.startTimer();
 		final int[] renaming = this.counters.compressRenaming(parentCounters.getReverseRenaming());
 
 		TransactionsRenamingDecorator filtered = new TransactionsRenamingDecorator(support.iterator(), renaming);
 
 		try {
 			Dataset instance = new Dataset(this.counters, filtered, Integer.MAX_VALUE);
+			PLCM.stopTimer(PLCMCounters.DatasetInstanciationNanoTime, start);
 			instance.compress(this.counters.maxCandidate);
 			return instance;
 			
@@ -293,6 +472,26 @@ public final class ExplorationStep implements Cloneable {
 		}
 	}
 
+	/**
+	 * @return false if a Selector refuses this step's pattern to be collected
+	 *         (its sub-tree should be explored anyway)
+	 */
+	public boolean isSelectedForOutput() {
+		final Selector chain = (this.parent == null) ? this.selectChain : this.parent.selectChain;
+		return chain == null || chain.selectOutput(this);
+	}
+
+	/**
+	 * @return how many steps separate this one from the initial step
+	 */
+	public int getDepth() {
+		int depth = 0;
+		for (ExplorationStep step = this.parent; step != null; step = step.parent) {
+			depth++;
+		}
+		return depth;
+	}
+
 	public int getCaughtWrongFirstParentCount() {
 		if (this.failedFPTests == null) {
 			return 0;
@@ -300,8 +499,51 @@ public final class ExplorationStep implements Cloneable {
 		return this.failedFPTests.size();
 	}
 
+	/**
+	 * Only valid on an initial step : the new step shares this one's dataset and
+	 * counters, so the exploration can be started again (possibly with another
+	 * threshold) without reloading the dataset.
+	 * 
+	 * @param minimumSupport
+	 *            should not be lower than this step's counters.minSupport
+	 * @return a new initial step, which will enumerate again all extensions
+	 *         having a support count of at least minimumSupport
+	 */
+	public ExplorationStep restart(int minimumSupport) {
+		if (this.parent != null) {
+			throw new IllegalStateException("restart() should only be invoked on an initial ExplorationStep");
+		}
+		if (minimumSupport < this.counters.minSupport) {
+			throw new IllegalArgumentException("Dataset has been loaded with a minimum support of "
+					+ this.counters.minSupport + ", can't restart with " + minimumSupport);
+		}
+		return new ExplorationStep(null, minimumSupport, this.pattern, this.core_item, -1, this.dataset, this.counters,
+				null, this.counters.getExtensionsIterator(), new TIntIntHashMap());
+	}
+
 	public ExplorationStep copy() {
-		return new ExplorationStep(parent, childrenThreshold, pattern, core_item, dataset.clone(), counters.clone(), selectChain, candidates, failedFPTests);
+		return new ExplorationStep(parent, childrenThreshold, pattern, core_item, rootExtension, dataset.clone(), counters.clone(), selectChain, candidates, failedFPTests);
+	}
+
+	/**
+	 * @return the first candidate that has not been given by next() yet, or -1
+	 *         if this step has no extension at all
+	 */
+	public int getCandidatesPosition() {
+		if (this.candidates == null) {
+			return -1;
+		}
+		return this.candidates.peek();
+	}
+
+	/**
+	 * Makes next() ignore all candidates lower than position - used when
+	 * resuming an exploration
+	 */
+	public void skipCandidates(int position) {
+		if (this.candidates != null) {
+			this.candidates.skipTo(position);
+		}
 	}
 
 	public Progress getProgression() {
@@ -87,16 +87,20 @@ final class FirstParentTest extends Selector {
 
 		final int candidateSupport = supportCounts[extension];
 
-		for (int i = state.counters.maxFrequent; i > extension; i--) {
-			if (supportCounts[i] >= candidateSupport) {
-				TIntIterator candidateOccurrences = occurrencesLists.get(extension);
-				final TIntIterator iOccurrences = occurrencesLists.get(i);
-				if (isAincludedInB(candidateOccurrences, iOccurrences)) {
-					((PLCM.PLCMThread) Thread.currentThread()).counters[PLCMCounters.FirstParentTestRejections
-							.ordinal()]++;
-					throw new WrongFirstParentException(extension, i);
+		final long start = PLCM.startTimer();
+		try {
+			for (int i = state.counters.maxFrequent; i > extension; i--) {
+				if (supportCounts[i] >= candidateSupport) {
+					TIntIterator candidateOccurrences = occurrencesLists.get(extension);
+					final TIntIterator iOccurrences = occurrencesLists.get(i);
+					if (isAincludedInB(candidateOccurrences, iOccurrences)) {
+						PLCM.incrementCounter(PLCMCounters.FirstParentTestRejections);
+						throw new WrongFirstParentException(extension, i);
+					}
 				}
 			}
+		} finally {
+			PLCM.stopTimer(PLCMCounters.FirstParentTestNanoTime, start);
 		}
 
 		return true;
@@ -0,0 +1,110 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+/**
+ * Decides how frequent items are renamed by the initial Counters : items are
+ * sorted with compare(), and the first one becomes item 0.
+ *
+ * As extensions are enumerated by increasing item IDs and a sub-tree only
+ * contains items lower than its extension, the ordering changes the shape of
+ * the search tree (not its result). The default, DECREASING_SUPPORT, keeps
+ * the most frequent items in the smallest sub-trees.
+ */
+public interface ItemsOrdering {
+
+	/**
+	 * @param item
+	 *            original ID
+	 * @param support
+	 *            item's support count
+	 * @param distinctTransactions
+	 *            how many distinct transactions contain item
+	 * @return a negative integer, zero, or a positive integer as item should
+	 *         be renamed before, as, or after the other item
+	 */
+	public int compare(int item, int support, int distinctTransactions, int otherItem, int otherSupport,
+			int otherDistinctTransactions);
+
+	public enum Standard implements ItemsOrdering {
+		/**
+		 * item 0 is the most frequent one
+		 */
+		DECREASING_SUPPORT {
+			public int compare(int item, int support, int distinctTransactions, int otherItem,
+					int otherSupport, int otherDistinctTransactions) {
+				return byValue(otherSupport, support, item, otherItem);
+			}
+		},
+
+		/**
+		 * item 0 is the least frequent one
+		 */
+		INCREASING_SUPPORT {
+			public int compare(int item, int support, int distinctTransactions, int otherItem,
+					int otherSupport, int otherDistinctTransactions) {
+				return byValue(support, otherSupport, item, otherItem);
+			}
+		},
+
+		/**
+		 * item 0 is the one occurring in the most distinct transactions - it
+		 * only differs from DECREASING_SUPPORT on weighted transactions
+		 */
+		DECREASING_DISTINCT_TRANSACTIONS {
+			public int compare(int item, int support, int distinctTransactions, int otherItem,
+					int otherSupport, int otherDistinctTransactions) {
+				return byValue(otherDistinctTransactions, distinctTransactions, item, otherItem);
+			}
+		},
+
+		/**
+		 * item 0 is the one occurring in the fewest distinct transactions
+		 */
+		INCREASING_DISTINCT_TRANSACTIONS {
+			public int compare(int item, int support, int distinctTransactions, int otherItem,
+					int otherSupport, int otherDistinctTransactions) {
+				return byValue(distinctTransactions, otherDistinctTransactions, item, otherItem);
+			}
+		},
+
+		/**
+		 * items keep their original relative order
+		 */
+		ORIGINAL_IDS {
+			public int compare(int item, int support, int distinctTransactions, int otherItem,
+					int otherSupport, int otherDistinctTransactions) {
+				return byValue(item, otherItem, item, otherItem);
+			}
+		};
+
+		/**
+		 * compares a to b, then ties are broken by items' original IDs
+		 */
+		private static int byValue(int a, int b, int item, int otherItem) {
+			if (a != b) {
+				return a < b ? -1 : 1;
+			}
+			return item < otherItem ? -1 : (item == otherItem ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Restricts output to patterns whose support count is strictly lower than
+ * maxSupport. Supports only decrease along the exploration, so this selector
+ * can't prune any sub-tree : it's meant for explorations made by decreasing
+ * support levels, to avoid outputting a pattern twice.
+ */
+public final class MaxSupportSelector extends Selector {
+
+	private final int maxSupport;
+
+	/**
+	 * @param maxSupport
+	 *            exclusive upper bound on output patterns' support counts
+	 */
+	public MaxSupportSelector(int maxSupport) {
+		this(maxSupport, null);
+	}
+
+	private MaxSupportSelector(int maxSupport, Selector follower) {
+		super(follower);
+		this.maxSupport = maxSupport;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		return true;
+	}
+
+	@Override
+	protected boolean allowOutput(ExplorationStep step) {
+		return step.counters.transactionsCount < this.maxSupport;
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new MaxSupportSelector(this.maxSupport, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
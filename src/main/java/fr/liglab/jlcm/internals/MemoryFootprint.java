@@ -0,0 +1,248 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import fr.liglab.jlcm.internals.tidlist.IntConsecutiveItemsConcatenatedTidList;
+import fr.liglab.jlcm.internals.tidlist.UShortConsecutiveItemsConcatenatedTidList;
+import fr.liglab.jlcm.internals.transactions.IntIndexedTransactionsList;
+import fr.liglab.jlcm.internals.transactions.UShortIndexedTransactionsList;
+
+/**
+ * Predicts, from the initial step's Counters (so before its Dataset is
+ * built), how much memory the exploration will need.
+ * 
+ * Root dataset sizes are computed for each representation, the same way
+ * Dataset allocates its arrays. A depth-1 projection on item i contains at
+ * most distinctTransactionsCounts[i] transactions, only made of smaller
+ * items, so its size is bounded too. A thread stacks projections of
+ * decreasing sizes : we assume they sum up to at most twice the largest
+ * depth-1 projection. So the per-thread figure is an estimate rather than a
+ * strict bound.
+ */
+public final class MemoryFootprint {
+
+	/**
+	 * Storage representations, from the lightest to the heaviest. Dataset
+	 * chooses the lightest compatible one, for transactions and occurrences
+	 * lists independently.
+	 */
+	public enum Representation {
+		USHORT, INT, HUGE
+	}
+
+	/**
+	 * Assumed size of an array's header, in bytes
+	 */
+	private static final long ARRAY_HEADER = 16;
+
+	private final int nbThreads;
+	private final long[] transactionsBytes;
+	private final long[] tidListsBytes;
+	private final Representation transactionsRepresentation;
+	private final Representation tidListsRepresentation;
+	private final long countersBytes;
+	private final long largestProjectionBytes;
+
+	/**
+	 * @param rootCounters
+	 *            the initial ExplorationStep's counters
+	 * @param nbThreads
+	 *            mining threads count
+	 */
+	public MemoryFootprint(Counters rootCounters, int nbThreads) {
+		this.nbThreads = nbThreads;
+
+		final int nbTransactions = rootCounters.distinctTransactionsCount;
+		final long length = rootCounters.distinctTransactionLengthSum;
+		final int maxFrequent = rootCounters.getMaxFrequent();
+		final int[] occurrences = rootCounters.distinctTransactionsCounts;
+
+		this.transactionsBytes = new long[Representation.values().length];
+		this.tidListsBytes = new long[Representation.values().length];
+		for (Representation r : Representation.values()) {
+			this.transactionsBytes[r.ordinal()] = transactionsBytes(r, nbTransactions, length, maxFrequent);
+			this.tidListsBytes[r.ordinal()] = tidListsBytes(r, nbTransactions, length, maxFrequent + 1);
+		}
+		this.transactionsRepresentation = lightest(this.transactionsBytes);
+		this.tidListsRepresentation = lightest(this.tidListsBytes);
+
+		// supportCounts, distinctTransactionsCounts, renaming and reverseRenaming
+		this.countersBytes = 4 * (ARRAY_HEADER + 4L * occurrences.length);
+
+		long largest = 0;
+		long smallerItemsOccurrences = 0;
+		for (int i = 0; i <= maxFrequent && i < occurrences.length; i++) {
+			final int projectedTransactions = occurrences[i];
+			final long projectedLength = Math.min(smallerItemsOccurrences, ((long) projectedTransactions) * i);
+			final long projection = lightestBytes(projectedTransactions, projectedLength, i) + this.countersBytes
+					+ array(4L * projectedTransactions); // compression's sort list
+			largest = Math.max(largest, projection);
+			smallerItemsOccurrences += projectedTransactions;
+		}
+		this.largestProjectionBytes = largest;
+	}
+
+	private static long array(long bytes) {
+		return ARRAY_HEADER + bytes;
+	}
+
+	/**
+	 * @return -1 if r is not compatible
+	 */
+	private static long transactionsBytes(Representation r, int nbTransactions, long length, int maxItem) {
+		switch (r) {
+		case USHORT:
+			if (!UShortIndexedTransactionsList.compatible(length, nbTransactions, maxItem)) {
+				return -1;
+			}
+			return array(2 * length) + array(8L * nbTransactions);
+		case INT:
+			if (!IntIndexedTransactionsList.compatible(length, nbTransactions)) {
+				return -1;
+			}
+			return array(4 * length) + array(8L * nbTransactions);
+		default:
+			return array(4 * length) + array(12L * nbTransactions);
+		}
+	}
+
+	/**
+	 * @return -1 if r is not compatible
+	 */
+	private static long tidListsBytes(Representation r, int nbTransactions, long length, int nbItems) {
+		final int maxTid = nbTransactions - 1;
+		switch (r) {
+		case USHORT:
+			if (!UShortConsecutiveItemsConcatenatedTidList.compatible(maxTid, length)) {
+				return -1;
+			}
+			return array(8L * nbItems) + array(2 * length);
+		case INT:
+			if (!IntConsecutiveItemsConcatenatedTidList.compatible(maxTid, length)) {
+				return -1;
+			}
+			return array(8L * nbItems) + array(4 * length);
+		default:
+			return array(16L * nbItems) + array(4 * length);
+		}
+	}
+
+	private static Representation lightest(long[] bytes) {
+		for (Representation r : Representation.values()) {
+			if (bytes[r.ordinal()] >= 0) {
+				return r;
+			}
+		}
+		return Representation.HUGE;
+	}
+
+	private static long lightestBytes(int nbTransactions, long length, int nbItems) {
+		long transactions = -1;
+		long tidLists = -1;
+		for (Representation r : Representation.values()) {
+			if (transactions < 0) {
+				transactions = transactionsBytes(r, nbTransactions, length, nbItems - 1);
+			}
+			if (tidLists < 0) {
+				tidLists = tidListsBytes(r, nbTransactions, length, nbItems);
+			}
+		}
+		return transactions + tidLists;
+	}
+
+	/**
+	 * @return bytes needed by the initial dataset's transactions, or -1 if
+	 *         this representation is not compatible with the dataset
+	 */
+	public long getTransactionsBytes(Representation r) {
+		return this.transactionsBytes[r.ordinal()];
+	}
+
+	/**
+	 * @return bytes needed by the initial dataset's occurrences lists, or -1
+	 *         if this representation is not compatible with the dataset
+	 */
+	public long getTidListsBytes(Representation r) {
+		return this.tidListsBytes[r.ordinal()];
+	}
+
+	/**
+	 * @return the transactions representation Dataset will choose
+	 */
+	public Representation getTransactionsRepresentation() {
+		return this.transactionsRepresentation;
+	}
+
+	/**
+	 * @return the occurrences lists representation Dataset will choose
+	 */
+	public Representation getTidListsRepresentation() {
+		return this.tidListsRepresentation;
+	}
+
+	/**
+	 * @return bytes needed by the initial dataset, in chosen representations
+	 */
+	public long getRootDatasetBytes() {
+		return this.getTransactionsBytes(this.transactionsRepresentation)
+				+ this.getTidListsBytes(this.tidListsRepresentation);
+	}
+
+	/**
+	 * @return estimated bytes needed by each thread's stacked projections
+	 */
+	public long getProjectionsBytesPerThread() {
+		return 2 * this.largestProjectionBytes;
+	}
+
+	/**
+	 * @return estimated bytes needed by the whole exploration
+	 */
+	public long getTotalBytes() {
+		return this.getRootDatasetBytes() + this.countersBytes + this.nbThreads
+				* this.getProjectionsBytesPerThread();
+	}
+
+	/**
+	 * @param heapBytes
+	 *            available memory, like Runtime.getRuntime().maxMemory()
+	 * @return how many threads can mine within heapBytes (at most the thread
+	 *         count given to the constructor), 0 if the initial dataset does
+	 *         not even fit
+	 */
+	public int getMaxThreads(long heapBytes) {
+		final long available = heapBytes - this.getRootDatasetBytes() - this.countersBytes;
+		if (available <= 0) {
+			return 0;
+		}
+		final long perThread = Math.max(1, this.getProjectionsBytesPerThread());
+		return (int) Math.min(this.nbThreads, available / perThread);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("root dataset: %d bytes (%s transactions, %s occurrences lists), "
+				+ "projections: %d bytes per thread, total for %d threads: %d bytes", this.getRootDatasetBytes(),
+				this.transactionsRepresentation, this.tidListsRepresentation,
+				this.getProjectionsBytesPerThread(), this.nbThreads, this.getTotalBytes());
+	}
+}
@@ -0,0 +1,181 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import gnu.trove.iterator.TIntIntIterator;
+import gnu.trove.map.TIntIntMap;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Enforces per-item minimum supports : a pattern is frequent if its support
+ * reaches the lowest minimum support among its items. This property is not
+ * anti-monotone, so the initial step's counters should use the lowest
+ * minimum support among all items (see getLowestMinSupport, or the
+ * corresponding ExplorationStep constructor) and this selector prunes the
+ * exploration.
+ *
+ * A sub-tree's patterns only contain the extended pattern's items and
+ * frequent items below the extension, so its lowest reachable minimum support
+ * is the lowest one among these items. An extension is pruned as soon as its
+ * support is lower than this bound.
+ */
+public final class MinSupportsSelector extends Selector {
+
+	private static final int UNKNOWN = -1;
+
+	/**
+	 * original item ID -> absolute minimum support
+	 */
+	private final TIntIntMap minSupports;
+	private final int defaultMinSupport;
+
+	/**
+	 * For the ExplorationStep this instance is attached to, lazily computed :
+	 * lowest minimum support among its pattern's items
+	 */
+	private volatile int patternMinSupport = UNKNOWN;
+
+	/**
+	 * For the ExplorationStep this instance is attached to, lazily computed :
+	 * minSupportsBelow[i] is the lowest minimum support among frequent items
+	 * strictly below i
+	 */
+	private volatile int[] minSupportsBelow = null;
+
+	/**
+	 * @param minSupports
+	 *            absolute minimum support of some items, indexed by original
+	 *            item IDs
+	 * @param defaultMinSupport
+	 *            minimum support of other items
+	 */
+	public MinSupportsSelector(TIntIntMap minSupports, int defaultMinSupport) {
+		this(minSupports, defaultMinSupport, null);
+	}
+
+	private MinSupportsSelector(TIntIntMap minSupports, int defaultMinSupport, Selector follower) {
+		super(follower);
+		if (defaultMinSupport < 1) {
+			throw new IllegalArgumentException("defaultMinSupport has to be > 0, given " + defaultMinSupport);
+		}
+		this.minSupports = minSupports;
+		this.defaultMinSupport = defaultMinSupport;
+	}
+
+	/**
+	 * @return the minimum support that should be used by initial step's
+	 *         counters
+	 */
+	public static int getLowestMinSupport(TIntIntMap minSupports, int defaultMinSupport) {
+		int lowest = defaultMinSupport;
+		TIntIntIterator it = minSupports.iterator();
+		while (it.hasNext()) {
+			it.advance();
+			if (it.value() < 1) {
+				throw new IllegalArgumentException("Item " + it.key() + " has an invalid minimum support: "
+						+ it.value());
+			}
+			lowest = Math.min(lowest, it.value());
+		}
+		return lowest;
+	}
+
+	private int getMinSupport(int item) {
+		if (this.minSupports.containsKey(item)) {
+			return this.minSupports.get(item);
+		}
+		return this.defaultMinSupport;
+	}
+
+	private int getMinSupport(int[] pattern) {
+		int lowest = Integer.MAX_VALUE;
+		for (int item : pattern) {
+			lowest = Math.min(lowest, this.getMinSupport(item));
+		}
+		return lowest;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		int patternMin = this.patternMinSupport;
+		if (patternMin == UNKNOWN) {
+			patternMin = this.getMinSupport(state.pattern);
+			this.patternMinSupport = patternMin;
+		}
+
+		final int[] reverseRenaming = state.counters.getReverseRenaming();
+		int bound = Math.min(patternMin, this.getMinSupport(reverseRenaming[extension]));
+		bound = Math.min(bound, this.getMinSupportsBelow(state)[extension]);
+
+		return state.counters.supportCounts[extension] >= bound;
+	}
+
+	private int[] getMinSupportsBelow(ExplorationStep state) {
+		int[] below = this.minSupportsBelow;
+		if (below == null) {
+			final int[] supportCounts = state.counters.supportCounts;
+			final int[] reverseRenaming = state.counters.getReverseRenaming();
+			below = new int[supportCounts.length];
+			below[0] = Integer.MAX_VALUE;
+			for (int i = 1; i < below.length; i++) {
+				below[i] = below[i - 1];
+				if (supportCounts[i - 1] > 0 && i - 1 < reverseRenaming.length) {
+					below[i] = Math.min(below[i], this.getMinSupport(reverseRenaming[i - 1]));
+				}
+			}
+			this.minSupportsBelow = below;
+		}
+		return below;
+	}
+
+	@Override
+	protected boolean allowExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		int bound = this.getMinSupport(extendedPattern);
+
+		final int[] supportCounts = extensionCounters.supportCounts;
+		final int[] reverseRenaming = state.counters.getReverseRenaming();
+		final int last = Math.min(extension, supportCounts.length);
+		for (int i = 0; i < last && extensionCounters.transactionsCount < bound; i++) {
+			if (supportCounts[i] > 0) {
+				bound = Math.min(bound, this.getMinSupport(reverseRenaming[i]));
+			}
+		}
+
+		return extensionCounters.transactionsCount >= bound;
+	}
+
+	@Override
+	protected boolean allowOutput(ExplorationStep step) {
+		return step.counters.transactionsCount >= this.getMinSupport(step.pattern);
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new MinSupportsSelector(this.minSupports, this.defaultMinSupport, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
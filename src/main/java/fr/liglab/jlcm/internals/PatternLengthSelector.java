@@ -0,0 +1,111 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Restricts output to patterns whose length is in [minLength, maxLength].
+ *
+ * Patterns only grow along the exploration, so sub-trees are pruned as soon
+ * as they exceed maxLength. They're also pruned when all remaining items
+ * would not suffice to reach minLength.
+ */
+public final class PatternLengthSelector extends Selector {
+
+	private final int minLength;
+	private final int maxLength;
+
+	/**
+	 * For the ExplorationStep this instance is attached to, lazily computed :
+	 * frequentsBelow[i] is the count of frequent items strictly below i
+	 */
+	private volatile int[] frequentsBelow = null;
+
+	/**
+	 * @param minLength
+	 *            minimum pattern length (inclusive)
+	 * @param maxLength
+	 *            maximum pattern length (inclusive) - use Integer.MAX_VALUE if
+	 *            you only want a lower bound
+	 */
+	public PatternLengthSelector(int minLength, int maxLength) {
+		this(minLength, maxLength, null);
+	}
+
+	private PatternLengthSelector(int minLength, int maxLength, Selector follower) {
+		super(follower);
+		if (minLength < 0 || maxLength < minLength) {
+			throw new IllegalArgumentException("Invalid pattern length bounds: [" + minLength + ", " + maxLength
+					+ "]");
+		}
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		final int length = state.pattern.length + 1;
+		if (length > this.maxLength) {
+			return false;
+		}
+		if (length >= this.minLength) {
+			return true;
+		}
+		return length + this.getFrequentsBelow(state)[extension] >= this.minLength;
+	}
+
+	private int[] getFrequentsBelow(ExplorationStep state) {
+		int[] below = this.frequentsBelow;
+		if (below == null) {
+			final int[] supportCounts = state.counters.supportCounts;
+			below = new int[supportCounts.length];
+			for (int i = 1; i < below.length; i++) {
+				below[i] = below[i - 1] + (supportCounts[i - 1] > 0 ? 1 : 0);
+			}
+			this.frequentsBelow = below;
+		}
+		return below;
+	}
+
+	@Override
+	protected boolean allowExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		return extendedPattern.length <= this.maxLength
+				&& extendedPattern.length + extensionCounters.nbFrequents >= this.minLength;
+	}
+
+	@Override
+	protected boolean allowOutput(ExplorationStep step) {
+		return this.minLength <= step.pattern.length && step.pattern.length <= this.maxLength;
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new PatternLengthSelector(this.minLength, this.maxLength, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import java.util.BitSet;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Restricts output to patterns containing at least one of the given items.
+ *
+ * Extensions are enumerated by increasing item IDs and a sub-tree only
+ * contains items lower than its extension, so an extension is pruned when
+ * neither the current pattern nor any frequent item up to the extension is a
+ * required one.
+ */
+public final class RequiredItemsSelector extends Selector {
+
+	private static final int UNKNOWN = -2;
+	private static final int SATISFIED = -1;
+
+	/**
+	 * Indexed by original item IDs
+	 */
+	private final BitSet required;
+
+	/**
+	 * For the ExplorationStep this instance is attached to, lazily computed :
+	 * SATISFIED if its pattern contains a required item, otherwise the
+	 * smallest frequent required item (in its local base), or
+	 * Integer.MAX_VALUE if there's none.
+	 */
+	private volatile int firstRequired = UNKNOWN;
+
+	/**
+	 * @param initState
+	 *            the initial ExplorationStep, used to filter items
+	 * @param items
+	 *            required items (at least one of them), as original IDs
+	 */
+	public RequiredItemsSelector(ExplorationStep initState, int... items) {
+		this(frequentItems(initState, items), null);
+	}
+
+	private RequiredItemsSelector(BitSet required, Selector follower) {
+		super(follower);
+		this.required = required;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		return extension >= this.getFirstRequired(state);
+	}
+
+	private int getFirstRequired(ExplorationStep state) {
+		int first = this.firstRequired;
+		if (first == UNKNOWN) {
+			if (this.containsRequired(state.pattern)) {
+				first = SATISFIED;
+			} else {
+				first = Integer.MAX_VALUE;
+				final int[] supportCounts = state.counters.supportCounts;
+				final int[] reverseRenaming = state.counters.getReverseRenaming();
+				final int last = Math.min(supportCounts.length, reverseRenaming.length);
+				for (int i = 0; i < last; i++) {
+					if (supportCounts[i] > 0 && this.required.get(reverseRenaming[i])) {
+						first = i;
+						break;
+					}
+				}
+			}
+			this.firstRequired = first;
+		}
+		return first;
+	}
+
+	@Override
+	protected boolean allowExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		if (this.containsRequired(extendedPattern)) {
+			return true;
+		}
+
+		final int[] supportCounts = extensionCounters.supportCounts;
+		final int[] reverseRenaming = state.counters.getReverseRenaming();
+		final int last = Math.min(extension, supportCounts.length);
+		for (int i = 0; i < last; i++) {
+			if (supportCounts[i] > 0 && this.required.get(reverseRenaming[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean allowOutput(ExplorationStep step) {
+		return this.containsRequired(step.pattern);
+	}
+
+	private boolean containsRequired(int[] pattern) {
+		for (int item : pattern) {
+			if (this.required.get(item)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new RequiredItemsSelector(this.required, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
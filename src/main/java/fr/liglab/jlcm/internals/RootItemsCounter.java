@@ -0,0 +1,354 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import gnu.trove.iterator.TIntIntIterator;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Items counting over an initial dataset, for Counters' root constructor.
+ *
+ * Counts are stored in arrays indexed by item IDs, grown as needed. If arrays
+ * would be mostly empty (less than 1/SPARSE_RATIO of their cells used) or an
+ * item ID reaches DENSE_LIMIT, counting switches to hash maps. It switches back
+ * to arrays if the hash maps get dense enough (1/DENSE_RATIO of IDs up to the
+ * biggest one).
+ *
+ * When more than one thread is requested, the calling thread copies
+ * transactions in chunks, which are counted concurrently by other threads,
+ * each one in its own counter. Counters are merged at the end.
+ */
+final class RootItemsCounter {
+
+	/**
+	 * item IDs reaching this value switch counting to hash maps
+	 */
+	static final int DENSE_LIMIT = 1 << 24;
+
+	/**
+	 * arrays up to this length are always acceptable
+	 */
+	private static final int SMALL_LENGTH = 1 << 16;
+	private static final int SPARSE_RATIO = 8;
+	private static final int DENSE_RATIO = 2;
+
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private int[] supports = new int[1024];
+	private int[] distincts = new int[1024];
+	private TIntIntHashMap sparseSupports = null;
+	private TIntIntHashMap sparseDistincts = null;
+
+	/**
+	 * distinct items counted in arrays
+	 */
+	private int denseItems = 0;
+
+	/**
+	 * sparseSupports' size at which density will be checked again
+	 */
+	private int nextDensityCheck = 0;
+
+	int biggestItemID = 0;
+	int transactionsCount = 0;
+	int weightsSum = 0;
+
+	/**
+	 * @param nbThreads
+	 *            counting threads, 1 means counting in the calling thread
+	 */
+	static RootItemsCounter count(Iterator<TransactionReader> transactions, int nbThreads) {
+		if (nbThreads <= 1) {
+			RootItemsCounter counter = new RootItemsCounter();
+			while (transactions.hasNext()) {
+				counter.count(transactions.next());
+			}
+			return counter;
+		} else {
+			return countInParallel(transactions, nbThreads);
+		}
+	}
+
+	void count(TransactionReader transaction) {
+		final int weight = transaction.getTransactionSupport();
+		if (weight > 0) {
+			this.transactionsCount++;
+			this.weightsSum += weight;
+			while (transaction.hasNext()) {
+				this.add(transaction.next(), weight, 1);
+			}
+		}
+	}
+
+	private void add(final int item, final int support, final int distinct) {
+		if (item < 0) {
+			throw new IllegalArgumentException("Item IDs should not be negative, found " + item);
+		}
+		if (item > this.biggestItemID) {
+			this.biggestItemID = item;
+		}
+
+		if (this.sparseSupports == null) {
+			if (item >= this.supports.length) {
+				final int newLength = Math.max(2 * this.supports.length, item + 1);
+				if (item >= DENSE_LIMIT
+						|| (newLength > SMALL_LENGTH && (long) this.denseItems * SPARSE_RATIO < newLength)) {
+					this.switchToSparse();
+					this.add(item, support, distinct);
+					return;
+				}
+				this.supports = Arrays.copyOf(this.supports, Math.min(DENSE_LIMIT, newLength));
+				this.distincts = Arrays.copyOf(this.distincts, this.supports.length);
+			}
+			if (this.supports[item] == 0) {
+				this.denseItems++;
+			}
+			this.supports[item] += support;
+			this.distincts[item] += distinct;
+		} else {
+			this.sparseSupports.adjustOrPutValue(item, support, support);
+			this.sparseDistincts.adjustOrPutValue(item, distinct, distinct);
+			if (this.sparseSupports.size() >= this.nextDensityCheck) {
+				this.nextDensityCheck = 2 * this.sparseSupports.size();
+				if (this.biggestItemID < DENSE_LIMIT
+						&& (long) this.sparseSupports.size() * DENSE_RATIO > this.biggestItemID) {
+					this.switchToDense();
+				}
+			}
+		}
+	}
+
+	private void switchToSparse() {
+		this.sparseSupports = new TIntIntHashMap();
+		this.sparseDistincts = new TIntIntHashMap();
+		for (int item = 0; item < this.supports.length; item++) {
+			if (this.supports[item] > 0) {
+				this.sparseSupports.put(item, this.supports[item]);
+				this.sparseDistincts.put(item, this.distincts[item]);
+			}
+		}
+		this.supports = null;
+		this.distincts = null;
+		this.nextDensityCheck = Math.max(SMALL_LENGTH / DENSE_RATIO, 2 * this.sparseSupports.size());
+	}
+
+	private void switchToDense() {
+		this.supports = new int[this.biggestItemID + 1];
+		this.distincts = new int[this.biggestItemID + 1];
+		TIntIntIterator iterator = this.sparseSupports.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			this.supports[iterator.key()] = iterator.value();
+			this.distincts[iterator.key()] = this.sparseDistincts.get(iterator.key());
+		}
+		this.denseItems = this.sparseSupports.size();
+		this.sparseSupports = null;
+		this.sparseDistincts = null;
+	}
+
+	/**
+	 * @return true if counts are stored in hash maps
+	 */
+	boolean isSparse() {
+		return this.sparseSupports != null;
+	}
+
+	private void merge(RootItemsCounter other) {
+		this.transactionsCount += other.transactionsCount;
+		this.weightsSum += other.weightsSum;
+		if (other.sparseSupports == null) {
+			for (int item = 0; item < other.supports.length; item++) {
+				if (other.supports[item] > 0) {
+					this.add(item, other.supports[item], other.distincts[item]);
+				}
+			}
+		} else {
+			TIntIntIterator iterator = other.sparseSupports.iterator();
+			while (iterator.hasNext()) {
+				iterator.advance();
+				this.add(iterator.key(), iterator.value(), other.sparseDistincts.get(iterator.key()));
+			}
+		}
+	}
+
+	/**
+	 * @return IDs of items occurring at least once, in increasing order
+	 */
+	int[] getItems() {
+		if (this.sparseSupports == null) {
+			int nbItems = 0;
+			final int last = Math.min(this.biggestItemID + 1, this.supports.length);
+			for (int item = 0; item < last; item++) {
+				if (this.supports[item] > 0) {
+					nbItems++;
+				}
+			}
+			int[] items = new int[nbItems];
+			int i = 0;
+			for (int item = 0; item < last; item++) {
+				if (this.supports[item] > 0) {
+					items[i++] = item;
+				}
+			}
+			return items;
+		} else {
+			int[] items = this.sparseSupports.keys();
+			Arrays.sort(items);
+			return items;
+		}
+	}
+
+	int getSupport(int item) {
+		return (this.sparseSupports == null) ? this.supports[item] : this.sparseSupports.get(item);
+	}
+
+	int getDistinctTransactionsCount(int item) {
+		return (this.sparseSupports == null) ? this.distincts[item] : this.sparseDistincts.get(item);
+	}
+
+	private static final class Chunk {
+		int[] items = new int[CHUNK_SIZE];
+		int nbItems = 0;
+		int[] ends = new int[CHUNK_SIZE / 4];
+		int[] weights = new int[CHUNK_SIZE / 4];
+		int nbTransactions = 0;
+
+		/**
+		 * @return false if the chunk is full, once the transaction is added
+		 */
+		boolean add(TransactionReader transaction) {
+			this.weights[this.nbTransactions] = transaction.getTransactionSupport();
+			while (transaction.hasNext()) {
+				if (this.nbItems == this.items.length) {
+					this.items = Arrays.copyOf(this.items, 2 * this.items.length);
+				}
+				this.items[this.nbItems++] = transaction.next();
+			}
+			this.ends[this.nbTransactions++] = this.nbItems;
+			return this.nbTransactions < this.ends.length && this.nbItems < CHUNK_SIZE;
+		}
+
+		void countIn(RootItemsCounter counter) {
+			int start = 0;
+			for (int t = 0; t < this.nbTransactions; t++) {
+				final int weight = this.weights[t];
+				final int end = this.ends[t];
+				if (weight > 0) {
+					counter.transactionsCount++;
+					counter.weightsSum += weight;
+					for (int i = start; i < end; i++) {
+						counter.add(this.items[i], weight, 1);
+					}
+				}
+				start = end;
+			}
+		}
+	}
+
+	private static final Chunk END = new Chunk();
+
+	private static RootItemsCounter countInParallel(Iterator<TransactionReader> transactions, int nbThreads) {
+		final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<Chunk>(2 * nbThreads);
+		final RootItemsCounter[] counters = new RootItemsCounter[nbThreads];
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[nbThreads];
+
+		for (int i = 0; i < nbThreads; i++) {
+			final RootItemsCounter counter = new RootItemsCounter();
+			counters[i] = counter;
+			threads[i] = new Thread("RootItemsCounter" + i) {
+				@Override
+				public void run() {
+					try {
+						try {
+							for (Chunk chunk = queue.take(); chunk != END; chunk = queue.take()) {
+								chunk.countIn(counter);
+							}
+						} catch (InterruptedException e) {
+							throw e;
+						} catch (Throwable e) {
+							synchronized (failure) {
+								failure[0] = e;
+							}
+							// keeps consuming, so the reader is never blocked
+							while (queue.take() != END) {
+							}
+						}
+					} catch (InterruptedException e) {
+						// reading failed, counts are dropped
+					}
+				}
+			};
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+
+		// if reading fails, workers are interrupted instead of receiving END
+		boolean completed = false;
+		try {
+			Chunk chunk = new Chunk();
+			while (transactions.hasNext()) {
+				if (!chunk.add(transactions.next())) {
+					queue.put(chunk);
+					chunk = new Chunk();
+				}
+			}
+			if (chunk.nbTransactions > 0) {
+				queue.put(chunk);
+			}
+			for (int i = 0; i < nbThreads; i++) {
+				queue.put(END);
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			completed = true;
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (!completed) {
+				for (Thread thread : threads) {
+					thread.interrupt();
+				}
+			}
+		}
+
+		synchronized (failure) {
+			if (failure[0] instanceof RuntimeException) {
+				throw (RuntimeException) failure[0];
+			} else if (failure[0] != null) {
+				throw new RuntimeException(failure[0]);
+			}
+		}
+
+		RootItemsCounter merged = counters[0];
+		for (int i = 1; i < nbThreads; i++) {
+			merged.merge(counters[i]);
+		}
+		return merged;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.internals;
+
+import java.util.BitSet;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+
+/**
+ * Restricts the exploration to the sub-trees of some extensions of the initial
+ * ExplorationStep. Append it to the initial step : deeper steps are left
+ * untouched.
+ */
+public final class RootItemsSelector extends Selector {
+
+	private final BitSet allowed;
+
+	/**
+	 * @param rootItems
+	 *            allowed extensions, as internal item IDs of the initial step
+	 */
+	public RootItemsSelector(int[] rootItems) {
+		super();
+		this.allowed = new BitSet();
+		for (int item : rootItems) {
+			this.allowed.set(item);
+		}
+	}
+
+	private RootItemsSelector(BitSet allowed, Selector follower) {
+		super(follower);
+		this.allowed = allowed;
+	}
+
+	@Override
+	protected boolean allowExploration(int extension, ExplorationStep state) {
+		return state.parent != null || this.allowed.get(extension);
+	}
+
+	@Override
+	protected Selector copy(Selector newNext) {
+		return new RootItemsSelector(this.allowed, newNext);
+	}
+
+	@Override
+	protected PLCMCounters getCountersKey() {
+		return null;
+	}
+}
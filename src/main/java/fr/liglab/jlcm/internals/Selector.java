@@ -21,6 +21,8 @@
 
 package fr.liglab.jlcm.internals;
 
+import java.util.BitSet;
+
 import fr.liglab.jlcm.PLCM;
 import fr.liglab.jlcm.PLCM.PLCMCounters;
 
@@ -52,6 +54,35 @@ public abstract class Selector {
 	 */
 	abstract protected PLCMCounters getCountersKey();
 
+	/**
+	 * Invoked once an extension's support has been counted, before its
+	 * ExplorationStep is instanciated. Default implementation accepts any
+	 * extension.
+	 * 
+	 * @param extension
+	 *            in state's local base
+	 * @param extendedPattern
+	 *            closure of state's pattern U extension, in original item IDs
+	 * @param extensionCounters
+	 *            extension's counters, indexed in state's local base
+	 * @param state
+	 * @return false if no pattern of the extension's sub-tree can be accepted
+	 */
+	protected boolean allowExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		return true;
+	}
+
+	/**
+	 * Default implementation accepts any pattern.
+	 * 
+	 * @return false if step's pattern should not be collected - this does not
+	 *         prevent its sub-tree's exploration
+	 */
+	protected boolean allowOutput(ExplorationStep step) {
+		return true;
+	}
+
 	public Selector() {
 		this.next = null;
 	}
@@ -73,14 +104,39 @@ public abstract class Selector {
 		if (this.allowExploration(extension, state)) {
 			return (this.next == null || this.next.select(extension, state));
 		} else {
-			PLCMCounters key = this.getCountersKey();
-			if (key != null) {
-				((PLCM.PLCMThread) Thread.currentThread()).counters[key.ordinal()]++;
-			}
+			this.countRejection();
 			return false;
 		}
 	}
 
+	/**
+	 * Chained calls to allowExtension
+	 */
+	final boolean selectExtension(int extension, int[] extendedPattern, Counters extensionCounters,
+			ExplorationStep state) {
+		if (this.allowExtension(extension, extendedPattern, extensionCounters, state)) {
+			return (this.next == null || this.next.selectExtension(extension, extendedPattern, extensionCounters,
+					state));
+		} else {
+			this.countRejection();
+			return false;
+		}
+	}
+
+	/**
+	 * Chained calls to allowOutput
+	 */
+	final boolean selectOutput(ExplorationStep step) {
+		return this.allowOutput(step) && (this.next == null || this.next.selectOutput(step));
+	}
+
+	private void countRejection() {
+		PLCMCounters key = this.getCountersKey();
+		if (key != null) {
+			PLCM.incrementCounter(key);
+		}
+	}
+
 	/**
 	 * Note: prepending should simply be done by passing a chain at first
 	 * selector's instantiation. Appends the given selector at the end of
@@ -105,6 +161,36 @@ public abstract class Selector {
 		return this.next;
 	}
 
+	/**
+	 * @param initState
+	 *            an initial ExplorationStep
+	 * @param items
+	 *            original item IDs
+	 * @return given items which may appear in a pattern (ie. frequent in
+	 *         initState or belonging to its closure), in a BitSet indexed by
+	 *         original item IDs
+	 */
+	static BitSet frequentItems(ExplorationStep initState, int[] items) {
+		if (initState.parent != null) {
+			throw new IllegalArgumentException("Items constraints should be given to an initial ExplorationStep");
+		}
+		final int[] renaming = initState.counters.getRenaming();
+		BitSet filtered = new BitSet();
+		for (int item : items) {
+			if (item >= 0 && item < renaming.length && renaming[item] >= 0) {
+				filtered.set(item);
+			}
+		}
+		for (int item : initState.pattern) {
+			for (int given : items) {
+				if (given == item) {
+					filtered.set(item);
+				}
+			}
+		}
+		return filtered;
+	}
+
 	/**
 	 * Thrown when a Selector finds that an extension won't be the first parent
 	 * of its closed pattern (FirstParentTest should be the only one concerned)
@@ -28,8 +28,12 @@ import fr.liglab.jlcm.internals.Counters;
 public class IntConsecutiveItemsConcatenatedTidList extends ConsecutiveItemConcatenatedTidList {
 
 	public static boolean compatible(int maxTid, Counters c) {
+		return compatible(maxTid, c.distinctTransactionLengthSum);
+	}
+
+	public static boolean compatible(int maxTid, long transactionsLength) {
 		return maxTid < (Integer.MAX_VALUE/2) && 
-				c.distinctTransactionLengthSum < Integer.MAX_VALUE;
+				transactionsLength < Integer.MAX_VALUE;
 	}
 
 	private int[] array;
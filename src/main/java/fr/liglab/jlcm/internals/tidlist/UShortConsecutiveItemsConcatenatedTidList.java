@@ -28,8 +28,12 @@ import fr.liglab.jlcm.internals.Counters;
 public class UShortConsecutiveItemsConcatenatedTidList extends ConsecutiveItemConcatenatedTidList {
 
 	public static boolean compatible(int maxTid, Counters c) {
+		return compatible(maxTid, c.distinctTransactionLengthSum);
+	}
+
+	public static boolean compatible(int maxTid, long transactionsLength) {
 		return maxTid <= Character.MAX_VALUE
-				&& c.distinctTransactionLengthSum < Integer.MAX_VALUE;
+				&& transactionsLength < Integer.MAX_VALUE;
 	}
 
 	private char[] array;
@@ -28,8 +28,12 @@ import fr.liglab.jlcm.internals.Counters;
 public final class IntIndexedTransactionsList extends IndexedTransactionsList {
 
 	public static boolean compatible(Counters c) {
-		return c.distinctTransactionLengthSum < Integer.MAX_VALUE && 
-				c.distinctTransactionsCount < (Integer.MAX_VALUE/2);
+		return compatible(c.distinctTransactionLengthSum, c.distinctTransactionsCount);
+	}
+
+	public static boolean compatible(long transactionsLength, int nbTransactions) {
+		return transactionsLength < Integer.MAX_VALUE && 
+				nbTransactions < (Integer.MAX_VALUE/2);
 	}
 
 	public static int getMaxTransId(Counters c) {
@@ -29,9 +29,13 @@ public final class UShortIndexedTransactionsList extends IndexedTransactionsList
 	char[] concatenated;
 
 	public static boolean compatible(Counters c) {
-		return c.distinctTransactionLengthSum < Integer.MAX_VALUE && 
-				c.distinctTransactionsCount < (Integer.MAX_VALUE/2) && 
-				c.getMaxFrequent() < Character.MAX_VALUE;
+		return compatible(c.distinctTransactionLengthSum, c.distinctTransactionsCount, c.getMaxFrequent());
+	}
+
+	public static boolean compatible(long transactionsLength, int nbTransactions, int maxItem) {
+		return transactionsLength < Integer.MAX_VALUE && 
+				nbTransactions < (Integer.MAX_VALUE/2) && 
+				maxItem < Character.MAX_VALUE;
 	}
 
 	public static int getMaxTransId(Counters c) {
@@ -0,0 +1,317 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.util.ItemsetsTrie;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A thread-safe PatternsCollector that derives association rules from closed
+ * patterns.
+ *
+ * During the exploration, patterns are stored with their support in a prefix
+ * tree, keyed by items' IDs in the initial ExplorationStep (ie. by decreasing
+ * support). Once mining is over, close() generates in parallel, for each
+ * closed pattern C, the rules X => C \ X whose confidence is at least
+ * minConfidence. X's support is the greatest support among its stored
+ * supersets, ie. its closure's support.
+ *
+ * Consequents are enumerated level-wise, Apriori-style : if X => Y fails the
+ * confidence test, any rule from C with a consequent containing Y also fails,
+ * so it's never evaluated.
+ */
+public class AssociationRulesCollector implements PatternsCollector {
+
+	protected final RulesWriter decorated;
+	protected final double minConfidence;
+	protected final int nbThreads;
+
+	/**
+	 * Transactions count in the initial dataset, used to compute lift
+	 */
+	private final int transactionsCount;
+
+	/**
+	 * items renaming from their original ID to trie's keys
+	 */
+	private final int[] renaming;
+
+	/**
+	 * items renaming from trie's keys to their original ID
+	 */
+	private final int[] reverseRenaming;
+
+	/**
+	 * items contained in all transactions - they have negative keys in the
+	 * trie, -1 being the first one, etc.
+	 */
+	private final int[] rootClosure;
+
+	private final ItemsetsTrie trie = new ItemsetsTrie();
+	private final TIntArrayList patterns = new TIntArrayList();
+
+	private final AtomicLong rulesCount = new AtomicLong(0);
+	private final AtomicLong rulesLength = new AtomicLong(0);
+
+	/**
+	 * @param initState
+	 *            the initial ExplorationStep of the mining - its counters
+	 *            provide items' renaming
+	 * @param writer
+	 *            where rules will be written, by close()
+	 * @param minConfidence
+	 *            between 0 (excluded) and 1
+	 * @param nbThreads
+	 *            how many threads will generate rules
+	 */
+	public AssociationRulesCollector(ExplorationStep initState, RulesWriter writer, double minConfidence,
+			int nbThreads) {
+		if (initState.parent != null) {
+			throw new IllegalArgumentException("AssociationRulesCollector needs an initial ExplorationStep");
+		}
+		if (minConfidence <= 0 || minConfidence > 1) {
+			throw new IllegalArgumentException("minConfidence should be in ]0,1], given " + minConfidence);
+		}
+		if (nbThreads < 1) {
+			throw new IllegalArgumentException("nbThreads has to be > 0, given " + nbThreads);
+		}
+
+		this.decorated = writer;
+		this.minConfidence = minConfidence;
+		this.nbThreads = nbThreads;
+		this.transactionsCount = initState.counters.transactionsCount;
+		this.renaming = initState.counters.getRenaming();
+		this.reverseRenaming = initState.counters.getReverseRenaming();
+		this.rootClosure = initState.counters.closure;
+	}
+
+	public void collect(final ExplorationStep state) {
+		final int[] keys = new int[state.pattern.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = this.toKey(state.pattern[i]);
+		}
+		Arrays.sort(keys);
+
+		final int node = this.trie.add(keys, keys.length, state.counters.transactionsCount);
+		synchronized (this.patterns) {
+			this.patterns.add(node);
+		}
+	}
+
+	private int toKey(final int item) {
+		if (item < this.renaming.length && this.renaming[item] >= 0) {
+			return this.renaming[item];
+		}
+		for (int i = 0; i < this.rootClosure.length; i++) {
+			if (this.rootClosure[i] == item) {
+				return -i - 1;
+			}
+		}
+		throw new IllegalArgumentException("Item " + item + " is not frequent in the initial dataset");
+	}
+
+	private int toItem(final int key) {
+		if (key < 0) {
+			return this.rootClosure[-key - 1];
+		} else {
+			return this.reverseRenaming[key];
+		}
+	}
+
+	/**
+	 * Generates rules from all collected patterns, writes them to the enclosed
+	 * RulesWriter and closes it.
+	 *
+	 * @return outputted rules count
+	 */
+	public long close() {
+		final int[] nodes = this.patterns.toArray();
+		final AtomicInteger next = new AtomicInteger(0);
+
+		List<Thread> threads = new ArrayList<Thread>(this.nbThreads);
+		for (int i = 0; i < this.nbThreads; i++) {
+			threads.add(new Thread("AssociationRulesCollector-" + i) {
+				@Override
+				public void run() {
+					for (int j = next.getAndIncrement(); j < nodes.length; j = next.getAndIncrement()) {
+						generateRules(nodes[j]);
+					}
+				}
+			});
+		}
+
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		this.decorated.close();
+		return this.rulesCount.get();
+	}
+
+	/**
+	 * @return average length of rules (antecedent and consequent together)
+	 */
+	public int getAveragePatternLength() {
+		if (this.rulesCount.get() == 0) {
+			return 0;
+		} else {
+			return (int) (this.rulesLength.get() / this.rulesCount.get());
+		}
+	}
+
+	private void generateRules(final int node) {
+		final int[] pattern = this.trie.getItemset(node);
+		if (pattern.length < 2) {
+			return;
+		}
+
+		final int support = this.trie.getSupport(node);
+		final int[] antecedent = new int[pattern.length];
+
+		List<int[]> consequents = new ArrayList<int[]>();
+		for (int item : pattern) {
+			int[] consequent = new int[] { item };
+			if (this.evaluate(pattern, support, consequent, antecedent)) {
+				consequents.add(consequent);
+			}
+		}
+
+		for (int size = 2; size < pattern.length && consequents.size() >= size; size++) {
+			HashSet<TIntArrayList> previousLevel = new HashSet<TIntArrayList>(consequents.size());
+			for (int[] consequent : consequents) {
+				previousLevel.add(TIntArrayList.wrap(consequent));
+			}
+
+			List<int[]> nextLevel = new ArrayList<int[]>();
+
+			// consequents are sorted lexicographically, so those sharing
+			// their prefix are contiguous
+			for (int i = 0; i < consequents.size(); i++) {
+				final int[] a = consequents.get(i);
+				for (int j = i + 1; j < consequents.size(); j++) {
+					final int[] b = consequents.get(j);
+					if (!samePrefix(a, b)) {
+						break;
+					}
+
+					int[] candidate = new int[size];
+					System.arraycopy(a, 0, candidate, 0, size - 1);
+					candidate[size - 1] = b[size - 2];
+
+					if (allSubsetsIn(candidate, previousLevel) && this.evaluate(pattern, support, candidate, antecedent)) {
+						nextLevel.add(candidate);
+					}
+				}
+			}
+
+			consequents = nextLevel;
+		}
+	}
+
+	private static boolean samePrefix(final int[] a, final int[] b) {
+		for (int i = 0; i < a.length - 1; i++) {
+			if (a[i] != b[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Subsets obtained by removing candidate's last or last-but-one item are
+	 * known to be there, as candidate has been joined from them
+	 */
+	private static boolean allSubsetsIn(final int[] candidate, final HashSet<TIntArrayList> level) {
+		final int[] subset = new int[candidate.length - 1];
+		for (int removed = 0; removed < candidate.length - 2; removed++) {
+			System.arraycopy(candidate, 0, subset, 0, removed);
+			System.arraycopy(candidate, removed + 1, subset, removed, subset.length - removed);
+			if (!level.contains(TIntArrayList.wrap(subset))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes (pattern \ consequent) => consequent if it's confident enough
+	 *
+	 * @param antecedent
+	 *            a buffer as long as pattern
+	 * @return true if the rule has been written
+	 */
+	private boolean evaluate(final int[] pattern, final int support, final int[] consequent, final int[] antecedent) {
+		int length = 0;
+		int j = 0;
+		for (int item : pattern) {
+			if (j < consequent.length && consequent[j] == item) {
+				j++;
+			} else {
+				antecedent[length++] = item;
+			}
+		}
+
+		final int antecedentSupport = this.trie.getSupersetsMaxSupport(antecedent, length);
+		final double confidence = ((double) support) / antecedentSupport;
+
+		if (confidence < this.minConfidence) {
+			return false;
+		}
+
+		final int consequentSupport = this.trie.getSupersetsMaxSupport(consequent, consequent.length);
+		final double lift;
+		if (consequentSupport == 0) {
+			lift = Double.NaN;
+		} else {
+			lift = confidence * this.transactionsCount / consequentSupport;
+		}
+
+		int[] antecedentItems = new int[length];
+		for (int i = 0; i < length; i++) {
+			antecedentItems[i] = this.toItem(antecedent[i]);
+		}
+		int[] consequentItems = new int[consequent.length];
+		for (int i = 0; i < consequent.length; i++) {
+			consequentItems[i] = this.toItem(consequent[i]);
+		}
+
+		this.decorated.collect(antecedentItems, consequentItems, support, confidence, lift);
+		this.rulesCount.incrementAndGet();
+		this.rulesLength.addAndGet(pattern.length);
+		return true;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+/**
+ * A PatternsCollector whose output can be rolled back to a checkpoint, so an
+ * interrupted exploration can be resumed without duplicating patterns.
+ * 
+ * PLCM calls checkpoint() while all mining threads are paused, and restore()
+ * before resuming threads, so implementations don't have to synchronize these
+ * methods with collect().
+ * 
+ * @see fr.liglab.jlcm.Checkpoint
+ */
+public interface CheckpointableCollector extends PatternsCollector {
+
+	/**
+	 * Ensures all patterns collected so far are written
+	 * 
+	 * @return collector's state, as small as possible : it will be stored in
+	 *         the checkpoint file
+	 */
+	public long[] checkpoint();
+
+	/**
+	 * Discards all patterns collected after the checkpoint
+	 * 
+	 * @param state
+	 *            as returned by checkpoint(), maybe by another instance in a
+	 *            previous run
+	 */
+	public void restore(long[] state);
+}
@@ -34,7 +34,7 @@ import java.nio.charset.Charset;
  * a thread-unsafe PatternsCollector that write to the path provided at instanciation
  * @see MultiThreadedFileCollector
  */
-public class FileCollector extends PatternsWriter {
+public class FileCollector extends PatternsWriter implements CheckpointableCollector {
 	
 	// this should be profiled and tuned !
 	protected static final int BUFFER_CAPACITY = 4096;
@@ -47,13 +47,24 @@ public class FileCollector extends PatternsWriter {
 	protected static final Charset charset = Charset.forName("ASCII");
 	
 	public FileCollector(final String path) throws IOException {
+		this(path, false);
+	}
+	
+	/**
+	 * @param path
+	 * @param resume
+	 *            if true, file's current content is kept : call restore() before
+	 *            resuming the exploration, to truncate it back to the checkpoint
+	 * @throws IOException
+	 */
+	public FileCollector(final String path, final boolean resume) throws IOException {
 		File file = new File(path);
 		
-		if (file.exists()) {
+		if (file.exists() && !resume) {
 			System.err.println("Warning : overwriting output file "+path);
 		}
 		
-		this.stream = new FileOutputStream(file, false);
+		this.stream = new FileOutputStream(file, resume);
 		this.channel = this.stream.getChannel();
 		
 		this.buffer = ByteBuffer.allocateDirect(BUFFER_CAPACITY);
@@ -126,6 +137,30 @@ public class FileCollector extends PatternsWriter {
 		return this.collected;
 	}
 
+	/**
+	 * @return {written bytes, collected patterns, their lengths' sum}
+	 */
+	public long[] checkpoint() {
+		try {
+			flush();
+			this.channel.force(false);
+			return new long[] { this.channel.position(), this.collected, this.collectedLength };
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	public void restore(long[] state) {
+		try {
+			this.buffer.clear();
+			this.channel.truncate(state[0]);
+			this.collected = state[1];
+			this.collectedLength = state[2];
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	public int getAveragePatternLength() {
 		if (this.collected == 0) {
 			return 0;
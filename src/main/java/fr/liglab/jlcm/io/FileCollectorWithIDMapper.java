@@ -1,25 +1,80 @@
 package fr.liglab.jlcm.io;
 
 import java.io.IOException;
-import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class FileCollectorWithIDMapper extends FileCollector {
 	private final Map<Integer, String> map;
+	private final MappedItemsDictionary dictionary;
 	
 	public FileCollectorWithIDMapper(String path, Map<Integer, String> itemIDmap) throws IOException {
-		super(path);
+		this(path, itemIDmap, false);
+	}
+	
+	/**
+	 * @see FileCollector#FileCollector(String, boolean)
+	 */
+	public FileCollectorWithIDMapper(String path, Map<Integer, String> itemIDmap, boolean resume) throws IOException {
+		super(path, resume);
 		this.map = itemIDmap;
+		this.dictionary = null;
+	}
+	
+	/**
+	 * Items' names are copied directly from the dictionary's mapping
+	 * @param dictionary
+	 * 			will be duplicated, so the given instance can be shared by many collectors
+	 * @see FileCollector#FileCollector(String, boolean)
+	 */
+	public FileCollectorWithIDMapper(String path, MappedItemsDictionary dictionary, boolean resume) throws IOException {
+		super(path, resume);
+		this.map = null;
+		this.dictionary = dictionary.duplicate();
 	}
 	
 	@Override
 	protected void putItem(int i) {
-		try {
+		if (this.dictionary == null) {
 			byte[] asBytes = this.map.get(i).getBytes(charset);
-			buffer.put(asBytes);
-		} catch (BufferOverflowException e) {
+			if (makeRoom(asBytes.length)) {
+				this.buffer.put(asBytes);
+			} else {
+				write(ByteBuffer.wrap(asBytes));
+			}
+		} else {
+			final int length = this.dictionary.getNameLength(i);
+			if (makeRoom(length)) {
+				this.dictionary.putName(i, this.buffer);
+			} else {
+				ByteBuffer name = ByteBuffer.allocate(length);
+				this.dictionary.putName(i, name);
+				name.flip();
+				write(name);
+			}
+		}
+	}
+	
+	/**
+	 * @return false if length bytes can't fit in the buffer, even after flushing it
+	 */
+	private boolean makeRoom(int length) {
+		if (length > this.buffer.remaining()) {
 			flush();
-			putItem(i);
+		}
+		return length <= this.buffer.remaining();
+	}
+	
+	/**
+	 * writes directly to the channel, assuming the buffer has been flushed
+	 */
+	private void write(ByteBuffer bytes) {
+		try {
+			while (bytes.hasRemaining()) {
+				this.channel.write(bytes);
+			}
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
 		}
 	}
 }
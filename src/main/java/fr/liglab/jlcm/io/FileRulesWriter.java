@@ -0,0 +1,159 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * A thread-safe RulesWriter that writes to the path provided at instanciation,
+ * one rule per line :
+ *
+ * antecedent items => consequent items [TAB] support [TAB] confidence [TAB] lift
+ *
+ * Items are separated by spaces, confidence and lift are written with 4
+ * decimals.
+ */
+public class FileRulesWriter implements RulesWriter {
+
+	// same as FileCollector
+	protected static final int BUFFER_CAPACITY = 4096;
+	protected static final Charset charset = Charset.forName("ASCII");
+
+	protected long collected = 0;
+	protected final FileOutputStream stream;
+	protected final FileChannel channel;
+	protected final ByteBuffer buffer;
+
+	public FileRulesWriter(final String path) throws IOException {
+		File file = new File(path);
+
+		if (file.exists()) {
+			System.err.println("Warning : overwriting output file " + path);
+		}
+
+		this.stream = new FileOutputStream(file, false);
+		this.channel = this.stream.getChannel();
+
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_CAPACITY);
+		this.buffer.clear();
+	}
+
+	public void collect(final int[] antecedent, final int[] consequent, final int support,
+			final double confidence, final double lift) {
+
+		StringBuilder line = new StringBuilder();
+		this.appendItems(line, antecedent);
+		line.append(" => ");
+		this.appendItems(line, consequent);
+		line.append('\t');
+		line.append(support);
+		line.append('\t');
+		appendDecimal(line, confidence);
+		line.append('\t');
+		appendDecimal(line, lift);
+		line.append('\n');
+
+		final byte[] bytes = line.toString().getBytes(charset);
+
+		synchronized (this) {
+			this.put(bytes);
+			this.collected++;
+		}
+	}
+
+	protected void appendItems(final StringBuilder line, final int[] items) {
+		for (int i = 0; i < items.length; i++) {
+			if (i > 0) {
+				line.append(' ');
+			}
+			this.appendItem(line, items[i]);
+		}
+	}
+
+	protected void appendItem(final StringBuilder line, final int item) {
+		line.append(item);
+	}
+
+	/**
+	 * Appends value with 4 decimals, avoiding String.format's cost
+	 */
+	static void appendDecimal(final StringBuilder line, final double value) {
+		final long scaled = Math.round(value * 10000);
+		line.append(scaled / 10000);
+		line.append('.');
+		final long decimals = scaled % 10000;
+		if (decimals < 1000) {
+			line.append('0');
+			if (decimals < 100) {
+				line.append('0');
+				if (decimals < 10) {
+					line.append('0');
+				}
+			}
+		}
+		line.append(decimals);
+	}
+
+	private void put(final byte[] bytes) {
+		if (bytes.length > this.buffer.remaining()) {
+			this.flush();
+			if (bytes.length > this.buffer.remaining()) {
+				this.write(ByteBuffer.wrap(bytes));
+				return;
+			}
+		}
+		this.buffer.put(bytes);
+	}
+
+	protected void flush() {
+		this.buffer.flip();
+		this.write(this.buffer);
+		this.buffer.clear();
+	}
+
+	private void write(final ByteBuffer data) {
+		try {
+			while (data.hasRemaining()) {
+				this.channel.write(data);
+			}
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+	}
+
+	public synchronized long close() {
+		try {
+			flush();
+			this.channel.close();
+			this.stream.close();
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+
+		return this.collected;
+	}
+}
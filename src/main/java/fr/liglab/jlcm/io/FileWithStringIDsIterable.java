@@ -1,51 +1,350 @@
 package fr.liglab.jlcm.io;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import fr.liglab.jlcm.internals.TransactionReader;
 
 /**
- * Parse a dataset as a text file, where each line represents a transaction and contains 
- * single-space-separated item IDs
+ * Parse a dataset as a text file, where each line represents a transaction and contains
+ * single-space-separated item IDs. Item IDs can be any string, they are translated to
+ * integers by an ItemsDictionary.
+ *
+ * The first iterator() tokenizes the file's bytes directly, and copies translated
+ * transactions to memory pages (like FileReader). Once it has been completely iterated,
+ * following iterator() read these copies and never open the file again. Empty lines are
+ * ignored.
  */
 public final class FileWithStringIDsIterable implements Iterable<TransactionReader> {
-	
-	private FileWithStringIDsReader previous = null;
-	private Map<String, Integer> map = null;
+
+	private static final int READ_BUFFER_SIZE = 64*1024;
+
+	/**
+	 * Transactions are stored in pages as [length, items...], a page's last transaction
+	 * is followed by -1 if it doesn't end the page.
+	 */
+	private static final int COPY_PAGES_SIZE = 1024*1024;
+
 	private final String path;
-	
+	private final ItemsDictionary dictionary;
+
+	/**
+	 * null until a first iteration completes
+	 */
+	private List<int[]> pages = null;
+	private Loader loading = null;
+
 	public FileWithStringIDsIterable(String filename) {
+		this(filename, new ItemsDictionary());
+	}
+
+	/**
+	 * @param dictionary
+	 *            known item IDs are kept, unknown ones are added to it
+	 */
+	public FileWithStringIDsIterable(String filename, ItemsDictionary dictionary) {
 		this.path = filename;
+		this.dictionary = dictionary;
 	}
-	
+
 	@Override
 	public Iterator<TransactionReader> iterator() {
-		FileWithStringIDsReader iterator;
-		
-		if (this.previous == null) {
-			iterator = new FileWithStringIDsReader(path);
-		} else {
-			if (this.map == null) {
-				this.map = this.previous.close();
-			} else {
-				this.previous.close();
-			}
-			iterator = new FileWithStringIDsReader(path, this.map);
+		if (this.pages != null) {
+			return new CopyIterator(this.pages);
+		}
+		if (this.loading != null) {
+			this.loading.close();
 		}
-		
-		this.previous = iterator;
-		
-		return iterator;
+		this.loading = new Loader();
+		return this.loading;
 	}
-	
+
+	public ItemsDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * @return Map(file's item ID, internal integer ID)
+	 */
 	public Map<String, Integer> getMap() {
-		return map;
+		return this.dictionary.toMap();
 	}
-	
+
+	/**
+	 * Closes the file if it's still being read and releases copied transactions
+	 */
 	public void close() {
-		if (this.previous != null) {
-			this.previous.close();
+		if (this.loading != null) {
+			this.loading.close();
+			this.loading = null;
+		}
+		this.pages = null;
+	}
+
+	/**
+	 * Reads the file, translating and copying transactions
+	 */
+	private final class Loader implements Iterator<TransactionReader> {
+
+		private FileInputStream input;
+		private byte[] buffer = new byte[READ_BUFFER_SIZE];
+		private int position = 0;
+		private int limit = 0;
+
+		private final List<int[]> copied = new ArrayList<int[]>();
+		private int[] page;
+		private int used = 0;
+
+		/**
+		 * current transaction is in page[transactionStart+1, transactionStart+1+transactionLength[
+		 */
+		private int transactionStart;
+		private int transactionLength;
+		private boolean ready = false;
+
+		private final CopyReader reader = new CopyReader();
+
+		Loader() {
+			try {
+				this.input = new FileInputStream(path);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			this.page = new int[COPY_PAGES_SIZE];
+			this.copied.add(this.page);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!this.ready && this.input != null) {
+				try {
+					this.ready = this.readTransaction();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				if (!this.ready) {
+					this.finish();
+				}
+			}
+			return this.ready;
+		}
+
+		@Override
+		public TransactionReader next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.ready = false;
+			final int from = this.transactionStart + 1;
+			this.reader.setup(this.page, from, from + this.transactionLength);
+			return this.reader;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Copies the next non-empty line's items to the current page
+		 *
+		 * @return false if the file has been entirely read
+		 */
+		private boolean readTransaction() throws IOException {
+			int tokenStart = -1;
+			this.startTransaction();
+
+			while (true) {
+				if (this.position == this.limit) {
+					final int kept = (tokenStart < 0) ? this.limit : tokenStart;
+					if (!this.fill(kept)) {
+						if (tokenStart >= 0) {
+							this.addItem(dictionary.intern(this.buffer, 0, this.position));
+						}
+						break;
+					}
+					if (tokenStart >= 0) {
+						tokenStart = 0;
+					}
+				}
+
+				final byte b = this.buffer[this.position];
+				if (b == ' ' || b == '\n' || b == '\r') {
+					if (tokenStart >= 0) {
+						this.addItem(dictionary.intern(this.buffer, tokenStart, this.position));
+						tokenStart = -1;
+					}
+					this.position++;
+					if (b == '\n' && this.transactionLength > 0) {
+						break;
+					}
+				} else {
+					if (tokenStart < 0) {
+						tokenStart = this.position;
+					}
+					this.position++;
+				}
+			}
+
+			if (this.transactionLength > 0) {
+				this.page[this.transactionStart] = this.transactionLength;
+				this.used = this.transactionStart + 1 + this.transactionLength;
+				return true;
+			} else {
+				return false;
+			}
+		}
+
+		/**
+		 * Moves buffer[kept, limit[ to the buffer's beginning, then reads the file
+		 * after it. Position is set after moved bytes.
+		 *
+		 * @return false at the end of file
+		 */
+		private boolean fill(int kept) throws IOException {
+			final int keptLength = this.limit - kept;
+			if (keptLength == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+			} else {
+				System.arraycopy(this.buffer, kept, this.buffer, 0, keptLength);
+			}
+			this.position = keptLength;
+			this.limit = keptLength;
+
+			final int read = this.input.read(this.buffer, keptLength, this.buffer.length - keptLength);
+			if (read > 0) {
+				this.limit += read;
+				return true;
+			} else {
+				return false;
+			}
+		}
+
+		private void startTransaction() {
+			if (this.used == this.page.length) {
+				this.page = new int[COPY_PAGES_SIZE];
+				this.copied.add(this.page);
+				this.used = 0;
+			}
+			this.transactionStart = this.used;
+			this.transactionLength = 0;
+		}
+
+		private void addItem(int item) {
+			int index = this.transactionStart + 1 + this.transactionLength;
+			if (index == this.page.length) {
+				// moves the current transaction to a new page, big enough
+				int[] previous = this.page;
+				this.page = new int[Math.max(COPY_PAGES_SIZE, 2 * (this.transactionLength + 1))];
+				this.copied.add(this.page);
+				System.arraycopy(previous, this.transactionStart + 1, this.page, 1, this.transactionLength);
+				previous[this.transactionStart] = -1;
+				this.transactionStart = 0;
+				index = 1 + this.transactionLength;
+			}
+			this.page[index] = item;
+			this.transactionLength++;
+		}
+
+		private void finish() {
+			if (this.used < this.page.length) {
+				this.page[this.used] = -1;
+			}
+			this.close();
+			if (loading == this) {
+				pages = this.copied;
+				loading = null;
+			}
+		}
+
+		void close() {
+			if (this.input != null) {
+				try {
+					this.input.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				this.input = null;
+			}
+		}
+	}
+
+	/**
+	 * Iterates over transactions copied by a Loader
+	 */
+	private static final class CopyIterator implements Iterator<TransactionReader> {
+
+		private final Iterator<int[]> pagesIterator;
+		private int[] page = null;
+		private int index = 0;
+		private final CopyReader reader = new CopyReader();
+
+		CopyIterator(List<int[]> pages) {
+			this.pagesIterator = pages.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.page == null || this.index == this.page.length || this.page[this.index] == -1) {
+				if (this.pagesIterator.hasNext()) {
+					this.page = this.pagesIterator.next();
+					this.index = 0;
+				} else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public TransactionReader next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final int from = this.index + 1;
+			final int to = from + this.page[this.index];
+			this.reader.setup(this.page, from, to);
+			this.index = to;
+			return this.reader;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final class CopyReader implements TransactionReader {
+
+		private int[] source;
+		private int i;
+		private int end;
+
+		void setup(int[] array, int from, int to) {
+			this.source = array;
+			this.i = from;
+			this.end = to;
+		}
+
+		@Override
+		public int getTransactionSupport() {
+			return 1;
+		}
+
+		@Override
+		public int next() {
+			return this.source[this.i++];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.i < this.end;
 		}
 	}
 }
@@ -0,0 +1,281 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns consecutive integer IDs (starting at 0) to item names, given as
+ * bytes. Names are stored back-to-back in a single byte array, and looked up
+ * in an open-addressing hash table, so interning a token read from a byte
+ * buffer does not create any object.
+ *
+ * It can be saved with writeTo(), then read() again in another run - or
+ * opened as a MappedItemsDictionary, to translate IDs back to names without
+ * loading them in the heap.
+ *
+ * Not thread-safe.
+ */
+public final class ItemsDictionary {
+
+	static final Charset charset = Charset.forName("UTF-8");
+
+	private byte[] names = new byte[1 << 16];
+	private int namesLength = 0;
+
+	/**
+	 * names' starting offsets, item i's name is in names[offsets[i], offsets[i+1][
+	 */
+	private int[] offsets = new int[1025];
+	private int[] hashes = new int[1024];
+	private int size = 0;
+
+	/**
+	 * contains item IDs + 1, 0 meaning the slot is empty. Its length is a power
+	 * of 2, and it is never more than half full.
+	 */
+	private int[] table = new int[2048];
+
+	/**
+	 * @return the item ID associated to bytes[from, to[, or -1 if it's unknown
+	 */
+	public int get(byte[] bytes, int from, int to) {
+		final int hash = hash(bytes, from, to);
+		final int mask = this.table.length - 1;
+		for (int slot = hash & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+			final int id = this.table[slot] - 1;
+			if (this.hashes[id] == hash && this.nameEquals(id, bytes, from, to)) {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	public int get(String name) {
+		final byte[] bytes = name.getBytes(charset);
+		return this.get(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * @return the item ID associated to bytes[from, to[, which is assigned if
+	 *         the name was unknown
+	 */
+	public int intern(byte[] bytes, int from, int to) {
+		final int hash = hash(bytes, from, to);
+		final int mask = this.table.length - 1;
+		int slot = hash & mask;
+		for (; this.table[slot] != 0; slot = (slot + 1) & mask) {
+			final int id = this.table[slot] - 1;
+			if (this.hashes[id] == hash && this.nameEquals(id, bytes, from, to)) {
+				return id;
+			}
+		}
+
+		final int id = this.size;
+		final int length = to - from;
+		if (this.namesLength + length > this.names.length) {
+			this.names = Arrays.copyOf(this.names, Math.max(2 * this.names.length, this.namesLength + length));
+		}
+		System.arraycopy(bytes, from, this.names, this.namesLength, length);
+		this.namesLength += length;
+
+		if (id == this.hashes.length) {
+			this.hashes = Arrays.copyOf(this.hashes, 2 * this.hashes.length);
+			this.offsets = Arrays.copyOf(this.offsets, this.hashes.length + 1);
+		}
+		this.hashes[id] = hash;
+		this.offsets[id + 1] = this.namesLength;
+		this.size++;
+
+		this.table[slot] = id + 1;
+		if (2 * this.size > this.table.length) {
+			this.rehash();
+		}
+		return id;
+	}
+
+	public int intern(String name) {
+		final byte[] bytes = name.getBytes(charset);
+		return this.intern(bytes, 0, bytes.length);
+	}
+
+	private void rehash() {
+		this.table = new int[2 * this.table.length];
+		this.fillTable();
+	}
+
+	/**
+	 * fills the table, which should be empty
+	 */
+	private void fillTable() {
+		final int mask = this.table.length - 1;
+		for (int id = 0; id < this.size; id++) {
+			int slot = this.hashes[id] & mask;
+			while (this.table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			this.table[slot] = id + 1;
+		}
+	}
+
+	private boolean nameEquals(int id, byte[] bytes, int from, int to) {
+		final int start = this.offsets[id];
+		if (this.offsets[id + 1] - start != to - from) {
+			return false;
+		}
+		for (int i = from, j = start; i < to; i++, j++) {
+			if (bytes[i] != this.names[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * FNV-1a, with a final mix because only lowest bits are used as slot
+	 */
+	private static int hash(byte[] bytes, int from, int to) {
+		int hash = 0x811c9dc5;
+		for (int i = from; i < to; i++) {
+			hash = (hash ^ bytes[i]) * 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * @return how many names have been interned
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public String getName(int id) {
+		if (id < 0 || id >= this.size) {
+			throw new IllegalArgumentException("Unknown item ID " + id);
+		}
+		return new String(this.names, this.offsets[id], this.offsets[id + 1] - this.offsets[id], charset);
+	}
+
+	/**
+	 * @return Map(item name, item ID)
+	 */
+	public Map<String, Integer> toMap() {
+		Map<String, Integer> map = new HashMap<String, Integer>(2 * this.size);
+		for (int id = 0; id < this.size; id++) {
+			map.put(this.getName(id), id);
+		}
+		return map;
+	}
+
+	/**
+	 * @return Map(item ID, item name), as expected by FileCollectorWithIDMapper
+	 */
+	public Map<Integer, String> toReverseMap() {
+		Map<Integer, String> map = new HashMap<Integer, String>(2 * this.size);
+		for (int id = 0; id < this.size; id++) {
+			map.put(id, this.getName(id));
+		}
+		return map;
+	}
+
+	/**
+	 * Writes the dictionary in MappedItemsDictionary's format
+	 */
+	public void writeTo(String path) throws IOException {
+		Integer[] sorted = new Integer[this.size];
+		for (int id = 0; id < this.size; id++) {
+			sorted[id] = id;
+		}
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return compareNames(a, b);
+			}
+		});
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		try {
+			output.writeInt(MappedItemsDictionary.MAGIC);
+			output.writeInt(this.size);
+			output.writeInt(this.namesLength);
+			for (int id = 0; id <= this.size; id++) {
+				output.writeInt(this.offsets[id]);
+			}
+			for (Integer id : sorted) {
+				output.writeInt(id);
+			}
+			output.write(this.names, 0, this.namesLength);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * compares names as unsigned bytes
+	 */
+	private int compareNames(int a, int b) {
+		final int aEnd = this.offsets[a + 1];
+		final int bEnd = this.offsets[b + 1];
+		for (int i = this.offsets[a], j = this.offsets[b]; i < aEnd && j < bEnd; i++, j++) {
+			final int difference = (this.names[i] & 0xff) - (this.names[j] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return (aEnd - this.offsets[a]) - (bEnd - this.offsets[b]);
+	}
+
+	/**
+	 * @param path
+	 *            a file written by writeTo()
+	 * @return a dictionary with the same IDs, to which new names can be added
+	 */
+	public static ItemsDictionary read(String path) throws IOException {
+		MappedItemsDictionary mapped = new MappedItemsDictionary(path);
+		ItemsDictionary dictionary = new ItemsDictionary();
+		final int size = mapped.size;
+
+		dictionary.names = new byte[Math.max(dictionary.names.length, mapped.names.limit())];
+		mapped.names.get(dictionary.names, 0, mapped.names.limit());
+		dictionary.namesLength = mapped.names.limit();
+
+		final int capacity = Math.max(dictionary.hashes.length, Integer.highestOneBit(size) << 1);
+		dictionary.hashes = new int[capacity];
+		dictionary.offsets = new int[capacity + 1];
+		mapped.offsets.get(dictionary.offsets, 0, size + 1);
+		for (int id = 0; id < size; id++) {
+			dictionary.hashes[id] = hash(dictionary.names, dictionary.offsets[id], dictionary.offsets[id + 1]);
+		}
+		dictionary.size = size;
+
+		dictionary.table = new int[Math.max(dictionary.table.length, Integer.highestOneBit(size) << 2)];
+		dictionary.fillTable();
+		return dictionary;
+	}
+}
@@ -0,0 +1,182 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only, memory-mapped view of a dictionary file written by
+ * ItemsDictionary.writeTo(). The file contains, as big-endian integers :
+ *
+ * - MAGIC, the count of items N and the names' total length in bytes
+ *
+ * - N+1 offsets : item i's name is in names[offsets[i], offsets[i+1][
+ *
+ * - N item IDs, sorted by their names (compared as unsigned bytes)
+ *
+ * - names, concatenated in item IDs' order
+ *
+ * So translating an item ID to its name only copies bytes from the mapping,
+ * and a name is found by binary search. Nothing is loaded in the heap.
+ *
+ * An instance is not thread-safe : give a duplicate() to each thread.
+ */
+public final class MappedItemsDictionary {
+
+	static final int MAGIC = 0x6a4c4344;
+	static final int HEADER_SIZE = 12;
+
+	final int size;
+	final IntBuffer offsets;
+	final IntBuffer sorted;
+	final ByteBuffer names;
+
+	public MappedItemsDictionary(String path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.limit() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+				throw new IOException(path + " is not an items dictionary");
+			}
+			this.size = mapped.getInt(4);
+			final int namesLength = mapped.getInt(8);
+			final int namesStart = HEADER_SIZE + 4 * (2 * this.size + 1);
+			if (this.size < 0 || namesLength < 0 || mapped.limit() != namesStart + namesLength) {
+				throw new IOException(path + " is truncated or corrupted");
+			}
+
+			mapped.position(HEADER_SIZE);
+			this.offsets = slice(mapped, 4 * (this.size + 1)).asIntBuffer();
+			this.sorted = slice(mapped, 4 * this.size).asIntBuffer();
+			this.names = slice(mapped, namesLength);
+		} finally {
+			// the mapping remains valid once its channel is closed
+			file.close();
+		}
+	}
+
+	private MappedItemsDictionary(MappedItemsDictionary other) {
+		this.size = other.size;
+		this.offsets = other.offsets.duplicate();
+		this.sorted = other.sorted.duplicate();
+		this.names = other.names.duplicate();
+	}
+
+	/**
+	 * @return the next length bytes from buffer's position, which is moved
+	 *         after them
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int length) {
+		ByteBuffer slice = buffer.slice();
+		slice.limit(length);
+		buffer.position(buffer.position() + length);
+		return slice;
+	}
+
+	/**
+	 * @return a view on the same mapping, to be used by another thread
+	 */
+	public MappedItemsDictionary duplicate() {
+		return new MappedItemsDictionary(this);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public int getNameLength(int id) {
+		return this.offsets.get(id + 1) - this.offsets.get(id);
+	}
+
+	/**
+	 * Copies item's name to destination, at its current position
+	 *
+	 * @throws java.nio.BufferOverflowException
+	 *             if destination's remaining space is smaller than
+	 *             getNameLength(id) - then nothing is copied
+	 */
+	public void putName(int id, ByteBuffer destination) {
+		final int start = this.offsets.get(id);
+		final int end = this.offsets.get(id + 1);
+		this.names.limit(end).position(start);
+		destination.put(this.names);
+		this.names.limit(this.names.capacity());
+	}
+
+	public String getName(int id) {
+		if (id < 0 || id >= this.size) {
+			throw new IllegalArgumentException("Unknown item ID " + id);
+		}
+		byte[] bytes = new byte[this.getNameLength(id)];
+		this.names.limit(this.offsets.get(id + 1)).position(this.offsets.get(id));
+		this.names.get(bytes);
+		this.names.limit(this.names.capacity());
+		return new String(bytes, ItemsDictionary.charset);
+	}
+
+	/**
+	 * @return the item ID associated to bytes[from, to[, or -1 if it's unknown
+	 */
+	public int get(byte[] bytes, int from, int to) {
+		int low = 0;
+		int high = this.size - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int id = this.sorted.get(middle);
+			final int comparison = this.compare(id, bytes, from, to);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	public int get(String name) {
+		final byte[] bytes = name.getBytes(ItemsDictionary.charset);
+		return this.get(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * compares item's name to bytes[from, to[, as unsigned bytes
+	 */
+	private int compare(int id, byte[] bytes, int from, int to) {
+		final int start = this.offsets.get(id);
+		final int end = this.offsets.get(id + 1);
+		for (int i = start, j = from; i < end && j < to; i++, j++) {
+			final int difference = (this.names.get(i) & 0xff) - (bytes[j] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return (end - start) - (to - from);
+	}
+}
@@ -0,0 +1,224 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.Selector;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.util.SupersetIndex;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+/**
+ * A thread-safe PatternsCollector that only transmits maximal patterns (ie.
+ * frequent patterns having no frequent superset) to the enclosed
+ * PatternsWriter.
+ *
+ * A closed pattern may be maximal only if its ExplorationStep has no frequent
+ * item (nbFrequents == 0). However projected datasets may have been compressed,
+ * so such leaves are checked against already-emitted maximal patterns, then
+ * against the initial dataset.
+ *
+ * Append the Selector given by getSelector() to the initial ExplorationStep :
+ * it prunes sub-trees whose patterns would all be included in an
+ * already-emitted maximal pattern.
+ */
+public class MaximalCollector implements PatternsCollector {
+
+	protected final PatternsWriter decorated;
+
+	/**
+	 * Emitted patterns, sorted, in original item IDs
+	 */
+	private final SupersetIndex maximals = new SupersetIndex();
+
+	private final AtomicLong collected = new AtomicLong(0);
+	private final AtomicLong collectedLength = new AtomicLong(0);
+
+	public MaximalCollector(PatternsWriter wrapped) {
+		this.decorated = wrapped;
+	}
+
+	public void collect(final ExplorationStep state) {
+		if (state.counters.nbFrequents > 0) {
+			return;
+		}
+
+		final int[] sorted = Arrays.copyOf(state.pattern, state.pattern.length);
+		Arrays.sort(sorted);
+
+		if (this.maximals.containsSuperset(sorted, sorted.length) || !hasNoFrequentSuperset(state)) {
+			return;
+		}
+
+		this.maximals.add(sorted);
+		this.collected.incrementAndGet();
+		this.collectedLength.addAndGet(sorted.length);
+		this.decorated.collect(state.counters.transactionsCount, state.pattern, state.pattern.length);
+	}
+
+	/**
+	 * Counts items co-occurring with the state's pattern in the initial
+	 * dataset, which is never compressed.
+	 */
+	private static boolean hasNoFrequentSuperset(final ExplorationStep state) {
+		ExplorationStep root = state;
+		while (root.parent != null) {
+			root = root.parent;
+		}
+
+		final int minSupport = state.counters.minSupport;
+		final int[] renaming = root.counters.getRenaming();
+		final int[] rootSupports = root.counters.supportCounts;
+
+		TIntArrayList pattern = new TIntArrayList(state.pattern.length);
+		int rarest = -1;
+		for (int item : state.pattern) {
+			if (item < renaming.length && renaming[item] >= 0) {
+				final int renamed = renaming[item];
+				pattern.add(renamed);
+				if (rarest < 0 || rootSupports[renamed] < rootSupports[rarest]) {
+					rarest = renamed;
+				}
+			}
+		}
+
+		if (rarest < 0) {
+			// pattern is the initial step's closure
+			return root.counters.nbFrequents == 0;
+		}
+
+		pattern.sort();
+		TIntIntHashMap coOccurrences = new TIntIntHashMap();
+		TIntArrayList transactionItems = new TIntArrayList();
+
+		for (TransactionReader transaction : root.dataset.getSupport(rarest)) {
+			final int weight = transaction.getTransactionSupport();
+			transactionItems.resetQuick();
+			while (transaction.hasNext()) {
+				transactionItems.add(transaction.next());
+			}
+
+			int j = 0;
+			for (int i = 0; i < transactionItems.size() && j < pattern.size(); i++) {
+				if (transactionItems.getQuick(i) == pattern.getQuick(j)) {
+					j++;
+				}
+			}
+			if (j < pattern.size()) {
+				continue;
+			}
+
+			j = 0;
+			for (int i = 0; i < transactionItems.size(); i++) {
+				final int item = transactionItems.getQuick(i);
+				while (j < pattern.size() && pattern.getQuick(j) < item) {
+					j++;
+				}
+				if (j == pattern.size() || pattern.getQuick(j) != item) {
+					if (coOccurrences.adjustOrPutValue(item, weight, weight) >= minSupport) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return a Selector that should be appended to the initial
+	 *         ExplorationStep, in order to prune sub-trees already covered by
+	 *         an emitted maximal pattern
+	 */
+	public Selector getSelector() {
+		return new CoveredSubtreesPruner(null);
+	}
+
+	public long close() {
+		this.decorated.close();
+		return this.collected.get();
+	}
+
+	public int getAveragePatternLength() {
+		if (this.collected.get() == 0) {
+			return 0;
+		} else {
+			return (int) (this.collectedLength.get() / this.collected.get());
+		}
+	}
+
+	/**
+	 * Patterns found in an extension's sub-tree only contain items from the
+	 * current pattern, the extension and frequent items (in the state's
+	 * counters) below the extension. If all these are included in a known
+	 * maximal pattern, the sub-tree can't yield any other maximal pattern.
+	 */
+	private final class CoveredSubtreesPruner extends Selector {
+
+		CoveredSubtreesPruner(Selector follower) {
+			super(follower);
+		}
+
+		@Override
+		protected boolean allowExploration(int extension, ExplorationStep state) {
+			final int[] reverseRenaming = state.counters.getReverseRenaming();
+			final int[] supportCounts = state.counters.supportCounts;
+
+			int length = state.pattern.length;
+			for (int i = 0; i <= extension; i++) {
+				if (supportCounts[i] > 0) {
+					length++;
+				}
+			}
+			if (length > maximals.getMaxLength()) {
+				return true;
+			}
+
+			int[] reachable = new int[length];
+			System.arraycopy(state.pattern, 0, reachable, 0, state.pattern.length);
+			length = state.pattern.length;
+			for (int i = 0; i <= extension; i++) {
+				if (supportCounts[i] > 0) {
+					reachable[length++] = reverseRenaming[i];
+				}
+			}
+
+			Arrays.sort(reachable, 0, length);
+			return !maximals.containsSuperset(reachable, length);
+		}
+
+		@Override
+		protected Selector copy(Selector newNext) {
+			return new CoveredSubtreesPruner(newNext);
+		}
+
+		@Override
+		protected PLCMCounters getCountersKey() {
+			return null;
+		}
+	}
+}
@@ -22,12 +22,13 @@
 package fr.liglab.jlcm.io;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
  * A thread safe PatternsCollector that will write to multiple files, one per mining thread.
  */
-public class MultiThreadedFileCollector extends PatternsWriter {
+public class MultiThreadedFileCollector extends PatternsWriter implements CheckpointableCollector {
 	
 	private final FileCollector[] collectors;
 	
@@ -39,9 +40,22 @@ public class MultiThreadedFileCollector extends PatternsWriter {
 	 * @throws IOException
 	 */
 	public MultiThreadedFileCollector(final String prefix, final int maxId) throws IOException {
+		this(prefix, maxId, false);
+	}
+	
+	/**
+	 * @param prefix
+	 * 			filename prefix for pattern files, each thread will append [ThreadID].dat
+	 * @param maxId
+	 * 			higer bound on thread's getId()
+	 * @param resume
+	 * 			if true, files' current contents are kept - see FileCollector(String, boolean)
+	 * @throws IOException
+	 */
+	public MultiThreadedFileCollector(final String prefix, final int maxId, final boolean resume) throws IOException {
 		this.collectors = new FileCollector[maxId];
 		for (int i = 0; i < maxId; i++) {
-			this.collectors[i] = new FileCollector(prefix + i + ".dat");
+			this.collectors[i] = new FileCollector(prefix + i + ".dat", resume);
 		}
 	}
 	
@@ -55,9 +69,44 @@ public class MultiThreadedFileCollector extends PatternsWriter {
 	 * @throws IOException
 	 */
 	public MultiThreadedFileCollector(final String prefix, final int maxId, Map<Integer, String> itemIDmap) throws IOException {
+		this(prefix, maxId, itemIDmap, false);
+	}
+	
+	/**
+	 * @param prefix
+	 * 			filename prefix for pattern files, each thread will append [ThreadID].dat
+	 * @param maxId
+	 * 			higer bound on thread's getId()
+	 * @param itemIDmap
+	 * 			if you're not using integers as item IDs
+	 * @param resume
+	 * 			if true, files' current contents are kept - see FileCollector(String, boolean)
+	 * @throws IOException
+	 */
+	public MultiThreadedFileCollector(final String prefix, final int maxId, Map<Integer, String> itemIDmap,
+			final boolean resume) throws IOException {
 		this.collectors = new FileCollector[maxId];
 		for (int i = 0; i < maxId; i++) {
-			this.collectors[i] = new FileCollectorWithIDMapper(prefix + i + ".dat", itemIDmap);
+			this.collectors[i] = new FileCollectorWithIDMapper(prefix + i + ".dat", itemIDmap, resume);
+		}
+	}
+
+	/**
+	 * @param prefix
+	 * 			filename prefix for pattern files, each thread will append [ThreadID].dat
+	 * @param maxId
+	 * 			higer bound on thread's getId()
+	 * @param dictionary
+	 * 			if you're not using integers as item IDs - each collector will use its own duplicate
+	 * @param resume
+	 * 			if true, files' current contents are kept - see FileCollector(String, boolean)
+	 * @throws IOException
+	 */
+	public MultiThreadedFileCollector(final String prefix, final int maxId, MappedItemsDictionary dictionary,
+			final boolean resume) throws IOException {
+		this.collectors = new FileCollector[maxId];
+		for (int i = 0; i < maxId; i++) {
+			this.collectors[i] = new FileCollectorWithIDMapper(prefix + i + ".dat", dictionary, resume);
 		}
 	}
 	
@@ -78,6 +127,27 @@ public class MultiThreadedFileCollector extends PatternsWriter {
 		return total;
 	}
 
+	/**
+	 * @return concatenation of each file's state
+	 */
+	public long[] checkpoint() {
+		long[] state = new long[0];
+		for (FileCollector collector : this.collectors) {
+			long[] collectorState = collector.checkpoint();
+			long[] merged = Arrays.copyOf(state, state.length + collectorState.length);
+			System.arraycopy(collectorState, 0, merged, state.length, collectorState.length);
+			state = merged;
+		}
+		return state;
+	}
+	
+	public void restore(long[] state) {
+		final int stateLength = state.length / this.collectors.length;
+		for (int i = 0; i < this.collectors.length; i++) {
+			this.collectors[i].restore(Arrays.copyOfRange(state, i * stateLength, (i + 1) * stateLength));
+		}
+	}
+
 	@Override
 	public int getAveragePatternLength() {
 		long totalLen = 0;
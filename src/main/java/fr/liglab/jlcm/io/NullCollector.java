@@ -29,7 +29,7 @@ import fr.liglab.jlcm.internals.ExplorationStep;
 /**
  * The collector that doesn't care at all about outputting
  */
-public final class NullCollector extends PatternsWriter {
+public final class NullCollector extends PatternsWriter implements CheckpointableCollector {
 
 	protected AtomicInteger collectedCount = new AtomicInteger(0);
 	protected AtomicLong collectedLength = new AtomicLong(0);
@@ -51,6 +51,18 @@ public final class NullCollector extends PatternsWriter {
 		return this.collectedCount.get();
 	}
 
+	/**
+	 * @return {collected patterns, their lengths' sum}
+	 */
+	public long[] checkpoint() {
+		return new long[] { this.collectedCount.get(), this.collectedLength.get() };
+	}
+
+	public void restore(long[] state) {
+		this.collectedCount.set((int) state[0]);
+		this.collectedLength.set(state[1]);
+	}
+
 	public int getAveragePatternLength() {
 		if (this.collectedCount.get() == 0) {
 			return 0;
@@ -0,0 +1,52 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+/**
+ * Output of association rules. Implementations must be thread-safe, as rules
+ * are generated in parallel.
+ *
+ * @see AssociationRulesCollector
+ */
+public interface RulesWriter {
+
+	/**
+	 * Record the rule antecedent => consequent. Both arrays may be re-used by
+	 * the caller once this method returns.
+	 *
+	 * @param support
+	 *            support count of antecedent U consequent
+	 * @param confidence
+	 *            support(antecedent U consequent) / support(antecedent)
+	 * @param lift
+	 *            confidence / (support(consequent) / transactions count)
+	 */
+	public void collect(final int[] antecedent, final int[] consequent, final int support,
+			final double confidence, final double lift);
+
+	/**
+	 * Call this once all rules have been generated.
+	 *
+	 * @return outputted rules count
+	 */
+	public long close();
+}
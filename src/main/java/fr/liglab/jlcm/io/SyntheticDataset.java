@@ -0,0 +1,361 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import fr.liglab.jlcm.internals.TransactionReader;
+
+/**
+ * Generates random transactions, for scaling tests and benchmarks. Two
+ * generators are available :
+ *
+ * - quest() mimics IBM's Quest generator : a pool of potential patterns
+ * (partially sharing their items) is drawn first, then each transaction is
+ * filled with corrupted copies of these patterns.
+ *
+ * - zipf() draws each item independently, following a Zipfian distribution :
+ * item 0 is the most frequent, item i's probability is proportional to
+ * 1/(i+1)^exponent.
+ *
+ * Transactions are not stored : they're generated again by each iterator(),
+ * and only depend on parameters and seed. So a dataset much bigger than the
+ * available memory can be given to ExplorationStep, which iterates twice over
+ * its input. Items are sorted in increasing order in each transaction.
+ */
+public final class SyntheticDataset implements Iterable<TransactionReader> {
+
+	private final int nbTransactions;
+	private final int nbItems;
+	private final double avgTransactionLength;
+	private final long seed;
+
+	/**
+	 * Quest mode : potential patterns, their cumulated weights and corruption
+	 * levels
+	 */
+	private final int[][] patterns;
+	private final double[] cumulatedWeights;
+	private final double[] corruption;
+
+	/**
+	 * Zipf mode : cumulated items' probabilities
+	 */
+	private final double[] cumulatedProbabilities;
+
+	private SyntheticDataset(int nbTransactions, int nbItems, double avgTransactionLength, long seed,
+			int[][] patterns, double[] cumulatedWeights, double[] corruption, double[] cumulatedProbabilities) {
+		if (nbTransactions < 0 || nbItems < 1 || avgTransactionLength < 1) {
+			throw new IllegalArgumentException("Invalid parameters: " + nbTransactions + " transactions of "
+					+ avgTransactionLength + " items on average, among " + nbItems);
+		}
+		this.nbTransactions = nbTransactions;
+		this.nbItems = nbItems;
+		this.avgTransactionLength = avgTransactionLength;
+		this.seed = seed;
+		this.patterns = patterns;
+		this.cumulatedWeights = cumulatedWeights;
+		this.corruption = corruption;
+		this.cumulatedProbabilities = cumulatedProbabilities;
+	}
+
+	/**
+	 * @param nbTransactions
+	 * @param nbItems
+	 *            items IDs will be in [0, nbItems[
+	 * @param avgTransactionLength
+	 * @param nbPatterns
+	 *            size of the potential patterns pool
+	 * @param avgPatternLength
+	 * @param seed
+	 */
+	public static SyntheticDataset quest(int nbTransactions, int nbItems, double avgTransactionLength,
+			int nbPatterns, double avgPatternLength, long seed) {
+
+		if (nbPatterns < 1) {
+			throw new IllegalArgumentException("nbPatterns has to be > 0, given " + nbPatterns);
+		}
+
+		Random random = new Random(seed);
+		int[][] patterns = new int[nbPatterns][];
+		double[] cumulatedWeights = new double[nbPatterns];
+		double[] corruption = new double[nbPatterns];
+
+		int[] previous = new int[0];
+		double weightsSum = 0;
+		int[] buffer = new int[16];
+
+		for (int i = 0; i < nbPatterns; i++) {
+			final int length = Math.min(nbItems, Math.max(1, poisson(random, avgPatternLength)));
+			if (buffer.length < 2 * length) {
+				buffer = new int[2 * length];
+			}
+
+			// about half of the items come from the previous pattern
+			int size = 0;
+			for (int j = 0; j < previous.length && j < length / 2; j++) {
+				buffer[size++] = previous[random.nextInt(previous.length)];
+			}
+			size = sortDistinct(buffer, size);
+			while (size < length) {
+				buffer[size++] = random.nextInt(nbItems);
+				size = sortDistinct(buffer, size);
+			}
+
+			patterns[i] = Arrays.copyOf(buffer, size);
+			previous = patterns[i];
+
+			weightsSum += -Math.log(1.0 - random.nextDouble());
+			cumulatedWeights[i] = weightsSum;
+			corruption[i] = Math.min(1.0, Math.max(0.0, 0.5 + 0.1 * random.nextGaussian()));
+		}
+
+		return new SyntheticDataset(nbTransactions, nbItems, avgTransactionLength, seed, patterns,
+				cumulatedWeights, corruption, null);
+	}
+
+	/**
+	 * @param nbTransactions
+	 * @param nbItems
+	 *            items IDs will be in [0, nbItems[
+	 * @param avgTransactionLength
+	 * @param exponent
+	 *            Zipf's exponent - the greater, the sparser
+	 * @param seed
+	 */
+	public static SyntheticDataset zipf(int nbTransactions, int nbItems, double avgTransactionLength,
+			double exponent, long seed) {
+
+		double[] cumulated = new double[nbItems];
+		double sum = 0;
+		for (int i = 0; i < nbItems; i++) {
+			sum += 1.0 / Math.pow(i + 1, exponent);
+			cumulated[i] = sum;
+		}
+
+		return new SyntheticDataset(nbTransactions, nbItems, avgTransactionLength, seed, null, null, null,
+				cumulated);
+	}
+
+	public int getTransactionsCount() {
+		return this.nbTransactions;
+	}
+
+	public int getItemsCount() {
+		return this.nbItems;
+	}
+
+	/**
+	 * @return expected ratio of items present in a transaction
+	 */
+	public double getDensity() {
+		return Math.min(1.0, this.avgTransactionLength / this.nbItems);
+	}
+
+	public Iterator<TransactionReader> iterator() {
+		return new Generator();
+	}
+
+	/**
+	 * Writes all transactions to path, in the ASCII format read by FileReader
+	 */
+	public void writeTo(String path) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(path));
+		try {
+			Iterator<TransactionReader> transactions = this.iterator();
+			while (transactions.hasNext()) {
+				TransactionReader transaction = transactions.next();
+				boolean addSeparator = false;
+				while (transaction.hasNext()) {
+					if (addSeparator) {
+						writer.write(' ');
+					} else {
+						addSeparator = true;
+					}
+					writer.write(Integer.toString(transaction.next()));
+				}
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int poisson(Random random, double mean) {
+		if (mean > 30) {
+			// normal approximation, as exp(-mean) would be too small
+			return Math.max(0, (int) Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+		}
+		final double limit = Math.exp(-mean);
+		double product = random.nextDouble();
+		int n = 0;
+		while (product > limit) {
+			product *= random.nextDouble();
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Sorts buffer[0:size[ and removes duplicates
+	 *
+	 * @return the new size
+	 */
+	private static int sortDistinct(int[] buffer, int size) {
+		if (size < 2) {
+			return size;
+		}
+		Arrays.sort(buffer, 0, size);
+		int distinct = 1;
+		for (int i = 1; i < size; i++) {
+			if (buffer[i] != buffer[distinct - 1]) {
+				buffer[distinct++] = buffer[i];
+			}
+		}
+		return distinct;
+	}
+
+	private static int binarySearchCumulated(double[] cumulated, double drawn) {
+		int found = Arrays.binarySearch(cumulated, drawn);
+		if (found < 0) {
+			found = Math.min(cumulated.length - 1, -found - 1);
+		}
+		return found;
+	}
+
+	private final class Generator implements Iterator<TransactionReader> {
+
+		private final Random random = new Random(seed + 1);
+		private final GeneratedTransaction reader = new GeneratedTransaction();
+		private int[] transaction = new int[16];
+		private int length = 0;
+		private int generated = 0;
+
+		public boolean hasNext() {
+			return this.generated < nbTransactions;
+		}
+
+		public TransactionReader next() {
+			final int target = Math.min(nbItems, Math.max(1, poisson(this.random, avgTransactionLength)));
+			if (this.transaction.length < 2 * target) {
+				this.transaction = new int[2 * target];
+			}
+
+			if (patterns == null) {
+				this.fillZipf(target);
+			} else {
+				this.fillQuest(target);
+			}
+
+			this.generated++;
+			this.reader.items = this.transaction;
+			this.reader.length = this.length;
+			this.reader.position = 0;
+			return this.reader;
+		}
+
+		private void fillZipf(final int target) {
+			final double sum = cumulatedProbabilities[nbItems - 1];
+			this.length = 0;
+			while (this.length < target) {
+				while (this.length < target) {
+					this.transaction[this.length++] = binarySearchCumulated(cumulatedProbabilities,
+							this.random.nextDouble() * sum);
+				}
+				this.length = sortDistinct(this.transaction, this.length);
+			}
+		}
+
+		private void fillQuest(final int target) {
+			final double sum = cumulatedWeights[cumulatedWeights.length - 1];
+			this.length = 0;
+			int stalled = 0;
+
+			while (this.length < target) {
+				final int p = binarySearchCumulated(cumulatedWeights, this.random.nextDouble() * sum);
+				final int[] pattern = patterns[p];
+
+				int kept = pattern.length;
+				while (kept > 0 && this.random.nextDouble() < corruption[p]) {
+					kept--;
+				}
+
+				if (this.length + kept > target && this.length > 0 && this.random.nextBoolean()) {
+					break;
+				}
+
+				if (this.transaction.length < this.length + kept + 1) {
+					this.transaction = Arrays.copyOf(this.transaction, 2 * (this.length + kept + 1));
+				}
+
+				final int before = this.length;
+
+				if (kept == 0 || stalled > 10) {
+					// noise, or the only way to go on when drawn patterns are
+					// already in the transaction
+					this.transaction[this.length++] = this.random.nextInt(nbItems);
+					stalled = 0;
+				} else {
+					// keeps a random subset of the pattern
+					int[] shuffled = Arrays.copyOf(pattern, pattern.length);
+					for (int j = 0; j < kept; j++) {
+						final int swapped = j + this.random.nextInt(shuffled.length - j);
+						this.transaction[this.length++] = shuffled[swapped];
+						shuffled[swapped] = shuffled[j];
+					}
+				}
+
+				this.length = sortDistinct(this.transaction, this.length);
+				if (this.length == before) {
+					stalled++;
+				}
+			}
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final class GeneratedTransaction implements TransactionReader {
+		int[] items;
+		int length;
+		int position;
+
+		public int getTransactionSupport() {
+			return 1;
+		}
+
+		public int next() {
+			return this.items[this.position++];
+		}
+
+		public boolean hasNext() {
+			return this.position < this.length;
+		}
+	}
+}
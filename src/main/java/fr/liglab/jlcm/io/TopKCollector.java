@@ -0,0 +1,180 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.io;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.Selector;
+
+/**
+ * A thread-safe PatternsCollector that only keeps the k most frequent patterns,
+ * which are given to the enclosed PatternsWriter on close(). Ties at the k-th
+ * support count are broken arbitrarily.
+ *
+ * Once k patterns have been collected, the k-th support count becomes a minimum
+ * support for the rest of the exploration. To push it back in the running
+ * search, append the Selector given by getSelector() to the initial
+ * ExplorationStep : it will raise childrenThreshold on each ExplorationStep it
+ * meets, so most of the search space is pruned instead of being collected and
+ * then evicted.
+ */
+public class TopKCollector implements PatternsCollector {
+
+	protected final PatternsWriter decorated;
+	protected final int k;
+
+	/**
+	 * Least frequent patterns on top
+	 */
+	private final PriorityQueue<SupportAndPattern> heap;
+
+	/**
+	 * Smallest support count a collected pattern should have to enter the
+	 * heap. It only grows.
+	 */
+	private volatile int minSupport = 0;
+
+	public TopKCollector(PatternsWriter wrapped, int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k has to be > 0, given " + k);
+		}
+		this.decorated = wrapped;
+		this.k = k;
+		this.heap = new PriorityQueue<SupportAndPattern>(k);
+	}
+
+	public void collect(final ExplorationStep state) {
+		final int support = state.counters.transactionsCount;
+		if (support < this.minSupport) {
+			return;
+		}
+
+		synchronized (this.heap) {
+			if (this.heap.size() < this.k) {
+				this.heap.add(new SupportAndPattern(support, state.pattern));
+			} else if (support > this.heap.peek().support) {
+				this.heap.poll();
+				this.heap.add(new SupportAndPattern(support, state.pattern));
+			} else {
+				return;
+			}
+
+			if (this.heap.size() == this.k) {
+				// we only accept strictly better patterns from now on
+				this.minSupport = this.heap.peek().support + 1;
+			}
+		}
+	}
+
+	/**
+	 * @return the support count a pattern should have to be kept by this
+	 *         collector - this value only grows during the exploration
+	 */
+	public int getMinSupport() {
+		return this.minSupport;
+	}
+
+	/**
+	 * @return a Selector that should be appended to the initial
+	 *         ExplorationStep, in order to raise exploration's threshold as this
+	 *         collector fills up
+	 */
+	public Selector getSelector() {
+		return new ThresholdRaiser(null);
+	}
+
+	/**
+	 * Outputs the top-k patterns, by decreasing support, to the enclosed
+	 * PatternsWriter and closes it.
+	 */
+	public long close() {
+		SupportAndPattern[] sorted;
+		synchronized (this.heap) {
+			sorted = this.heap.toArray(new SupportAndPattern[this.heap.size()]);
+		}
+		Arrays.sort(sorted);
+
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			this.decorated.collect(sorted[i].support, sorted[i].pattern, sorted[i].pattern.length);
+		}
+
+		this.decorated.close();
+		return sorted.length;
+	}
+
+	public int getAveragePatternLength() {
+		return this.decorated.getAveragePatternLength();
+	}
+
+	private static final class SupportAndPattern implements Comparable<SupportAndPattern> {
+		final int support;
+		final int[] pattern;
+
+		SupportAndPattern(int support, int[] pattern) {
+			this.support = support;
+			this.pattern = Arrays.copyOf(pattern, pattern.length);
+		}
+
+		public int compareTo(SupportAndPattern other) {
+			if (this.support < other.support) {
+				return -1;
+			} else if (this.support == other.support) {
+				return 0;
+			} else {
+				return 1;
+			}
+		}
+	}
+
+	/**
+	 * Raises the state's childrenThreshold to the collector's current minimum
+	 * support, then rejects extensions that can't reach it.
+	 */
+	private final class ThresholdRaiser extends Selector {
+
+		ThresholdRaiser(Selector follower) {
+			super(follower);
+		}
+
+		@Override
+		protected boolean allowExploration(int extension, ExplorationStep state) {
+			final int threshold = minSupport;
+			if (state.childrenThreshold < threshold) {
+				state.childrenThreshold = threshold;
+			}
+			return state.counters.supportCounts[extension] >= threshold;
+		}
+
+		@Override
+		protected Selector copy(Selector newNext) {
+			return new ThresholdRaiser(newNext);
+		}
+
+		@Override
+		protected PLCMCounters getCountersKey() {
+			return null;
+		}
+	}
+}
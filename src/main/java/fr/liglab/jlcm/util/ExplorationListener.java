@@ -0,0 +1,61 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.util;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+/**
+ * Receives notifications from the exploration internals, for monitoring
+ * purposes. Register an instance in ExplorationStep.listener - see also
+ * SampledExplorationListener, which keeps overhead low on big explorations.
+ * 
+ * All methods are invoked by mining threads, concurrently : implementations
+ * have to be thread-safe and should return quickly.
+ */
+public interface ExplorationListener {
+
+	/**
+	 * Invoked when a new ExplorationStep has been fully instanciated (so
+	 * after its dataset's compression), by the thread that will explore it.
+	 * Initial ExplorationSteps are not notified.
+	 */
+	public void stepCreated(ExplorationStep step);
+
+	/**
+	 * Invoked when a thread successfully stole a job from another's stack
+	 * 
+	 * @param stackPosition
+	 *            position of the stolen job in the victim's stack (0 is the
+	 *            bottom, ie. the shallowest)
+	 */
+	public void jobStolen(int thiefId, int victimId, int stackPosition);
+
+	/**
+	 * Invoked after Dataset.compress
+	 * 
+	 * @param transactionsBefore
+	 *            count of distinct transactions before compression
+	 * @param transactionsAfter
+	 *            count of distinct transactions after compression
+	 */
+	public void datasetCompressed(int coreItem, int transactionsBefore, int transactionsAfter);
+}
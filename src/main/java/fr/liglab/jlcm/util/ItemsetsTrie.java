@@ -0,0 +1,207 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.util;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A prefix tree of itemsets associated to their support count, stored in a
+ * few integer arrays.
+ *
+ * Itemsets are expected sorted in increasing order. Nodes are designated by
+ * their integer index, the empty itemset being node 0. Each node knows its
+ * parent and the greatest support count in its sub-tree, so supersets of an
+ * itemset can be queried efficiently.
+ *
+ * add() is synchronized, but queries should not be done while other threads
+ * are adding itemsets.
+ */
+public final class ItemsetsTrie {
+
+	private final TIntArrayList items = new TIntArrayList();
+	private final TIntArrayList supports = new TIntArrayList();
+	private final TIntArrayList maxSupports = new TIntArrayList();
+	private final TIntArrayList parents = new TIntArrayList();
+	private final TIntArrayList firstChildren = new TIntArrayList();
+	private final TIntArrayList nextSiblings = new TIntArrayList();
+
+	public ItemsetsTrie() {
+		this.newNode(-1, Integer.MIN_VALUE);
+	}
+
+	private int newNode(final int parent, final int item) {
+		final int node = this.items.size();
+		this.items.add(item);
+		this.supports.add(0);
+		this.maxSupports.add(0);
+		this.parents.add(parent);
+		this.firstChildren.add(-1);
+		this.nextSiblings.add(-1);
+		return node;
+	}
+
+	/**
+	 * Inserts itemset[0:length[ if needed, and raises its support count to
+	 * the given one.
+	 *
+	 * @param itemset
+	 *            sorted in increasing order
+	 * @return the itemset's node
+	 */
+	public synchronized int add(final int[] itemset, final int length, final int support) {
+		int node = 0;
+		this.raiseMaxSupport(node, support);
+
+		for (int i = 0; i < length; i++) {
+			final int item = itemset[i];
+			int previous = -1;
+			int child = this.firstChildren.getQuick(node);
+
+			while (child >= 0 && this.items.getQuick(child) < item) {
+				previous = child;
+				child = this.nextSiblings.getQuick(child);
+			}
+
+			if (child < 0 || this.items.getQuick(child) != item) {
+				final int inserted = this.newNode(node, item);
+				this.nextSiblings.setQuick(inserted, child);
+				if (previous < 0) {
+					this.firstChildren.setQuick(node, inserted);
+				} else {
+					this.nextSiblings.setQuick(previous, inserted);
+				}
+				child = inserted;
+			}
+
+			node = child;
+			this.raiseMaxSupport(node, support);
+		}
+
+		if (this.supports.getQuick(node) < support) {
+			this.supports.setQuick(node, support);
+		}
+
+		return node;
+	}
+
+	private void raiseMaxSupport(final int node, final int support) {
+		if (this.maxSupports.getQuick(node) < support) {
+			this.maxSupports.setQuick(node, support);
+		}
+	}
+
+	/**
+	 * @return support count associated to this node, 0 if it's only a prefix
+	 */
+	public int getSupport(final int node) {
+		return this.supports.getQuick(node);
+	}
+
+	/**
+	 * @return length of the itemset ending at this node
+	 */
+	public int getDepth(int node) {
+		int depth = 0;
+		while (node > 0) {
+			depth++;
+			node = this.parents.getQuick(node);
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the itemset ending at this node, in increasing order
+	 */
+	public int[] getItemset(int node) {
+		int[] itemset = new int[this.getDepth(node)];
+		for (int i = itemset.length - 1; i >= 0; i--) {
+			itemset[i] = this.items.getQuick(node);
+			node = this.parents.getQuick(node);
+		}
+		return itemset;
+	}
+
+	/**
+	 * @param itemset
+	 *            sorted in increasing order
+	 * @param length
+	 *            only itemset[0:length[ is considered
+	 * @return greatest support count among stored supersets of the given
+	 *         itemset (including itself), or 0 if there's no such superset
+	 */
+	public int getSupersetsMaxSupport(final int[] itemset, final int length) {
+		return this.searchSupersets(0, itemset, 0, length, false, 0);
+	}
+
+	/**
+	 * @param itemset
+	 *            sorted in increasing order
+	 * @param length
+	 *            only itemset[0:length[ is considered
+	 * @return true if a strict superset of the given itemset is stored with a
+	 *         support count of at least minSupport
+	 */
+	public boolean hasStrictSuperset(final int[] itemset, final int length, final int minSupport) {
+		return this.searchSupersets(0, itemset, 0, length, true, minSupport - 1) >= minSupport;
+	}
+
+	private int searchSupersets(final int node, final int[] itemset, final int position, final int length,
+			final boolean strict, int best) {
+
+		if (position == length) {
+			if (!strict) {
+				return Math.max(best, this.maxSupports.getQuick(node));
+			}
+			for (int child = this.firstChildren.getQuick(node); child >= 0; child = this.nextSiblings
+					.getQuick(child)) {
+				best = Math.max(best, this.maxSupports.getQuick(child));
+			}
+			return best;
+		}
+
+		final int item = itemset[position];
+
+		for (int child = this.firstChildren.getQuick(node); child >= 0; child = this.nextSiblings.getQuick(child)) {
+			final int childItem = this.items.getQuick(child);
+
+			if (childItem > item) {
+				break;
+			} else if (this.maxSupports.getQuick(child) > best) {
+				if (childItem == item) {
+					best = this.searchSupersets(child, itemset, position + 1, length, strict, best);
+				} else {
+					// this branch has an item which isn't in itemset
+					best = this.searchSupersets(child, itemset, position, length, false, best);
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * @return how many nodes are allocated (including the root)
+	 */
+	public int getNodesCount() {
+		return this.items.size();
+	}
+}
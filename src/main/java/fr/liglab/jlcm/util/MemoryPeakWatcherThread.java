@@ -21,47 +21,336 @@
 
 package fr.liglab.jlcm.util;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+import fr.liglab.jlcm.PLCMStatusMXBean;
+
+/**
+ * Tracks memory usage peaks, per memory pool, without forcing garbage
+ * collections.
+ * 
+ * Pools' peak usages and usages after the last collection are polled every
+ * second. Direct buffers are polled too, when the JVM exposes them. Pools
+ * also get an extra poll when they send a collection usage threshold
+ * notification, but by default we don't change their thresholds : these are
+ * JVM-wide settings, which may be used by the application or its monitoring.
+ * If nobody uses them, enable setThresholds to be notified after each GC
+ * raising a pool's live data above its previous peak ; previous thresholds
+ * are restored when this thread stops.
+ * 
+ * Pools' peak usages are not reset either, because the application may rely
+ * on them too. Instead, peaks existing when this thread starts are recorded
+ * as baselines : until a pool's peak usage exceeds its baseline, its current
+ * usage is polled instead.
+ * 
+ * Each time a pool reaches a new peak, we also record the depth of the
+ * ExplorationSteps being explored by running PLCM instances (only those
+ * registering their status, see PLCM.registerStatus), to find which
+ * projections are the most expensive. These depths are approximate : they are
+ * sampled when the peak is observed, which may be up to a second after the
+ * actual peak.
+ * 
+ * Start this thread before mining, interrupt it when done.
+ */
 public class MemoryPeakWatcherThread extends Thread {
 	/**
-	 * garbage-collect-n-peek delay, in milliseconds
+	 * peek delay, in milliseconds
 	 */
-	private static final long GC_AND_CHECK_DELAY = 15000;
-	
+	private static final long CHECK_DELAY = 1000;
+
+	private static final String DIRECT_BUFFERS_NAME = "java.nio:type=BufferPool,name=direct";
+
 	/**
-	 * In bytes
+	 * Heap usage after collections, in bytes
+	 */
+	private volatile long maxUsedMemory = 0;
+
+	/**
+	 * Sum of heap pools' peaks, in bytes
+	 */
+	private volatile long maxHeapPeak = 0;
+
+	private final Map<String, PoolPeak> peaks = new HashMap<String, PoolPeak>();
+
+	private final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+
+	/**
+	 * pools' peak usages when this thread started, in bytes
+	 */
+	private final Map<String, Long> baselines = new HashMap<String, Long>();
+
+	private final NotificationListener listener = new NotificationListener() {
+		public void handleNotification(Notification notification, Object handback) {
+			if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+				peek();
+			}
+		}
+	};
+
+	/**
+	 * if true, pools' collection usage thresholds are raised along with their
+	 * peaks
+	 */
+	private final boolean setThresholds;
+
+	public MemoryPeakWatcherThread() {
+		this(false);
+	}
+
+	/**
+	 * @param setThresholds
+	 *            if true, pools' collection usage thresholds are set and raised
+	 *            by this thread while it runs, so it's notified after each new
+	 *            post-GC peak - this overrides any threshold set by the
+	 *            application
+	 */
+	public MemoryPeakWatcherThread(boolean setThresholds) {
+		super("MemoryPeakWatcherThread");
+		this.setDaemon(true);
+		this.setThresholds = setThresholds;
+	}
+
+	/**
+	 * @return the greatest heap usage observed after garbage collections, in
+	 *         bytes. If no collection happened (or the JVM does not provide
+	 *         collection usages), this is the sum of heap pools' peaks.
 	 */
-	private long maxUsedMemory = 0; 
-	
-	private Runtime runtime;
-	
 	public long getMaxUsedMemory() {
-		return maxUsedMemory;
+		final long afterCollections = this.maxUsedMemory;
+		if (afterCollections > 0) {
+			return afterCollections;
+		} else {
+			return this.maxHeapPeak;
+		}
 	}
-	
+
+	/**
+	 * @return peaks observed on each memory pool, indexed by pool name
+	 */
+	public synchronized Map<String, PoolPeak> getPoolPeaks() {
+		return new HashMap<String, PoolPeak>(this.peaks);
+	}
+
 	@Override
 	public void run() {
-		this.runtime = Runtime.getRuntime();
 		this.maxUsedMemory = 0;
-		this.peek();
-		
-		while (true) {
-			try {
-				Thread.sleep(GC_AND_CHECK_DELAY);
-				this.peek();
-			} catch (InterruptedException e) {
+		this.maxHeapPeak = 0;
+		synchronized (this) {
+			this.baselines.clear();
+			for (MemoryPoolMXBean pool : this.pools) {
+				final MemoryUsage peak = pool.isValid() ? pool.getPeakUsage() : null;
+				if (peak != null) {
+					this.baselines.put(pool.getName(), peak.getUsed());
+				}
+			}
+		}
+
+		Map<MemoryPoolMXBean, Long> previousThresholds = new HashMap<MemoryPoolMXBean, Long>();
+		if (this.setThresholds) {
+			for (MemoryPoolMXBean pool : this.pools) {
+				if (pool.isValid() && pool.isCollectionUsageThresholdSupported()) {
+					previousThresholds.put(pool, pool.getCollectionUsageThreshold());
+					pool.setCollectionUsageThreshold(1);
+				}
+			}
+		}
+		NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+		emitter.addNotificationListener(this.listener, null, null);
+
+		try {
+			while (true) {
 				this.peek();
-				return;
+				Thread.sleep(CHECK_DELAY);
+			}
+		} catch (InterruptedException e) {
+			this.peek();
+		} finally {
+			try {
+				emitter.removeNotificationListener(this.listener);
+			} catch (JMException e) {
+				e.printStackTrace();
+			}
+			for (Map.Entry<MemoryPoolMXBean, Long> entry : previousThresholds.entrySet()) {
+				if (entry.getKey().isValid()) {
+					entry.getKey().setCollectionUsageThreshold(entry.getValue());
+				}
 			}
 		}
 	}
-	
-	private void peek() {
-		this.runtime.gc();
-		
-		final long used = this.runtime.totalMemory() - this.runtime.freeMemory();
-		
-		if (used > this.maxUsedMemory) {
-			this.maxUsedMemory = used;
+
+	private synchronized void peek() {
+		long heapAfterCollection = 0;
+		long heapPeak = 0;
+		int[] depths = null;
+
+		for (MemoryPoolMXBean pool : this.pools) {
+			if (!pool.isValid()) {
+				continue;
+			}
+
+			final long peak = this.getPeakSinceStart(pool);
+			final MemoryUsage afterCollection = pool.getCollectionUsage();
+
+			if (peak >= 0 && this.isNewPeak(pool.getName(), peak)) {
+				if (depths == null) {
+					depths = getExplorationDepths();
+				}
+				this.peaks.put(pool.getName(), new PoolPeak(pool.getName(), peak, depths));
+			}
+
+			if (pool.getType() == MemoryType.HEAP) {
+				if (afterCollection != null) {
+					heapAfterCollection += afterCollection.getUsed();
+				}
+				if (peak >= 0) {
+					heapPeak += peak;
+				}
+			}
+
+			if (this.setThresholds && afterCollection != null && pool.isCollectionUsageThresholdSupported()
+					&& afterCollection.getUsed() >= pool.getCollectionUsageThreshold()) {
+				// next notification on the next post-GC peak
+				pool.setCollectionUsageThreshold(afterCollection.getUsed() + 1);
+			}
+		}
+
+		final long direct = getDirectBuffersUsage();
+		if (direct >= 0 && this.isNewPeak("direct buffers", direct)) {
+			if (depths == null) {
+				depths = getExplorationDepths();
+			}
+			this.peaks.put("direct buffers", new PoolPeak("direct buffers", direct, depths));
+		}
+
+		if (heapAfterCollection > this.maxUsedMemory) {
+			this.maxUsedMemory = heapAfterCollection;
+		}
+		if (heapPeak > this.maxHeapPeak) {
+			this.maxHeapPeak = heapPeak;
+		}
+	}
+
+	/**
+	 * @return pool's peak usage if it's above its baseline, otherwise its
+	 *         current usage - or -1 if unavailable
+	 */
+	private long getPeakSinceStart(MemoryPoolMXBean pool) {
+		final MemoryUsage peak = pool.getPeakUsage();
+		if (peak == null) {
+			return -1;
+		}
+		final Long baseline = this.baselines.get(pool.getName());
+		if (baseline == null || peak.getUsed() > baseline) {
+			return peak.getUsed();
+		}
+		final MemoryUsage current = pool.getUsage();
+		return current == null ? -1 : current.getUsed();
+	}
+
+	private boolean isNewPeak(String poolName, long used) {
+		PoolPeak previous = this.peaks.get(poolName);
+		return used > 0 && (previous == null || used > previous.bytes);
+	}
+
+	/**
+	 * @return bytes used by direct buffers, or -1 if unavailable
+	 */
+	private static long getDirectBuffersUsage() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			Object used = server.getAttribute(new ObjectName(DIRECT_BUFFERS_NAME), "MemoryUsed");
+			return ((Number) used).longValue();
+		} catch (JMException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return depths of the ExplorationSteps currently explored by all running
+	 *         PLCM threads (see PLCMStatusMXBean.getExplorationDepths)
+	 */
+	private static int[] getExplorationDepths() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		List<Integer> depths = new ArrayList<Integer>();
+		try {
+			Set<ObjectName> names = server.queryNames(new ObjectName(PLCMStatusMXBean.NAMES_PATTERN), null);
+			for (ObjectName name : names) {
+				for (int depth : JMX.newMXBeanProxy(server, name, PLCMStatusMXBean.class).getExplorationDepths()) {
+					if (depth >= 0) {
+						depths.add(depth);
+					}
+				}
+			}
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		} catch (RuntimeException e) {
+			// the PLCM run may have ended meanwhile
+		}
+
+		Collections.sort(depths);
+		int[] array = new int[depths.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = depths.get(i);
+		}
+		return array;
+	}
+
+	public static final class PoolPeak {
+		public final String pool;
+
+		/**
+		 * in bytes
+		 */
+		public final long bytes;
+
+		public final long timestamp;
+
+		/**
+		 * Sorted depths of the ExplorationSteps explored when the peak has been
+		 * observed, which may be up to a second after the actual peak - empty if
+		 * no PLCM was running
+		 */
+		public final int[] explorationDepths;
+
+		PoolPeak(String pool, long bytes, int[] explorationDepths) {
+			this.pool = pool;
+			this.bytes = bytes;
+			this.timestamp = System.currentTimeMillis();
+			this.explorationDepths = explorationDepths;
+		}
+
+		/**
+		 * @return the deepest exploration depth when the peak has been observed,
+		 *         -1 if unknown
+		 */
+		public int getMaxDepth() {
+			if (this.explorationDepths.length == 0) {
+				return -1;
+			}
+			return this.explorationDepths[this.explorationDepths.length - 1];
+		}
+
+		@Override
+		public String toString() {
+			return this.pool + ": " + this.bytes + " bytes, at depth " + this.getMaxDepth();
 		}
 	}
 }
@@ -0,0 +1,207 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import fr.liglab.jlcm.PLCMStatusMXBean;
+
+/**
+ * Serves the status of all running PLCM instances (see PLCMStatusMXBean, which
+ * are only registered if PLCM.registerStatus is true) over HTTP, at /metrics, in Prometheus' text format. Each metric has a "run" label,
+ * and stack depths also have a "thread" label.
+ * 
+ * Only binds to the loopback interface.
+ */
+public final class MetricsExporter {
+
+	public static final String PATH = "/metrics";
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final HttpServer server;
+
+	/**
+	 * @param port
+	 *            0 picks any free port - see getPort()
+	 */
+	public MetricsExporter(int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		this.server.createContext(PATH, new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				final byte[] body = scrape().getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				try {
+					out.write(body);
+				} finally {
+					out.close();
+				}
+			}
+		});
+	}
+
+	public void start() {
+		this.server.start();
+	}
+
+	public void stop() {
+		this.server.stop(0);
+	}
+
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * @return current metrics, as served at /metrics
+	 */
+	public static String scrape() {
+		MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+		Set<ObjectName> names;
+		try {
+			names = mbeans.queryNames(new ObjectName(PLCMStatusMXBean.NAMES_PATTERN), null);
+		} catch (MalformedObjectNameException e) {
+			throw new RuntimeException(e);
+		}
+
+		// a run may end at any time, so its values are read at once and it's
+		// skipped if it disappears meanwhile
+		List<RunSnapshot> runs = new ArrayList<RunSnapshot>();
+		for (ObjectName name : names) {
+			try {
+				runs.add(new RunSnapshot(name.getKeyProperty("run"), JMX.newMXBeanProxy(mbeans, name,
+						PLCMStatusMXBean.class)));
+			} catch (RuntimeException e) {
+				// UndeclaredThrowableException wrapping an InstanceNotFoundException
+			}
+		}
+
+		StringBuilder builder = new StringBuilder();
+
+		header(builder, "jlcm_collected_patterns_total", "counter", "Patterns given to the collector so far");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_collected_patterns_total", run.run, null, run.collectedPatterns);
+		}
+
+		header(builder, "jlcm_stack_depth", "gauge", "Stacked ExplorationSteps, per thread");
+		for (RunSnapshot run : runs) {
+			for (int t = 0; t < run.stackDepths.length; t++) {
+				sample(builder, "jlcm_stack_depth", run.run, ",thread=\"" + t + "\"", run.stackDepths[t]);
+			}
+		}
+
+		header(builder, "jlcm_root_candidate", "gauge", "Next candidate extension of the initial step, -1 when done");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_root_candidate", run.run, null, run.rootCandidate);
+		}
+
+		header(builder, "jlcm_root_last", "gauge", "Upper bound (exclusive) of the initial step's candidates");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_root_last", run.run, null, run.rootLast);
+		}
+
+		header(builder, "jlcm_counter_total", "counter", "PLCMCounters, summed over threads");
+		for (RunSnapshot run : runs) {
+			for (Entry<String, Long> counter : run.counters.entrySet()) {
+				sample(builder, "jlcm_counter_total", run.run, ",counter=\"" + counter.getKey() + "\"",
+						counter.getValue());
+			}
+		}
+
+		header(builder, "jlcm_steals_per_second", "gauge", "Average steals rate since mining started");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_steals_per_second", run.run, null, run.stealsPerSecond);
+		}
+
+		header(builder, "jlcm_peak_memory_bytes", "gauge", "Peak heap usage");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_peak_memory_bytes", run.run, null, run.peakMemory);
+		}
+
+		header(builder, "jlcm_elapsed_seconds", "gauge", "Time elapsed since mining started");
+		for (RunSnapshot run : runs) {
+			sample(builder, "jlcm_elapsed_seconds", run.run, null, run.elapsedMillis / 1000.0);
+		}
+
+		return builder.toString();
+	}
+
+	private static void header(StringBuilder builder, String metric, String type, String help) {
+		builder.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+		builder.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder builder, String metric, String run, String otherLabels, Object value) {
+		builder.append(metric).append("{run=\"").append(run).append('"');
+		if (otherLabels != null) {
+			builder.append(otherLabels);
+		}
+		builder.append("} ").append(value).append('\n');
+	}
+
+	/**
+	 * Values of a PLCMStatusMXBean, read when instantiated
+	 */
+	private static final class RunSnapshot {
+		final String run;
+		final long collectedPatterns;
+		final int[] stackDepths;
+		final int rootCandidate;
+		final int rootLast;
+		final Map<String, Long> counters;
+		final double stealsPerSecond;
+		final long peakMemory;
+		final long elapsedMillis;
+
+		RunSnapshot(String run, PLCMStatusMXBean status) {
+			this.run = run;
+			this.collectedPatterns = status.getCollectedPatterns();
+			this.stackDepths = status.getStackDepths();
+			this.rootCandidate = status.getRootCandidate();
+			this.rootLast = status.getRootLast();
+			this.counters = new TreeMap<String, Long>(status.getCounters());
+			this.stealsPerSecond = status.getStealsPerSecond();
+			this.peakMemory = status.getPeakMemory();
+			this.elapsedMillis = status.getElapsedMillis();
+		}
+	}
+}
@@ -23,6 +23,7 @@ package fr.liglab.jlcm.util;
 
 import java.util.Calendar;
 
+import fr.liglab.jlcm.ProgressEstimator;
 import fr.liglab.jlcm.internals.ExplorationStep;
 import fr.liglab.jlcm.internals.ExplorationStep.Progress;
 
@@ -32,7 +33,7 @@ import fr.liglab.jlcm.internals.ExplorationStep.Progress;
  * every 5 minutes so it doesn't kill the task.
  * 
  * you MUST use setInitState before starting the thread you MAY use
- * setHadoopContext
+ * setHadoopContext. PLCM calls setInitState and setEstimator.
  */
 public class ProgressWatcherThread extends Thread {
 	/**
@@ -42,18 +43,33 @@ public class ProgressWatcherThread extends Thread {
 
 	private ExplorationStep step;
 
+	private ProgressEstimator estimator = null;
+
 	public void setInitState(ExplorationStep initial) {
 		this.step = initial;
 	}
 
+	/**
+	 * When set, an estimated progression and ETA are also printed
+	 */
+	public void setEstimator(ProgressEstimator estimator) {
+		this.estimator = estimator;
+	}
+
 	@Override
 	public void run() {
 		while (true) {
 			try {
 				Thread.sleep(PRINT_STATUS_EVERY);
 				Progress progress = this.step.getProgression();
-				System.err.format("%1$tY/%1$tm/%1$td %1$tk:%1$tM:%1$tS - root iterator state : %2$d/%3$d\n",
-						Calendar.getInstance(), progress.current, progress.last);
+				if (this.estimator == null) {
+					System.err.format("%1$tY/%1$tm/%1$td %1$tk:%1$tM:%1$tS - root iterator state : %2$d/%3$d\n",
+							Calendar.getInstance(), progress.current, progress.last);
+				} else {
+					System.err.format(
+							"%1$tY/%1$tm/%1$td %1$tk:%1$tM:%1$tS - root iterator state : %2$d/%3$d - progress %4$s\n",
+							Calendar.getInstance(), progress.current, progress.last, this.estimator.estimate());
+				}
 
 			} catch (InterruptedException e) {
 				return;
@@ -0,0 +1,85 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.util;
+
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+/**
+ * Forwards one out of samplingPeriod notifications of steps creation and
+ * datasets compression to another listener. Each mining thread samples its
+ * own notifications. Steals are rare, so they're always forwarded.
+ */
+public final class SampledExplorationListener implements ExplorationListener {
+
+	private final ExplorationListener delegate;
+	private final int samplingPeriod;
+
+	/**
+	 * Per-thread countdowns : [0] for steps, [1] for compressions
+	 */
+	private final ThreadLocal<int[]> countdowns = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[] { 0, 0 };
+		}
+	};
+
+	/**
+	 * @param delegate
+	 * @param samplingPeriod
+	 *            1 forwards all notifications, 10 forwards one out of 10, etc.
+	 */
+	public SampledExplorationListener(ExplorationListener delegate, int samplingPeriod) {
+		if (samplingPeriod < 1) {
+			throw new IllegalArgumentException("samplingPeriod has to be > 0, given " + samplingPeriod);
+		}
+		this.delegate = delegate;
+		this.samplingPeriod = samplingPeriod;
+	}
+
+	private boolean sample(int counter) {
+		final int[] countdown = this.countdowns.get();
+		if (countdown[counter] == 0) {
+			countdown[counter] = this.samplingPeriod - 1;
+			return true;
+		} else {
+			countdown[counter]--;
+			return false;
+		}
+	}
+
+	public void stepCreated(ExplorationStep step) {
+		if (this.sample(0)) {
+			this.delegate.stepCreated(step);
+		}
+	}
+
+	public void jobStolen(int thiefId, int victimId, int stackPosition) {
+		this.delegate.jobStolen(thiefId, victimId, stackPosition);
+	}
+
+	public void datasetCompressed(int coreItem, int transactionsBefore, int transactionsAfter) {
+		if (this.sample(1)) {
+			this.delegate.datasetCompressed(coreItem, transactionsBefore, transactionsAfter);
+		}
+	}
+}
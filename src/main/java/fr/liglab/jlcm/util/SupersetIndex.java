@@ -0,0 +1,144 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.util;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * A thread-safe set of itemsets, able to tell if one of them contains a given
+ * itemset.
+ *
+ * Each itemset is referenced by all its items, so a query only scans itemsets
+ * sharing its least common item. All itemsets given to this class should be
+ * sorted in increasing order, and should not be modified afterwards.
+ */
+public final class SupersetIndex {
+
+	private final TIntObjectHashMap<ArrayList<int[]>> byItem = new TIntObjectHashMap<ArrayList<int[]>>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private int size = 0;
+	private volatile int maxLength = 0;
+
+	/**
+	 * @param itemset
+	 *            sorted in increasing order
+	 */
+	public void add(final int[] itemset) {
+		this.lock.writeLock().lock();
+		try {
+			for (int item : itemset) {
+				ArrayList<int[]> list = this.byItem.get(item);
+				if (list == null) {
+					list = new ArrayList<int[]>();
+					this.byItem.put(item, list);
+				}
+				list.add(itemset);
+			}
+			this.size++;
+			this.maxLength = Math.max(this.maxLength, itemset.length);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param itemset
+	 *            sorted in increasing order
+	 * @param length
+	 *            only itemset[0:length[ is considered
+	 * @return true if the index contains a superset (or an equal set) of the
+	 *         given itemset
+	 */
+	public boolean containsSuperset(final int[] itemset, final int length) {
+		this.lock.readLock().lock();
+		try {
+			if (length > this.maxLength || this.size == 0) {
+				return false;
+			}
+
+			ArrayList<int[]> shortest = null;
+			for (int i = 0; i < length; i++) {
+				ArrayList<int[]> list = this.byItem.get(itemset[i]);
+				if (list == null) {
+					return false;
+				} else if (shortest == null || list.size() < shortest.size()) {
+					shortest = list;
+				}
+			}
+
+			if (shortest == null) { // empty itemset
+				return true;
+			}
+
+			for (int[] candidate : shortest) {
+				if (isIncluded(itemset, length, candidate)) {
+					return true;
+				}
+			}
+
+			return false;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return length of the longest itemset added so far - longer itemsets
+	 *         can't have any superset in this index
+	 */
+	public int getMaxLength() {
+		return this.maxLength;
+	}
+
+	/**
+	 * @return how many itemsets have been added
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private static boolean isIncluded(final int[] a, final int aLength, final int[] b) {
+		if (aLength > b.length) {
+			return false;
+		}
+		int j = 0;
+		for (int i = 0; i < aLength; i++) {
+			while (j < b.length && b[j] < a[i]) {
+				j++;
+			}
+			if (j == b.length || b[j] != a[i]) {
+				return false;
+			}
+			j++;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.AssociationRulesCollector;
+import fr.liglab.jlcm.io.RulesWriter;
+
+public class AssociationRulesCollectorTest {
+
+	/**
+	 * micro.dat's content
+	 */
+	private static final int[][] MICRO = new int[][] { { 5, 3, 1, 6, 7 }, { 5, 3, 1, 2, 6 }, { 5, 7 },
+			{ 3, 2, 7 }, { 5, 3, 1, 6, 7 } };
+	private static final int[] MICRO_ITEMS = new int[] { 1, 2, 3, 5, 6, 7 };
+
+	private static final class StubRulesWriter implements RulesWriter {
+		final Map<String, double[]> rules = new HashMap<String, double[]>();
+
+		public synchronized void collect(int[] antecedent, int[] consequent, int support, double confidence,
+				double lift) {
+			String key = asSet(antecedent) + "=>" + asSet(consequent);
+			if (this.rules.put(key, new double[] { support, confidence, lift }) != null) {
+				throw new RuntimeException("Duplicate rule " + key);
+			}
+		}
+
+		public long close() {
+			return this.rules.size();
+		}
+	}
+
+	private static String asSet(int[] items) {
+		TreeSet<Integer> set = new TreeSet<Integer>();
+		for (int item : items) {
+			set.add(item);
+		}
+		return set.toString();
+	}
+
+	private static int support(int mask) {
+		int support = 0;
+		for (int[] transaction : MICRO) {
+			int found = 0;
+			for (int item : transaction) {
+				for (int i = 0; i < MICRO_ITEMS.length; i++) {
+					if (MICRO_ITEMS[i] == item && (mask & (1 << i)) != 0) {
+						found++;
+					}
+				}
+			}
+			if (found == Integer.bitCount(mask)) {
+				support++;
+			}
+		}
+		return support;
+	}
+
+	private static int[] items(int mask) {
+		int[] items = new int[Integer.bitCount(mask)];
+		int j = 0;
+		for (int i = 0; i < MICRO_ITEMS.length; i++) {
+			if ((mask & (1 << i)) != 0) {
+				items[j++] = MICRO_ITEMS[i];
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Enumerates all itemsets to find closed ones, then all rules X => C \ X
+	 */
+	private static Map<String, double[]> bruteForceRules(int minsup, double minConfidence) {
+		Map<String, double[]> rules = new HashMap<String, double[]>();
+		final int all = (1 << MICRO_ITEMS.length) - 1;
+
+		for (int closed = 1; closed <= all; closed++) {
+			final int support = support(closed);
+			if (support < minsup) {
+				continue;
+			}
+			boolean isClosed = true;
+			for (int i = 0; i < MICRO_ITEMS.length && isClosed; i++) {
+				int extended = closed | (1 << i);
+				if (extended != closed && support(extended) == support) {
+					isClosed = false;
+				}
+			}
+			if (!isClosed) {
+				continue;
+			}
+
+			for (int antecedent = (closed - 1) & closed; antecedent > 0; antecedent = (antecedent - 1) & closed) {
+				final int consequent = closed & ~antecedent;
+				final double confidence = ((double) support) / support(antecedent);
+				if (confidence >= minConfidence) {
+					final double lift = confidence * MICRO.length / support(consequent);
+					rules.put(asSet(items(antecedent)) + "=>" + asSet(items(consequent)), new double[] { support,
+							confidence, lift });
+				}
+			}
+		}
+
+		return rules;
+	}
+
+	private void checkMicroRules(double minConfidence, int nbThreads) {
+		ExplorationStep init = new ExplorationStep(2, FileReaderTest.PATH_MICRO);
+		StubRulesWriter writer = new StubRulesWriter();
+		AssociationRulesCollector collector = new AssociationRulesCollector(init, writer, minConfidence, nbThreads);
+		PLCM algo = new PLCM(collector, nbThreads);
+		algo.lcm(init);
+		long count = collector.close();
+
+		Map<String, double[]> expected = bruteForceRules(2, minConfidence);
+		assertTrue(expected.size() > 0);
+		assertEquals(expected.size(), count);
+		assertEquals(expected.keySet(), writer.rules.keySet());
+
+		for (Map.Entry<String, double[]> entry : expected.entrySet()) {
+			double[] found = writer.rules.get(entry.getKey());
+			for (int i = 0; i < 3; i++) {
+				assertEquals(entry.getKey(), entry.getValue()[i], found[i], 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testExactRules() {
+		checkMicroRules(1.0, 1);
+	}
+
+	@Test
+	public void testMicro() {
+		checkMicroRules(0.6, 1);
+		checkMicroRules(0.6, 4);
+	}
+}
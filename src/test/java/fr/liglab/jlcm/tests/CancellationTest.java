@@ -0,0 +1,153 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.AnytimeMiner;
+import fr.liglab.jlcm.CancellationToken;
+import fr.liglab.jlcm.CancellationToken.Cause;
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class CancellationTest {
+
+	private static final SyntheticDataset DATASET = SyntheticDataset.quest(5000, 200, 8, 50, 4, 1);
+	private static final int MIN_SUPPORT = 20;
+
+	private static class SupportsCollector extends PatternsWriter {
+		final List<Integer> supports = new ArrayList<Integer>();
+		final Set<String> patterns = new HashSet<String>();
+		CancellationToken cancelAt = null;
+		int cancelAfter = 0;
+
+		@Override
+		public synchronized void collect(int support, int[] pattern, int length) {
+			int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			assertTrue(this.patterns.add(support + Arrays.toString(sorted)));
+			this.supports.add(support);
+			if (this.cancelAt != null && this.supports.size() == this.cancelAfter) {
+				this.cancelAt.cancel();
+			}
+		}
+
+		public synchronized long close() {
+			return this.supports.size();
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	private static long mineAll() {
+		NullCollector collector = new NullCollector();
+		new PLCM(collector, 2).lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+		return collector.close();
+	}
+
+	@Test
+	public void testCancel() {
+		final long total = mineAll();
+
+		SupportsCollector collector = new SupportsCollector();
+		CancellationToken token = new CancellationToken();
+		collector.cancelAt = token;
+		collector.cancelAfter = 10;
+		PLCM algo = new PLCM(collector, 2);
+		algo.setCancellationToken(token);
+		algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+
+		assertEquals(Cause.CANCELLED, token.getCause());
+		assertTrue(collector.close() < total);
+		assertEquals(collector.close(), (long) algo.getCounters().get(PLCMCounters.CollectedPatterns));
+	}
+
+	@Test
+	public void testPatternsBudget() {
+		NullCollector collector = new NullCollector();
+		CancellationToken token = new CancellationToken(0, 100);
+		PLCM algo = new PLCM(collector, 4);
+		algo.setCancellationToken(token);
+		algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+
+		assertEquals(Cause.PATTERNS_BUDGET, token.getCause());
+		assertEquals(100, collector.close());
+		assertEquals(100, token.getCollectedCount());
+	}
+
+	@Test
+	public void testTimeBudget() throws InterruptedException {
+		CancellationToken token = new CancellationToken(1, 0);
+		assertNull(token.getCause());
+		PLCM algo = new PLCM(new NullCollector(), 2);
+		algo.setCancellationToken(token);
+		algo.lcm(new ExplorationStep(2, SyntheticDataset.quest(20000, 500, 10, 200, 4, 1)));
+		assertEquals(Cause.TIME_BUDGET, token.getCause());
+	}
+
+	@Test
+	public void testAnytimeMiner() {
+		final long total = mineAll();
+		ExplorationStep initState = new ExplorationStep(MIN_SUPPORT, DATASET);
+
+		SupportsCollector complete = new SupportsCollector();
+		assertEquals(MIN_SUPPORT, new AnytimeMiner(initState, 2).lcm(complete, null));
+		assertEquals(total, complete.close());
+
+		SupportsCollector partial = new SupportsCollector();
+		CancellationToken token = new CancellationToken(0, total / 2);
+		final int level = new AnytimeMiner(initState, 2).lcm(partial, token);
+		assertEquals(total / 2, partial.close());
+		assertTrue(level > MIN_SUPPORT);
+
+		// all patterns above the completed level are there
+		int expected = 0;
+		for (int support : complete.supports) {
+			if (support >= level) {
+				expected++;
+			}
+		}
+		int found = 0;
+		for (int support : partial.supports) {
+			if (support >= level) {
+				found++;
+			}
+		}
+		assertEquals(expected, found);
+	}
+}
@@ -0,0 +1,274 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.CancellationToken;
+import fr.liglab.jlcm.Checkpoint;
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.CheckpointableCollector;
+import fr.liglab.jlcm.io.FileCollector;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class CheckpointTest {
+
+	private static final SyntheticDataset DATASET = SyntheticDataset.quest(5000, 200, 8, 50, 4, 1);
+	private static final int MIN_SUPPORT = 20;
+
+	/**
+	 * Keeps patterns in memory, and counts down the latch on each pattern -
+	 * once it's zero, slows down until a checkpoint is made
+	 */
+	private static class ListCollector extends PatternsWriter implements CheckpointableCollector {
+		final List<String> patterns;
+		final CountDownLatch latch;
+		volatile boolean checkpointed = false;
+
+		ListCollector(List<String> initial, CountDownLatch latch) {
+			this.patterns = new ArrayList<String>(initial);
+			this.latch = latch;
+		}
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			synchronized (this) {
+				this.patterns.add(support + Arrays.toString(sorted));
+			}
+			if (this.latch != null) {
+				this.latch.countDown();
+				if (this.latch.getCount() == 0 && !this.checkpointed) {
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		}
+
+		public synchronized long close() {
+			return this.patterns.size();
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+
+		public synchronized long[] checkpoint() {
+			this.checkpointed = true;
+			return new long[] { this.patterns.size() };
+		}
+
+		public synchronized void restore(long[] state) {
+			this.patterns.subList((int) state[0], this.patterns.size()).clear();
+		}
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		ListCollector reference = new ListCollector(Collections.<String> emptyList(), null);
+		new PLCM(reference, 4).lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+		Collections.sort(reference.patterns);
+
+		File file = File.createTempFile("jlcm-checkpoint", ".txt");
+		try {
+			final String path = file.getPath();
+			final CountDownLatch latch = new CountDownLatch(100);
+			final ListCollector interrupted = new ListCollector(Collections.<String> emptyList(), latch);
+			final PLCM algo = new PLCM(interrupted, 4);
+			final boolean[] checkpointed = new boolean[1];
+			Thread checkpointer = new Thread() {
+				@Override
+				public void run() {
+					try {
+						latch.await();
+						checkpointed[0] = algo.checkpoint(path);
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			};
+			checkpointer.start();
+			algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+			checkpointer.join();
+			assertTrue(checkpointed[0]);
+
+			Checkpoint checkpoint = Checkpoint.read(path);
+			assertTrue(checkpoint.getStackedStepsCount() > 0);
+			assertTrue(checkpoint.getCollectorState()[0] >= 100);
+			assertTrue(checkpoint.getCollectorState()[0] < reference.patterns.size());
+
+			// as if the first run crashed after writing all its patterns
+			ListCollector resumed = new ListCollector(interrupted.patterns, null);
+			new PLCM(resumed, 2).resume(new ExplorationStep(MIN_SUPPORT, DATASET), checkpoint);
+			Collections.sort(resumed.patterns);
+			assertEquals(reference.patterns, resumed.patterns);
+
+			// a failing resume should not leak its MBean
+			final ObjectName runs = new ObjectName("fr.liglab.jlcm:type=PLCM,*");
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final int registered = server.queryNames(runs, null).size();
+			PLCM.registerStatus = true;
+			try {
+				new PLCM(new ListCollector(Collections.<String> emptyList(), null), 2).resume(new ExplorationStep(
+						MIN_SUPPORT + 10, DATASET), checkpoint);
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals(registered, server.queryNames(runs, null).size());
+			} finally {
+				PLCM.registerStatus = false;
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testResumeCancelled() throws Exception {
+		ListCollector reference = new ListCollector(Collections.<String> emptyList(), null);
+		new PLCM(reference, 4).lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+		Collections.sort(reference.patterns);
+
+		File file = File.createTempFile("jlcm-checkpoint", ".txt");
+		try {
+			ListCollector interrupted = new ListCollector(Collections.<String> emptyList(), null);
+			PLCM algo = new PLCM(interrupted, 4);
+			algo.setCheckpointing(file.getPath(), 3600);
+			algo.setCancellationToken(new CancellationToken(0, 100));
+			algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+			assertEquals(100, interrupted.patterns.size());
+			assertTrue(file.exists());
+
+			Checkpoint checkpoint = Checkpoint.read(file.getPath());
+			assertEquals(100, checkpoint.getCollectorState()[0]);
+
+			// steps left when the budget ran out are resumed, including the
+			// ones whose pattern was refused
+			ListCollector resumed = new ListCollector(interrupted.patterns, null);
+			algo = new PLCM(resumed, 2);
+			algo.setCheckpointing(file.getPath(), 3600);
+			algo.resume(new ExplorationStep(MIN_SUPPORT, DATASET), checkpoint);
+			Collections.sort(resumed.patterns);
+			assertEquals(reference.patterns, resumed.patterns);
+			assertFalse(file.exists());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPeriodicCheckpoints() throws IOException {
+		File file = File.createTempFile("jlcm-checkpoint", ".txt");
+		ListCollector collector = new ListCollector(Collections.<String> emptyList(), null);
+		PLCM algo = new PLCM(collector, 2);
+		algo.setCheckpointing(file.getPath(), 5);
+		algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+		assertFalse(file.exists());
+		assertFalse(algo.checkpoint(file.getPath()));
+	}
+
+	@Test
+	public void testFileCollectorRestore() throws IOException {
+		File file = File.createTempFile("jlcm-checkpoint", ".dat");
+		try {
+			FileCollector collector = new FileCollector(file.getPath());
+			collector.collect(3, new int[] { 1, 2 }, 2);
+			long[] state = collector.checkpoint();
+			collector.collect(2, new int[] { 1, 2, 3 }, 3);
+			collector.close();
+
+			collector = new FileCollector(file.getPath(), true);
+			collector.restore(state);
+			collector.collect(4, new int[] { 5 }, 1);
+			assertEquals(2, collector.close());
+
+			BufferedReader reader = new BufferedReader(new java.io.FileReader(file));
+			assertEquals("3\t1 2", reader.readLine());
+			assertEquals("4\t5", reader.readLine());
+			assertEquals(null, reader.readLine());
+			reader.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Fails once, in the first thread collecting its 50th pattern
+	 */
+	private static final class FailingCollector extends ListCollector {
+		private final AtomicInteger countdown = new AtomicInteger(50);
+
+		FailingCollector() {
+			super(Collections.<String> emptyList(), null);
+		}
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			if (this.countdown.decrementAndGet() == 0) {
+				throw new IllegalStateException("failing on purpose");
+			}
+			super.collect(support, pattern, length);
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testCheckpointsAfterThreadFailure() throws IOException {
+		File file = File.createTempFile("jlcm-checkpoint", ".txt");
+		try {
+			FailingCollector collector = new FailingCollector();
+			PLCM algo = new PLCM(collector, 4);
+			algo.setCheckpointing(file.getPath(), 1);
+
+			// surviving threads complete the exploration, minus the failed
+			// thread's stack
+			algo.lcm(new ExplorationStep(MIN_SUPPORT, DATASET));
+			assertTrue(collector.close() >= 49);
+			assertFalse(algo.checkpoint(file.getPath()));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -23,13 +23,18 @@ package fr.liglab.jlcm.tests;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import org.junit.Test;
 
 import fr.liglab.jlcm.internals.Counters;
 import fr.liglab.jlcm.internals.ExplorationStep;
 import fr.liglab.jlcm.internals.Dataset.TransactionsIterable;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.SyntheticDataset;
 
 public class CountersTest {
 
@@ -46,4 +51,135 @@ public class CountersTest {
 		assertArrayEquals(new int[] {0, -1, 1, 2, 3, -1}, renaming); 
 	}
 
+	private static void assertSameCounters(Counters expected, Counters actual) {
+		assertEquals(expected.transactionsCount, actual.transactionsCount);
+		assertEquals(expected.distinctTransactionsCount, actual.distinctTransactionsCount);
+		assertEquals(expected.distinctTransactionLengthSum, actual.distinctTransactionLengthSum);
+		assertEquals(expected.nbFrequents, actual.nbFrequents);
+		assertArrayEquals(expected.supportCounts, actual.supportCounts);
+		assertArrayEquals(expected.distinctTransactionsCounts, actual.distinctTransactionsCounts);
+		assertArrayEquals(expected.getReverseRenaming(), actual.getReverseRenaming());
+		assertArrayEquals(expected.getRenaming(), actual.getRenaming());
+		int[] expectedClosure = Arrays.copyOf(expected.closure, expected.closure.length);
+		int[] actualClosure = Arrays.copyOf(actual.closure, actual.closure.length);
+		Arrays.sort(expectedClosure);
+		Arrays.sort(actualClosure);
+		assertArrayEquals(expectedClosure, actualClosure);
+	}
+
+	@Test
+	public void testParallelCounting() {
+		SyntheticDataset dataset = SyntheticDataset.quest(50000, 500, 10, 100, 4, 3);
+		Counters sequential = new Counters(10, dataset.iterator());
+		assertTrue(sequential.nbFrequents > 0);
+		for (int i = 1; i < sequential.nbFrequents; i++) {
+			assertTrue(sequential.supportCounts[i - 1] >= sequential.supportCounts[i]);
+		}
+
+		try {
+			Counters.countingThreads = 4;
+			assertSameCounters(sequential, new Counters(10, dataset.iterator()));
+		} finally {
+			Counters.countingThreads = 1;
+		}
+	}
+
+	@Test
+	public void testSparseItems() {
+		// some IDs are too big to be counted in arrays
+		final List<int[]> transactions = new ArrayList<int[]>();
+		for (int i = 0; i < 100; i++) {
+			transactions.add(new int[] { 1, 2 + i % 3, 17000000 + (i % 2) });
+			transactions.add(new int[] { 1, 16000000 + (i % 5) });
+		}
+		Counters counters = new Counters(30, new ListIterable(transactions).iterator());
+		assertArrayEquals(new int[] { 1 }, counters.closure);
+		assertEquals(200, counters.transactionsCount);
+		assertEquals(5, counters.nbFrequents);
+		assertEquals(0, counters.getRenaming()[17000000]);
+		assertEquals(1, counters.getRenaming()[17000001]);
+		assertEquals(50, counters.supportCounts[0]);
+		assertEquals(-1, counters.getRenaming()[16000000]);
+		assertArrayEquals(new int[] { 17000000, 17000001, 2, 3, 4 }, counters.getReverseRenaming());
+	}
+
+	@Test
+	public void testDensityChanges() {
+		// a few scattered IDs first, so counting starts in hash maps, then
+		// enough IDs to get back to arrays
+		final List<int[]> transactions = new ArrayList<int[]>();
+		final int[] supports = new int[200000];
+		for (int i = 0; i < 10; i++) {
+			transactions.add(new int[] { 0, 199999 - i * 1000 });
+		}
+		for (int i = 0; i < 150000; i++) {
+			transactions.add(new int[] { i, 150000 + i % 50 });
+		}
+		for (int[] transaction : transactions) {
+			for (int item : transaction) {
+				supports[item]++;
+			}
+		}
+
+		Counters counters = new Counters(1, new ListIterable(transactions).iterator());
+		assertEquals(transactions.size(), counters.transactionsCount);
+		final int[] reverse = counters.getReverseRenaming();
+		int frequents = 0;
+		for (int item = 0; item < supports.length; item++) {
+			if (supports[item] > 0 && supports[item] < transactions.size()) {
+				frequents++;
+			}
+		}
+		assertEquals(frequents, counters.nbFrequents);
+		for (int i = 0; i < counters.nbFrequents; i++) {
+			assertEquals(supports[reverse[i]], counters.supportCounts[i]);
+		}
+	}
+
+	private static boolean countingThreadsAlive() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("RootItemsCounter") && thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testParallelCountingFailure() throws InterruptedException {
+		final Iterator<TransactionReader> dataset = SyntheticDataset.quest(200000, 500, 10, 100, 4, 3).iterator();
+		Iterator<TransactionReader> failing = new Iterator<TransactionReader>() {
+			private int read = 0;
+
+			public boolean hasNext() {
+				return dataset.hasNext();
+			}
+
+			public TransactionReader next() {
+				if (++this.read == 100000) {
+					throw new IllegalStateException("malformed input");
+				}
+				return dataset.next();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		try {
+			Counters.countingThreads = 4;
+			new Counters(10, failing);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("malformed input", e.getMessage());
+		} finally {
+			Counters.countingThreads = 1;
+		}
+
+		for (int i = 0; i < 100 && countingThreadsAlive(); i++) {
+			Thread.sleep(50);
+		}
+		assertFalse(countingThreadsAlive());
+	}
 }
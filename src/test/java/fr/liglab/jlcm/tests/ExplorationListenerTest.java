@@ -0,0 +1,97 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.util.ExplorationListener;
+import fr.liglab.jlcm.util.SampledExplorationListener;
+
+public class ExplorationListenerTest {
+
+	private static class CountingListener implements ExplorationListener {
+		final AtomicInteger steps = new AtomicInteger();
+		final AtomicInteger compressions = new AtomicInteger();
+		final AtomicInteger steals = new AtomicInteger();
+
+		public void stepCreated(ExplorationStep step) {
+			assertTrue(step.getDepth() > 0);
+			if (step.dataset != null) {
+				assertTrue(step.dataset.getRepresentation().length() > 0);
+			}
+			this.steps.incrementAndGet();
+		}
+
+		public void jobStolen(int thiefId, int victimId, int stackPosition) {
+			assertTrue(thiefId != victimId);
+			assertTrue(stackPosition >= 0);
+			this.steals.incrementAndGet();
+		}
+
+		public void datasetCompressed(int coreItem, int transactionsBefore, int transactionsAfter) {
+			assertTrue(transactionsAfter <= transactionsBefore);
+			this.compressions.incrementAndGet();
+		}
+	}
+
+	private static PLCM mine(ExplorationListener listener, int nbThreads) {
+		ExplorationStep.listener = listener;
+		try {
+			PLCM algo = new PLCM(new NullCollector(), nbThreads);
+			algo.lcm(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+			return algo;
+		} finally {
+			ExplorationStep.listener = null;
+		}
+	}
+
+	@Test
+	public void testNotifications() {
+		CountingListener listener = new CountingListener();
+		PLCM algo = mine(listener, 1);
+		assertEquals((long) algo.getCounters().get(PLCMCounters.TransactionsCompressions),
+				listener.compressions.get());
+		assertTrue(listener.steps.get() > 0);
+		assertEquals(0, listener.steals.get());
+	}
+
+	@Test
+	public void testSampling() {
+		CountingListener all = new CountingListener();
+		mine(all, 1);
+
+		CountingListener sampled = new CountingListener();
+		mine(new SampledExplorationListener(sampled, 3), 1);
+
+		assertEquals((all.steps.get() + 2) / 3, sampled.steps.get());
+		assertEquals((all.compressions.get() + 2) / 3, sampled.compressions.get());
+	}
+}
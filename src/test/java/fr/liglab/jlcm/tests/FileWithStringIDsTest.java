@@ -0,0 +1,271 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.FileCollectorWithIDMapper;
+import fr.liglab.jlcm.io.FileWithStringIDsIterable;
+import fr.liglab.jlcm.io.ItemsDictionary;
+import fr.liglab.jlcm.io.MappedItemsDictionary;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class FileWithStringIDsTest {
+
+	private static File writeTempFile(String contents) throws IOException {
+		File file = File.createTempFile("jlcm-strings", ".dat");
+		FileOutputStream output = new FileOutputStream(file);
+		output.write(contents.getBytes("UTF-8"));
+		output.close();
+		return file;
+	}
+
+	private static List<String> readAll(Iterator<TransactionReader> transactions, ItemsDictionary dictionary) {
+		List<String> all = new ArrayList<String>();
+		while (transactions.hasNext()) {
+			TransactionReader transaction = transactions.next();
+			StringBuilder builder = new StringBuilder();
+			while (transaction.hasNext()) {
+				if (builder.length() > 0) {
+					builder.append(' ');
+				}
+				builder.append(dictionary.getName(transaction.next()));
+			}
+			all.add(builder.toString());
+		}
+		return all;
+	}
+
+	@Test
+	public void testDictionary() {
+		ItemsDictionary dictionary = new ItemsDictionary();
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(i, dictionary.intern("item" + i));
+		}
+		assertEquals(10000, dictionary.size());
+
+		byte[] bytes = "xxitem42xx".getBytes();
+		assertEquals(42, dictionary.intern(bytes, 2, 8));
+		assertEquals(42, dictionary.get(bytes, 2, 8));
+		assertEquals(-1, dictionary.get(bytes, 0, 8));
+		assertEquals(-1, dictionary.get("item10000"));
+		assertEquals("item9999", dictionary.getName(9999));
+		assertEquals(10000, dictionary.size());
+
+		assertEquals(Integer.valueOf(1234), dictionary.toMap().get("item1234"));
+		assertEquals("item1234", dictionary.toReverseMap().get(1234));
+	}
+
+	@Test
+	public void testParsing() throws IOException {
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			longName.append((char) ('a' + i % 26));
+		}
+
+		File file = writeTempFile("a b c\n\nb  c\r\nd é " + longName + " a\nc a");
+		try {
+			FileWithStringIDsIterable iterable = new FileWithStringIDsIterable(file.getPath());
+			ItemsDictionary dictionary = iterable.getDictionary();
+			List<String> expected = Arrays.asList("a b c", "b c", "d é " + longName + " a", "c a");
+
+			assertEquals(expected, readAll(iterable.iterator(), dictionary));
+			assertEquals(6, dictionary.size());
+			assertEquals(Integer.valueOf(0), iterable.getMap().get("a"));
+
+			// following iterations are done in memory
+			assertTrue(file.delete());
+			assertEquals(expected, readAll(iterable.iterator(), dictionary));
+			assertEquals(expected, readAll(iterable.iterator(), dictionary));
+			assertEquals(6, dictionary.size());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testInterruptedIteration() throws IOException {
+		File file = writeTempFile("a b\nc\nd a\n");
+		try {
+			FileWithStringIDsIterable iterable = new FileWithStringIDsIterable(file.getPath());
+			Iterator<TransactionReader> first = iterable.iterator();
+			first.next();
+			assertEquals(Arrays.asList("a b", "c", "d a"), readAll(iterable.iterator(), iterable.getDictionary()));
+			assertTrue(file.delete());
+			assertEquals(3, readAll(iterable.iterator(), iterable.getDictionary()).size());
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * collects patterns as sorted item IDs, translated back to integers
+	 */
+	private static final class TranslatingWriter extends PatternsWriter {
+		private final ItemsDictionary dictionary;
+		final Set<String> patterns = new HashSet<String>();
+
+		TranslatingWriter(ItemsDictionary dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public synchronized void collect(int support, int[] pattern, int length) {
+			int[] translated = new int[length];
+			for (int i = 0; i < length; i++) {
+				translated[i] = (this.dictionary == null) ? pattern[i] : Integer.parseInt(this.dictionary
+						.getName(pattern[i]).substring(4));
+			}
+			Arrays.sort(translated);
+			this.patterns.add(support + " " + Arrays.toString(translated));
+		}
+
+		@Override
+		public long close() {
+			return this.patterns.size();
+		}
+
+		@Override
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	@Test
+	public void testMining() throws IOException {
+		SyntheticDataset dataset = SyntheticDataset.quest(2000, 100, 8, 50, 4, 42);
+		StringBuilder contents = new StringBuilder();
+		for (TransactionReader transaction : dataset) {
+			while (transaction.hasNext()) {
+				contents.append("sku-").append(transaction.next());
+				if (transaction.hasNext()) {
+					contents.append(' ');
+				}
+			}
+			contents.append('\n');
+		}
+
+		File file = writeTempFile(contents.toString());
+		try {
+			FileWithStringIDsIterable iterable = new FileWithStringIDsIterable(file.getPath());
+			TranslatingWriter fromStrings = new TranslatingWriter(iterable.getDictionary());
+			new PLCM(fromStrings, 2).lcm(new ExplorationStep(20, iterable));
+
+			TranslatingWriter fromIntegers = new TranslatingWriter(null);
+			new PLCM(fromIntegers, 2).lcm(new ExplorationStep(20, dataset));
+
+			assertFalse(fromIntegers.patterns.isEmpty());
+			assertEquals(fromIntegers.patterns, fromStrings.patterns);
+			iterable.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new java.io.FileReader(file));
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			lines.add(line);
+		}
+		reader.close();
+		return lines;
+	}
+
+	@Test
+	public void testPersistedDictionary() throws IOException {
+		StringBuilder longName = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			longName.append('x');
+		}
+		ItemsDictionary dictionary = new ItemsDictionary();
+		for (int i = 0; i < 3000; i++) {
+			dictionary.intern("sku-" + (i * 7919) % 3001);
+		}
+		dictionary.intern("\u00e9t\u00e9");
+		dictionary.intern("");
+		dictionary.intern(longName.toString());
+
+		File dictionaryFile = File.createTempFile("jlcm-dictionary", ".bin");
+		File withMap = File.createTempFile("jlcm-patterns", ".dat");
+		File withMapping = File.createTempFile("jlcm-patterns", ".dat");
+		try {
+			dictionary.writeTo(dictionaryFile.getPath());
+
+			ItemsDictionary read = ItemsDictionary.read(dictionaryFile.getPath());
+			MappedItemsDictionary mapped = new MappedItemsDictionary(dictionaryFile.getPath());
+			assertEquals(dictionary.size(), read.size());
+			assertEquals(dictionary.size(), mapped.size());
+			for (int id = 0; id < dictionary.size(); id++) {
+				final String name = dictionary.getName(id);
+				assertEquals(name, read.getName(id));
+				assertEquals(id, read.get(name));
+				assertEquals(name, mapped.getName(id));
+				assertEquals(id, mapped.get(name));
+			}
+			assertEquals(-1, mapped.get("sku-3001"));
+			assertEquals(-1, mapped.get("sku"));
+			assertEquals(dictionary.size(), read.intern("new"));
+			assertEquals(0, read.intern(dictionary.getName(0)));
+
+			FileCollectorWithIDMapper fromMap = new FileCollectorWithIDMapper(withMap.getPath(),
+					dictionary.toReverseMap(), true);
+			FileCollectorWithIDMapper fromMapping = new FileCollectorWithIDMapper(withMapping.getPath(), mapped,
+					true);
+			final int longId = dictionary.size() - 1;
+			for (int i = 0; i < 1000; i++) {
+				int[] pattern = new int[] { i, i + 1000, i + 2000, longId - (i % 2) };
+				fromMap.collect(i + 1, pattern, pattern.length);
+				fromMapping.collect(i + 1, pattern, pattern.length);
+			}
+			assertEquals(fromMap.close(), fromMapping.close());
+
+			List<String> expected = readLines(withMap);
+			assertEquals(1000, expected.size());
+			assertTrue(expected.get(0).startsWith("1\t" + dictionary.getName(0) + " "));
+			assertEquals(expected, readLines(withMapping));
+		} finally {
+			dictionaryFile.delete();
+			withMap.delete();
+			withMapping.delete();
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.IncrementalMiner;
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class IncrementalMinerTest {
+	private static Set<String> mineFromScratch(Iterable<TransactionReader> transactions, int minSupport) {
+		SetCollector collector = new SetCollector();
+		new PLCM(collector, 2).lcm(new ExplorationStep(minSupport, transactions));
+		return collector.patterns;
+	}
+
+	@Test
+	public void testAppends() {
+		List<int[]> dataset = ListIterable.copy(SyntheticDataset.quest(3000, 200, 8, 50, 4, 7));
+		IncrementalMiner miner = new IncrementalMiner(2);
+		miner.mine(new ListIterable(dataset.subList(0, 2000)), 20);
+		assertEquals(20, miner.getStoreSupport());
+		assertEquals(2000, miner.getTransactionsCount());
+
+		List<int[]> appends = new ArrayList<int[]>();
+		appends.add(new int[] { 2000, 2030 });
+		appends.add(new int[] { 2030, 2100 });
+		appends.add(new int[] { 2100, 2300 });
+
+		for (int[] bounds : appends) {
+			miner.append(new ListIterable(dataset.subList(bounds[0], bounds[1])));
+			assertEquals(bounds[1], miner.getTransactionsCount());
+
+			final int minSupport = miner.getStoreSupport();
+			SetCollector incremental = new SetCollector();
+			assertEquals(miner.getStoredCount(), miner.collect(incremental, minSupport));
+			Set<String> expected = mineFromScratch(new ListIterable(dataset.subList(0, bounds[1])), minSupport);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, incremental.patterns);
+		}
+	}
+
+	@Test
+	public void testSmallDeltas() {
+		// 1% of the dataset is appended 10 times, the store is mined at 2%
+		List<int[]> dataset = ListIterable.copy(SyntheticDataset.quest(11000, 500, 10, 200, 4, 3));
+		IncrementalMiner miner = new IncrementalMiner(2);
+		miner.mine(new ListIterable(dataset.subList(0, 10000)), 200);
+
+		for (int from = 10000; from < 11000; from += 100) {
+			miner.append(new ListIterable(dataset.subList(from, from + 100)));
+		}
+		assertEquals(11000, miner.getTransactionsCount());
+
+		// the store's relative threshold should remain close to 2%
+		final int minSupport = miner.getStoreSupport();
+		assertTrue("store support raised to " + minSupport, minSupport < 11000 * 0.025);
+
+		SetCollector incremental = new SetCollector();
+		miner.collect(incremental, minSupport);
+		Set<String> expected = mineFromScratch(new ListIterable(dataset), minSupport);
+		assertTrue(expected.size() > 10);
+		assertEquals(expected, incremental.patterns);
+	}
+
+	@Test
+	public void testNewClosedIntersection() {
+		// {1,2} x5 then {1,3} x5 : {1} only becomes closed after appending
+		List<int[]> previous = new ArrayList<int[]>();
+		List<int[]> delta = new ArrayList<int[]>();
+		for (int i = 0; i < 5; i++) {
+			previous.add(new int[] { 1, 2 });
+			delta.add(new int[] { 1, 3 });
+		}
+
+		IncrementalMiner miner = new IncrementalMiner(1);
+		miner.mine(new ListIterable(previous), 1);
+		miner.append(new ListIterable(delta));
+		assertEquals(6, miner.getStoreSupport());
+
+		SetCollector collector = new SetCollector();
+		miner.collect(collector, 6);
+		assertEquals(new HashSet<String>(Arrays.asList("10[1]")), collector.patterns);
+	}
+
+	@Test
+	public void testRemovals() {
+		List<int[]> dataset = ListIterable.copy(SyntheticDataset.quest(3500, 200, 8, 50, 4, 11));
+		IncrementalMiner miner = new IncrementalMiner(2);
+		miner.mine(new ListIterable(dataset.subList(0, 3000)), 20);
+
+		// as a window sliding by 250 transactions
+		for (int from = 0; from < 500; from += 250) {
+			final int storeSupport = miner.getStoreSupport();
+			miner.remove(new ListIterable(dataset.subList(from, from + 250)));
+			assertEquals(storeSupport, miner.getStoreSupport());
+			SetCollector remaining = new SetCollector();
+			miner.collect(remaining, storeSupport);
+			assertEquals(mineFromScratch(new ListIterable(dataset.subList(from + 250, from + 3000)), storeSupport),
+					remaining.patterns);
+
+			miner.append(new ListIterable(dataset.subList(from + 3000, from + 3250)));
+			assertEquals(3000, miner.getTransactionsCount());
+
+			final int minSupport = miner.getStoreSupport();
+			SetCollector incremental = new SetCollector();
+			assertEquals(miner.getStoredCount(), miner.collect(incremental, minSupport));
+			Set<String> expected = mineFromScratch(new ListIterable(dataset.subList(from + 250, from + 3250)),
+					minSupport);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, incremental.patterns);
+		}
+	}
+
+	@Test
+	public void testRemovedClosedSubset() {
+		// {1,2} x3 then {1} x2 : {1} is not closed anymore once {1} x2 are
+		// removed
+		List<int[]> kept = new ArrayList<int[]>();
+		List<int[]> removed = new ArrayList<int[]>();
+		for (int i = 0; i < 3; i++) {
+			kept.add(new int[] { 1, 2 });
+		}
+		removed.add(new int[] { 1 });
+		removed.add(new int[] { 1 });
+		List<int[]> dataset = new ArrayList<int[]>(kept);
+		dataset.addAll(removed);
+
+		IncrementalMiner miner = new IncrementalMiner(1);
+		miner.mine(new ListIterable(dataset), 1);
+		assertEquals(2, miner.getStoredCount());
+		miner.remove(new ListIterable(removed));
+		assertEquals(3, miner.getTransactionsCount());
+
+		SetCollector collector = new SetCollector();
+		assertEquals(1, miner.collect(collector, 1));
+		assertEquals(new HashSet<String>(Arrays.asList("3[1, 2]")), collector.patterns);
+	}
+
+	@Test
+	public void testSlides() {
+		List<int[]> dataset = ListIterable.copy(SyntheticDataset.quest(4000, 200, 8, 50, 4, 13));
+		IncrementalMiner miner = new IncrementalMiner(2);
+		miner.mine(new ListIterable(dataset.subList(0, 3000)), 30);
+
+		for (int from = 0; from < 1000; from += 200) {
+			miner.slide(new ListIterable(dataset.subList(from, from + 200)),
+					new ListIterable(dataset.subList(from + 3000, from + 3200)));
+			assertEquals(3000, miner.getTransactionsCount());
+
+			final int minSupport = miner.getStoreSupport();
+			SetCollector incremental = new SetCollector();
+			assertEquals(miner.getStoredCount(), miner.collect(incremental, minSupport));
+			Set<String> expected = mineFromScratch(new ListIterable(dataset.subList(from + 200, from + 3200)),
+					minSupport);
+			assertTrue(expected.size() > 0);
+			assertEquals(expected, incremental.patterns);
+		}
+	}
+
+	@Test
+	public void testSlideBackToRemoved() {
+		// {7,8} only occurs in removed transactions, then in appended ones
+		List<int[]> kept = new ArrayList<int[]>();
+		List<int[]> removed = new ArrayList<int[]>();
+		List<int[]> appended = new ArrayList<int[]>();
+		for (int i = 0; i < 10; i++) {
+			kept.add(new int[] { 1, 2 + i % 2 });
+		}
+		for (int i = 0; i < 6; i++) {
+			removed.add(new int[] { 7, 8 });
+			appended.add(new int[] { 1, 7, 8 });
+		}
+		List<int[]> dataset = new ArrayList<int[]>(removed);
+		dataset.addAll(kept);
+
+		IncrementalMiner miner = new IncrementalMiner(1);
+		miner.mine(new ListIterable(dataset), 2);
+		miner.slide(new ListIterable(removed), new ListIterable(appended));
+		assertTrue(miner.getStoreSupport() > 6);
+
+		dataset = new ArrayList<int[]>(kept);
+		dataset.addAll(appended);
+		SetCollector incremental = new SetCollector();
+		miner.collect(incremental, miner.getStoreSupport());
+		assertEquals(mineFromScratch(new ListIterable(dataset), miner.getStoreSupport()), incremental.patterns);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBelowStoreSupport() {
+		IncrementalMiner miner = new IncrementalMiner(1);
+		miner.mine(SyntheticDataset.zipf(100, 50, 4, 1, 1), 5);
+		miner.append(SyntheticDataset.zipf(10, 50, 4, 1, 2));
+		miner.collect(new SetCollector(), miner.getStoreSupport() - 1);
+	}
+
+}
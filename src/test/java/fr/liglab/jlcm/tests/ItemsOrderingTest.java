@@ -0,0 +1,78 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.Counters;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.ItemsOrdering;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class ItemsOrderingTest {
+
+	private static Set<String> mine(ExplorationStep initState) {
+		SetCollector collector = new SetCollector();
+		new PLCM(collector, 2).lcm(initState);
+		return collector.patterns;
+	}
+
+	@Test
+	public void testSameResults() {
+		SyntheticDataset dataset = SyntheticDataset.quest(3000, 200, 8, 50, 4, 5);
+		Set<String> fromFile = mine(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+		Set<String> generated = mine(new ExplorationStep(15, dataset));
+		assertTrue(fromFile.size() > 0);
+		assertTrue(generated.size() > 0);
+
+		for (ItemsOrdering ordering : ItemsOrdering.Standard.values()) {
+			assertEquals(fromFile, mine(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL, ordering)));
+			assertEquals(generated, mine(new ExplorationStep(15, dataset, ordering)));
+			assertEquals(generated, mine(new ExplorationStep(15.0 / 3000, dataset, ordering)));
+		}
+	}
+
+	@Test
+	public void testRenaming() {
+		SyntheticDataset dataset = SyntheticDataset.zipf(1000, 100, 5, 1, 2);
+
+		Counters increasing = new Counters(5, dataset.iterator(), ItemsOrdering.Standard.INCREASING_SUPPORT);
+		Counters decreasing = new Counters(5, dataset.iterator());
+		assertEquals(decreasing.nbFrequents, increasing.nbFrequents);
+		for (int i = 1; i < increasing.nbFrequents; i++) {
+			assertTrue(increasing.supportCounts[i - 1] <= increasing.supportCounts[i]);
+			assertTrue(decreasing.supportCounts[i - 1] >= decreasing.supportCounts[i]);
+		}
+
+		Counters original = new Counters(5, dataset.iterator(), ItemsOrdering.Standard.ORIGINAL_IDS);
+		int[] reverseRenaming = original.getReverseRenaming();
+		for (int i = 1; i < original.nbFrequents; i++) {
+			assertTrue(reverseRenaming[i - 1] < reverseRenaming[i]);
+		}
+	}
+}
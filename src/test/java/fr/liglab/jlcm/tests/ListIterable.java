@@ -0,0 +1,94 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import fr.liglab.jlcm.internals.TransactionReader;
+
+/**
+ * Transactions given as a list of items arrays, each one having a support of 1
+ */
+public class ListIterable implements Iterable<TransactionReader> {
+	private final List<int[]> transactions;
+
+	public ListIterable(List<int[]> transactions) {
+		this.transactions = transactions;
+	}
+
+	public Iterator<TransactionReader> iterator() {
+		final Iterator<int[]> wrapped = this.transactions.iterator();
+		return new Iterator<TransactionReader>() {
+			public boolean hasNext() {
+				return wrapped.hasNext();
+			}
+
+			public TransactionReader next() {
+				return reader(wrapped.next());
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public static TransactionReader reader(final int[] items) {
+		return new TransactionReader() {
+			private int position = 0;
+
+			public int getTransactionSupport() {
+				return 1;
+			}
+
+			public int next() {
+				return items[this.position++];
+			}
+
+			public boolean hasNext() {
+				return this.position < items.length;
+			}
+		};
+	}
+
+	/**
+	 * @return a copy of each transaction's items - supports are ignored
+	 */
+	public static List<int[]> copy(Iterable<TransactionReader> transactions) {
+		List<int[]> copied = new ArrayList<int[]>();
+		int[] buffer = new int[64];
+		for (TransactionReader transaction : transactions) {
+			int length = 0;
+			while (transaction.hasNext()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, 2 * length);
+				}
+				buffer[length++] = transaction.next();
+			}
+			copied.add(Arrays.copyOf(buffer, length));
+		}
+		return copied;
+	}
+}
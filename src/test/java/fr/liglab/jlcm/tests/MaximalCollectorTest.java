@@ -0,0 +1,75 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.MaximalCollector;
+
+public class MaximalCollectorTest {
+
+	private void mineMaximals(int minsup, String path, StubPatternsCollector expected, int nbThreads,
+			long expectedCount) {
+		ExplorationStep init = new ExplorationStep(minsup, path);
+		MaximalCollector collector = new MaximalCollector(expected);
+		init.appendSelector(collector.getSelector());
+		PLCM algo = new PLCM(collector, nbThreads);
+		algo.lcm(init);
+		assertEquals(expectedCount, collector.close());
+	}
+
+	private static StubPatternsCollector get50RetailMaximals() {
+		StubPatternsCollector patterns = new StubPatternsCollector();
+		patterns.expectCollect(5, 32);
+		patterns.expectCollect(5, 39, 38, 36);
+		patterns.expectCollect(4, 41, 38);
+		patterns.expectCollect(6, 48, 39, 38);
+		patterns.expectCollect(5, 48, 41, 39);
+		return patterns;
+	}
+
+	private static StubPatternsCollector getMicroMaximals() {
+		StubPatternsCollector patterns = new StubPatternsCollector();
+		patterns.expectCollect(2, 1, 6, 5, 3, 7);
+		patterns.expectCollect(2, 2, 3);
+		return patterns;
+	}
+
+	@Test
+	public void testMicro() {
+		mineMaximals(2, FileReaderTest.PATH_MICRO, getMicroMaximals(), 1, 2);
+	}
+
+	@Test
+	public void test50Retail() {
+		mineMaximals(4, FileReaderTest.PATH_50_RETAIL, get50RetailMaximals(), 1, 5);
+	}
+
+	@Test
+	public void test50RetailMultiThreaded() {
+		mineMaximals(4, FileReaderTest.PATH_50_RETAIL, get50RetailMaximals(), 4, 5);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MemoryFootprint;
+import fr.liglab.jlcm.internals.MemoryFootprint.Representation;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class MemoryFootprintTest {
+
+	@Test
+	public void testRepresentations() {
+		ExplorationStep small = new ExplorationStep(20, SyntheticDataset.quest(20000, 500, 10, 200, 4, 1));
+		MemoryFootprint footprint = new MemoryFootprint(small.counters, 4);
+		assertEquals(Representation.USHORT, footprint.getTransactionsRepresentation());
+		assertEquals(Representation.USHORT, footprint.getTidListsRepresentation());
+		assertTrue(small.dataset.getRepresentation().startsWith("UShort"));
+		assertTrue(footprint.getTransactionsBytes(Representation.USHORT) < footprint
+				.getTransactionsBytes(Representation.INT));
+		assertTrue(footprint.getTidListsBytes(Representation.INT) < footprint
+				.getTidListsBytes(Representation.HUGE));
+
+		// too many transactions for 16-bits occurrences lists
+		ExplorationStep big = new ExplorationStep(20, SyntheticDataset.quest(70000, 500, 5, 200, 4, 1));
+		footprint = new MemoryFootprint(big.counters, 4);
+		assertEquals(-1, footprint.getTidListsBytes(Representation.USHORT));
+		assertEquals(Representation.INT, footprint.getTidListsRepresentation());
+		assertTrue(big.dataset.getRepresentation().endsWith("IntConsecutiveItemsConcatenatedTidList"));
+	}
+
+	@Test
+	public void testMaxThreads() {
+		ExplorationStep init = new ExplorationStep(20, SyntheticDataset.quest(20000, 500, 10, 200, 4, 1));
+		MemoryFootprint footprint = new MemoryFootprint(init.counters, 4);
+		assertTrue(footprint.getProjectionsBytesPerThread() > 0);
+		assertTrue(footprint.getTotalBytes() > footprint.getRootDatasetBytes() + 3
+				* footprint.getProjectionsBytesPerThread());
+
+		assertEquals(0, footprint.getMaxThreads(footprint.getRootDatasetBytes()));
+		assertEquals(4, footprint.getMaxThreads(Long.MAX_VALUE));
+		assertEquals(4, footprint.getMaxThreads(footprint.getTotalBytes()));
+		assertEquals(3, footprint.getMaxThreads(footprint.getTotalBytes() - 1));
+	}
+
+	@Test
+	public void testCheckMemory() {
+		SyntheticDataset dataset = SyntheticDataset.quest(5000, 200, 8, 50, 4, 1);
+		NullCollector unchecked = new NullCollector();
+		new PLCM(unchecked, 2).lcm(new ExplorationStep(20, dataset));
+
+		PLCM.checkMemory = true;
+		try {
+			NullCollector checked = new NullCollector();
+			new PLCM(checked, 2).lcm(new ExplorationStep(20, dataset));
+			assertEquals(unchecked.close(), checked.close());
+		} finally {
+			PLCM.checkMemory = false;
+		}
+	}
+}
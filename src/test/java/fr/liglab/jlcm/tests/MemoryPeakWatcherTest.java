@@ -0,0 +1,123 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.io.SyntheticDataset;
+import fr.liglab.jlcm.util.MemoryPeakWatcherThread;
+import fr.liglab.jlcm.util.MemoryPeakWatcherThread.PoolPeak;
+
+public class MemoryPeakWatcherTest {
+
+	private static Map<String, Long> getThresholds() {
+		Map<String, Long> thresholds = new HashMap<String, Long>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.isValid() && pool.isCollectionUsageThresholdSupported()) {
+				thresholds.put(pool.getName(), pool.getCollectionUsageThreshold());
+			}
+		}
+		return thresholds;
+	}
+
+	@Test
+	public void testPeaks() throws InterruptedException {
+		final Map<String, Long> thresholds = getThresholds();
+		MemoryPeakWatcherThread watcher = new MemoryPeakWatcherThread();
+		watcher.start();
+
+		PLCM algo = new PLCM(new NullCollector(), 2);
+		algo.lcm(new ExplorationStep(20, SyntheticDataset.quest(20000, 500, 10, 200, 4, 1)));
+
+		// JVM-wide thresholds are left untouched by default
+		assertEquals(thresholds, getThresholds());
+		watcher.interrupt();
+		watcher.join();
+
+		assertTrue(watcher.getMaxUsedMemory() > 0);
+
+		Map<String, PoolPeak> peaks = watcher.getPoolPeaks();
+		assertFalse(peaks.isEmpty());
+		for (PoolPeak peak : peaks.values()) {
+			assertTrue(peak.bytes > 0);
+			for (int depth : peak.explorationDepths) {
+				assertTrue(depth >= 0);
+			}
+		}
+	}
+
+	@Test
+	public void testPeakUsagesKept() throws InterruptedException {
+		// allocate something so every pool has a peak above its current usage
+		byte[][] garbage = new byte[64][];
+		for (int i = 0; i < garbage.length; i++) {
+			garbage[i] = new byte[1 << 16];
+		}
+		garbage = null;
+		System.gc();
+
+		Map<String, Long> before = new HashMap<String, Long>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.isValid() && pool.getPeakUsage() != null) {
+				before.put(pool.getName(), pool.getPeakUsage().getUsed());
+			}
+		}
+
+		MemoryPeakWatcherThread watcher = new MemoryPeakWatcherThread();
+		watcher.start();
+		Thread.sleep(100);
+		watcher.interrupt();
+		watcher.join();
+
+		// peak usages are JVM-wide : they should not have been reset
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (before.containsKey(pool.getName())) {
+				assertTrue(pool.getName(), pool.getPeakUsage().getUsed() >= before.get(pool.getName()));
+			}
+		}
+	}
+
+	@Test
+	public void testThresholdsRestored() throws InterruptedException {
+		final Map<String, Long> thresholds = getThresholds();
+		MemoryPeakWatcherThread watcher = new MemoryPeakWatcherThread(true);
+		watcher.start();
+		PLCM algo = new PLCM(new NullCollector(), 2);
+		algo.lcm(new ExplorationStep(20, SyntheticDataset.quest(5000, 500, 10, 200, 4, 1)));
+		watcher.interrupt();
+		watcher.join();
+		assertEquals(thresholds, getThresholds());
+		assertTrue(watcher.getMaxUsedMemory() > 0);
+	}
+}
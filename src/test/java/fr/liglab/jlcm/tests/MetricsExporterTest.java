@@ -0,0 +1,215 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.PLCMStatusMXBean;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.PatternsCollector;
+import fr.liglab.jlcm.util.MetricsExporter;
+
+public class MetricsExporterTest {
+
+	private static String get(URL url) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+		StringBuilder builder = new StringBuilder();
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				builder.append(line).append('\n');
+			}
+		} finally {
+			reader.close();
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Scrapes the exporter when it receives its 10th pattern
+	 */
+	private static class ScrapingCollector implements PatternsCollector {
+		private final URL url;
+		private int received = 0;
+		String scraped = null;
+
+		ScrapingCollector(URL url) {
+			this.url = url;
+		}
+
+		public void collect(ExplorationStep state) {
+			if (++this.received == 10) {
+				try {
+					this.scraped = get(this.url);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		public long close() {
+			return this.received;
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	@Test
+	public void testScrape() throws IOException {
+		MetricsExporter exporter = new MetricsExporter(0);
+		exporter.start();
+		try {
+			URL url = new URL("http://127.0.0.1:" + exporter.getPort() + MetricsExporter.PATH);
+			ScrapingCollector collector = new ScrapingCollector(url);
+			PLCM algo = new PLCM(collector, 1);
+			PLCM.registerStatus = true;
+			try {
+				algo.lcm(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+			} finally {
+				PLCM.registerStatus = false;
+			}
+
+			assertEquals(collector.close(), (long) algo.getCounters().get(PLCMCounters.CollectedPatterns));
+
+			final String scraped = collector.scraped;
+			assertTrue(scraped.contains("# TYPE jlcm_collected_patterns_total counter\n"));
+			assertTrue(scraped.matches("(?s).*\njlcm_collected_patterns_total\\{run=\"\\d+\"\\} 9\n.*"));
+			assertTrue(scraped.matches("(?s).*\njlcm_stack_depth\\{run=\"\\d+\",thread=\"0\"\\} [1-9]\\d*\n.*"));
+			assertTrue(scraped.contains(",counter=\"ExplorationStepInstances\"}"));
+			assertTrue(scraped.contains("jlcm_peak_memory_bytes{"));
+
+			assertFalse(get(url).contains("jlcm_stack_depth{"));
+		} finally {
+			exporter.stop();
+		}
+	}
+
+	@Test
+	public void testNotRegisteredByDefault() {
+		ScrapingCollector collector = new ScrapingCollector(null) {
+			@Override
+			public void collect(ExplorationStep state) {
+				if (this.scraped == null) {
+					this.scraped = MetricsExporter.scrape();
+				}
+			}
+		};
+		new PLCM(collector, 1).lcm(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+		assertFalse(collector.scraped.contains("jlcm_collected_patterns_total{"));
+	}
+
+	/**
+	 * Unregisters itself when its first value is read, as a run ending during
+	 * a scrape
+	 */
+	public static class VanishingStatus implements PLCMStatusMXBean {
+		private final ObjectName name;
+
+		VanishingStatus(ObjectName name) {
+			this.name = name;
+		}
+
+		public int getThreadsCount() {
+			return 1;
+		}
+
+		public long getCollectedPatterns() {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+			} catch (JMException e) {
+				throw new RuntimeException(e);
+			}
+			return 0;
+		}
+
+		public int[] getStackDepths() {
+			return new int[] { 0 };
+		}
+
+		public int[] getExplorationDepths() {
+			return new int[] { -1 };
+		}
+
+		public int getRootCandidate() {
+			return -1;
+		}
+
+		public int getRootLast() {
+			return 0;
+		}
+
+		public Map<String, Long> getCounters() {
+			return Collections.emptyMap();
+		}
+
+		public long getSteals() {
+			return 0;
+		}
+
+		public double getStealsPerSecond() {
+			return 0;
+		}
+
+		public long getPeakMemory() {
+			return 0;
+		}
+
+		public long getElapsedMillis() {
+			return 0;
+		}
+	}
+
+	@Test
+	public void testRunEndingDuringScrape() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("fr.liglab.jlcm:type=PLCM,run=vanishing");
+		server.registerMBean(new VanishingStatus(name), name);
+		try {
+			assertFalse(MetricsExporter.scrape().contains("run=\"vanishing\""));
+			assertFalse(server.isRegistered(name));
+		} finally {
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		}
+	}
+}
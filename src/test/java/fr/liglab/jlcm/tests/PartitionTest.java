@@ -0,0 +1,88 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.PartitionCoordinator;
+import fr.liglab.jlcm.PartitionWorker;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class PartitionTest {
+
+	@Test
+	public void testPartitionedMining() throws Exception {
+		File file = File.createTempFile("jlcm-partition", ".dat");
+		try {
+			SyntheticDataset.quest(5000, 200, 8, 50, 4, 1).writeTo(file.getPath());
+			final int minSupport = 20;
+
+			SetCollector reference = new SetCollector();
+			new PLCM(reference, 2).lcm(new ExplorationStep(minSupport, file.getPath()));
+
+			PartitionCoordinator coordinator = new PartitionCoordinator(file.getPath(), minSupport);
+			final int port = coordinator.start();
+
+			final SetCollector merged = new SetCollector();
+			final int[] chunks = new int[3];
+			Thread[] workers = new Thread[chunks.length];
+			for (int i = 0; i < workers.length; i++) {
+				final int id = i;
+				workers[i] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							chunks[id] = new PartitionWorker(port, 2, merged).run();
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					}
+				};
+				workers[i].start();
+			}
+
+			final long total = coordinator.awaitCompletion();
+			for (Thread worker : workers) {
+				worker.join();
+			}
+
+			assertEquals(reference.patterns, merged.patterns);
+			assertEquals(reference.close(), total);
+			assertTrue(coordinator.getCounters().get(PLCMCounters.ExplorationStepInstances) > 0);
+			int totalChunks = 0;
+			for (int count : chunks) {
+				totalChunks += count;
+			}
+			assertTrue(totalChunks > chunks.length);
+		} finally {
+			file.delete();
+		}
+	}
+}
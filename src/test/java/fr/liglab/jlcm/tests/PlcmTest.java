@@ -3,14 +3,17 @@ package fr.liglab.jlcm.tests;
 import static org.junit.Assert.*;
 
 import java.util.Iterator;
+import java.util.Map;
 
 import org.junit.Test;
 
 import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
 import fr.liglab.jlcm.internals.ExplorationStep;
 import fr.liglab.jlcm.internals.TransactionReader;
 import fr.liglab.jlcm.io.AllFISConverter;
 import fr.liglab.jlcm.io.FileReader;
+import fr.liglab.jlcm.io.NullCollector;
 import fr.liglab.jlcm.io.PatternsCollector;
 
 public class PlcmTest {
@@ -41,6 +44,30 @@ public class PlcmTest {
 		collector.close();
 	}
 
+	@Test
+	public void testTimers() {
+		PLCM algo = new PLCM(new NullCollector(), 2);
+		algo.lcm(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+		Map<PLCMCounters, Long> counters = algo.getCounters();
+		assertEquals(0L, (long) counters.get(PLCMCounters.CountingNanoTime));
+		assertEquals(0L, (long) counters.get(PLCMCounters.CollectNanoTime));
+
+		PLCM.measureTimes = true;
+		try {
+			algo = new PLCM(new NullCollector(), 2);
+			algo.lcm(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL));
+		} finally {
+			PLCM.measureTimes = false;
+		}
+		counters = algo.getCounters();
+		assertTrue(counters.get(PLCMCounters.CountingNanoTime) > 0);
+		assertTrue(counters.get(PLCMCounters.DatasetInstanciationNanoTime) > 0);
+		assertTrue(counters.get(PLCMCounters.CompressionNanoTime) > 0);
+		assertTrue(counters.get(PLCMCounters.CollectNanoTime) > 0);
+		assertTrue(counters.get(PLCMCounters.StealNanoTime) > 0);
+		assertTrue(algo.toString().contains("\"CountingNanoTime\":"));
+	}
+
 	private static class StupidIterable implements Iterable<TransactionReader> {
 		
 		private final String input;
@@ -0,0 +1,104 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.ProgressEstimator.Estimate;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.PatternsCollector;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class ProgressEstimatorTest {
+
+	/**
+	 * Asks an estimation every 100 patterns
+	 */
+	private static class EstimatingCollector implements PatternsCollector {
+		PLCM algo;
+		final List<Estimate> estimates = new ArrayList<Estimate>();
+		private long collected = 0;
+
+		public synchronized void collect(ExplorationStep state) {
+			if (++this.collected % 100 == 0) {
+				this.estimates.add(this.algo.getProgressEstimate());
+			}
+		}
+
+		public long close() {
+			return this.collected;
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	@Test
+	public void testEstimates() {
+		EstimatingCollector collector = new EstimatingCollector();
+		PLCM algo = new PLCM(collector, 4);
+		collector.algo = algo;
+		assertNull(algo.getProgressEstimate());
+
+		PLCM.estimateProgress = true;
+		try {
+			algo.lcm(new ExplorationStep(20, SyntheticDataset.quest(5000, 200, 10, 100, 4, 1)));
+		} finally {
+			PLCM.estimateProgress = false;
+		}
+		assertTrue(collector.estimates.size() > 10);
+
+		for (Estimate estimate : collector.estimates) {
+			assertTrue(estimate.progress <= 1);
+			if (estimate.progress >= 0) {
+				assertTrue(0 <= estimate.lowRemainingMillis);
+				assertTrue(estimate.lowRemainingMillis <= estimate.remainingMillis);
+				assertTrue(estimate.remainingMillis <= estimate.highRemainingMillis);
+			}
+		}
+
+		Estimate last = algo.getProgressEstimate();
+		assertEquals(1.0, last.progress, 0);
+		assertEquals(0, last.remainingMillis);
+		assertEquals(0, last.highRemainingMillis);
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		EstimatingCollector collector = new EstimatingCollector();
+		PLCM algo = new PLCM(collector, 2);
+		collector.algo = algo;
+		algo.lcm(new ExplorationStep(20, SyntheticDataset.quest(2000, 200, 10, 100, 4, 1)));
+		assertTrue(collector.collected > 100);
+		assertNull(algo.getProgressEstimate());
+		assertNull(collector.estimates.get(0));
+	}
+}
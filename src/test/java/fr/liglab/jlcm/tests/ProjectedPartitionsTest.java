@@ -0,0 +1,84 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.ProjectedPartitions;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class ProjectedPartitionsTest {
+
+	private static void checkPartitions(ExplorationStep initState, int nbPartitions) throws Exception {
+		SetCollector reference = new SetCollector();
+		new PLCM(reference, 2).lcm(initState.restart(initState.counters.minSupport));
+
+		int[][] groups = ProjectedPartitions.balance(initState, nbPartitions);
+		assertEquals(nbPartitions, groups.length);
+
+		File directory = File.createTempFile("jlcm-partitions", "");
+		directory.delete();
+		directory.mkdir();
+		try {
+			String[] paths = ProjectedPartitions.export(initState, groups, directory.getPath() + "/part");
+			SetCollector merged = new SetCollector();
+			for (String path : paths) {
+				ExplorationStep partition = ProjectedPartitions.load(path);
+				assertTrue(partition.counters.distinctTransactionsCount <= initState.counters.distinctTransactionsCount);
+				new PLCM(merged, 2).lcm(partition);
+			}
+			assertEquals(reference.patterns, merged.patterns);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testSynthetic() throws Exception {
+		checkPartitions(new ExplorationStep(20, SyntheticDataset.quest(5000, 200, 8, 50, 4, 1)), 4);
+	}
+
+	@Test
+	public void testRetail() throws Exception {
+		checkPartitions(new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL), 3);
+	}
+
+	@Test
+	public void testGlobalClosure() throws Exception {
+		checkPartitions(new ExplorationStep(2, FileReaderTest.PATH_GLOBAL_CLOSURE), 2);
+	}
+
+	@Test
+	public void testSinglePartition() throws Exception {
+		checkPartitions(new ExplorationStep(5, SyntheticDataset.zipf(2000, 100, 6, 1, 3)), 1);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.SampleMiner;
+import fr.liglab.jlcm.SampleMiner.Estimate;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class SampleMinerTest {
+
+	private static class MapCollector extends PatternsWriter {
+		final Map<String, Integer> patterns = new HashMap<String, Integer>();
+
+		@Override
+		public synchronized void collect(int support, int[] pattern, int length) {
+			int[] sorted = Arrays.copyOf(pattern, length);
+			Arrays.sort(sorted);
+			this.patterns.put(Arrays.toString(sorted), support);
+		}
+
+		public synchronized long close() {
+			return this.patterns.size();
+		}
+
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	private static final SyntheticDataset DATASET = SyntheticDataset.quest(20000, 200, 8, 50, 4, 11);
+
+	private static Map<String, Integer> mineExactly(int minSupport) {
+		MapCollector collector = new MapCollector();
+		new PLCM(collector, 2).lcm(new ExplorationStep(minSupport, DATASET));
+		return collector.patterns;
+	}
+
+	@Test
+	public void testEstimates() {
+		SampleMiner miner = new SampleMiner(DATASET, 2000, 1, 2);
+		assertEquals(20000, miner.getTransactionsCount());
+		assertEquals(2000, miner.getSampleSize());
+		final double margin = miner.getMargin(0.99);
+		assertTrue(margin > 0 && margin < 0.05);
+
+		List<Estimate> estimates = miner.mine(0.05, 0.99, false);
+		Map<String, Integer> exact = mineExactly(1000);
+		assertTrue(exact.size() > 0);
+
+		int covered = 0;
+		int found = 0;
+		for (Estimate estimate : estimates) {
+			assertTrue(estimate.lowerBound <= estimate.support && estimate.support <= estimate.upperBound);
+			Integer support = exact.get(Arrays.toString(estimate.pattern));
+			if (support != null) {
+				found++;
+				if (estimate.lowerBound <= support && support <= estimate.upperBound) {
+					covered++;
+				}
+			}
+		}
+		assertTrue(found > 0);
+		assertTrue(covered >= 0.95 * found);
+	}
+
+	@Test
+	public void testVerify() {
+		SampleMiner miner = new SampleMiner(DATASET, 2000, 1, 2);
+		List<Estimate> verified = miner.mine(0.05, 0.99, true);
+		Map<String, Integer> frequent = new HashMap<String, Integer>();
+		for (Estimate estimate : verified) {
+			assertTrue(estimate.exact);
+			assertTrue(estimate.support >= 1000);
+			frequent.put(Arrays.toString(estimate.pattern), estimate.support);
+		}
+
+		// patterns closed in both the sample and the dataset have exact supports
+		Map<String, Integer> exact = mineExactly(1000);
+		int common = 0;
+		for (Map.Entry<String, Integer> entry : exact.entrySet()) {
+			if (frequent.containsKey(entry.getKey())) {
+				assertEquals(entry.getValue(), frequent.get(entry.getKey()));
+				common++;
+			}
+		}
+		assertTrue(common >= 0.9 * exact.size());
+	}
+
+	@Test
+	public void testWholeDataset() {
+		SyntheticDataset small = SyntheticDataset.zipf(500, 50, 4, 1, 3);
+		SampleMiner miner = new SampleMiner(small, 1000, 1, 1);
+		assertEquals(0, miner.getMargin(0.9), 0);
+
+		MapCollector collector = new MapCollector();
+		new PLCM(collector, 1).lcm(new ExplorationStep(25, small));
+		List<Estimate> estimates = miner.mine(0.05, 0.9, false);
+		assertEquals(collector.patterns.size(), estimates.size());
+		for (Estimate estimate : estimates) {
+			assertTrue(estimate.exact);
+			assertEquals(collector.patterns.get(Arrays.toString(estimate.pattern)).intValue(), estimate.support);
+		}
+	}
+}
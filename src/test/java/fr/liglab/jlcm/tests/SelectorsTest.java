@@ -0,0 +1,266 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.PLCM.PLCMCounters;
+import fr.liglab.jlcm.internals.ExcludedItemsSelector;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.MinSupportsSelector;
+import fr.liglab.jlcm.internals.PatternLengthSelector;
+import fr.liglab.jlcm.internals.RequiredItemsSelector;
+import fr.liglab.jlcm.internals.Selector;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+/**
+ * Constrained runs are compared to an unconstrained run, filtered afterwards.
+ */
+public class SelectorsTest {
+
+	private static final class MapCollector extends PatternsWriter {
+		final Map<Set<Integer>, Integer> patterns = Collections
+				.synchronizedMap(new HashMap<Set<Integer>, Integer>());
+
+		@Override
+		public void collect(int support, int[] pattern, int length) {
+			Set<Integer> p = new TreeSet<Integer>();
+			for (int i = 0; i < length; i++) {
+				p.add(pattern[i]);
+			}
+			if (this.patterns.put(p, support) != null) {
+				throw new RuntimeException("Duplicate pattern " + p);
+			}
+		}
+
+		@Override
+		public long close() {
+			return this.patterns.size();
+		}
+
+		@Override
+		public int getAveragePatternLength() {
+			return 0;
+		}
+	}
+
+	private interface Constraint {
+		Selector getSelector(ExplorationStep initState);
+
+		boolean accept(Set<Integer> pattern);
+	}
+
+	private static Map<Set<Integer>, Integer> mine(String path, int minsup, Constraint constraint, int nbThreads) {
+		ExplorationStep init = new ExplorationStep(minsup, path);
+		if (constraint != null) {
+			init.appendSelector(constraint.getSelector(init));
+		}
+		MapCollector collector = new MapCollector();
+		PLCM algo = new PLCM(collector, nbThreads);
+		algo.lcm(init);
+		collector.close();
+		return collector.patterns;
+	}
+
+	/**
+	 * @return how many patterns have been found
+	 */
+	private static int check(String path, int minsup, Constraint constraint) {
+		Map<Set<Integer>, Integer> expected = new HashMap<Set<Integer>, Integer>();
+		for (Map.Entry<Set<Integer>, Integer> entry : mine(path, minsup, null, 1).entrySet()) {
+			if (constraint.accept(entry.getKey())) {
+				expected.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		assertEquals(expected, mine(path, minsup, constraint, 1));
+		assertEquals(expected, mine(path, minsup, constraint, 4));
+		return expected.size();
+	}
+
+	private static Constraint length(final int min, final int max) {
+		return new Constraint() {
+			public Selector getSelector(ExplorationStep initState) {
+				return new PatternLengthSelector(min, max);
+			}
+
+			public boolean accept(Set<Integer> pattern) {
+				return min <= pattern.size() && pattern.size() <= max;
+			}
+		};
+	}
+
+	private static Constraint excluded(final Integer... items) {
+		return new Constraint() {
+			public Selector getSelector(ExplorationStep initState) {
+				return new ExcludedItemsSelector(initState, toArray(items));
+			}
+
+			public boolean accept(Set<Integer> pattern) {
+				return Collections.disjoint(pattern, Arrays.asList(items));
+			}
+		};
+	}
+
+	private static Constraint required(final Integer... items) {
+		return new Constraint() {
+			public Selector getSelector(ExplorationStep initState) {
+				return new RequiredItemsSelector(initState, toArray(items));
+			}
+
+			public boolean accept(Set<Integer> pattern) {
+				return !Collections.disjoint(pattern, Arrays.asList(items));
+			}
+		};
+	}
+
+	private static int[] toArray(Integer[] items) {
+		int[] array = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			array[i] = items[i];
+		}
+		return array;
+	}
+
+	@Test
+	public void testPatternLength() {
+		assertEquals(3, check(FileReaderTest.PATH_MICRO, 2, length(1, 1)));
+		assertTrue(check(FileReaderTest.PATH_50_RETAIL, 4, length(2, 2)) > 0);
+		assertTrue(check(FileReaderTest.PATH_50_RETAIL, 1, length(3, 4)) > 0);
+		assertEquals(0, check(FileReaderTest.PATH_GLOBAL_CLOSURE, 2, length(3, 10)));
+	}
+
+	@Test
+	public void testExcludedItems() {
+		assertTrue(check(FileReaderTest.PATH_MICRO, 2, excluded(5)) > 0);
+		assertTrue(check(FileReaderTest.PATH_50_RETAIL, 2, excluded(38, 39, 1000)) > 0);
+		assertEquals(0, check(FileReaderTest.PATH_GLOBAL_CLOSURE, 2, excluded(1)));
+		assertEquals(1, check(FileReaderTest.PATH_GLOBAL_CLOSURE, 2, excluded(2)));
+	}
+
+	@Test
+	public void testRequiredItems() {
+		assertTrue(check(FileReaderTest.PATH_MICRO, 2, required(1, 2)) > 0);
+		assertTrue(check(FileReaderTest.PATH_50_RETAIL, 2, required(41)) > 0);
+		assertEquals(0, check(FileReaderTest.PATH_50_RETAIL, 2, required(1000)));
+		assertEquals(2, check(FileReaderTest.PATH_GLOBAL_CLOSURE, 2, required(1)));
+	}
+
+	@Test
+	public void testChained() {
+		Map<Set<Integer>, Integer> found = mine(FileReaderTest.PATH_50_RETAIL, 2, new Constraint() {
+			public Selector getSelector(ExplorationStep initState) {
+				Selector chain = new RequiredItemsSelector(initState, 39);
+				initState.appendSelector(new ExcludedItemsSelector(initState, 48));
+				return chain;
+			}
+
+			public boolean accept(Set<Integer> pattern) {
+				return true;
+			}
+		}, 2);
+
+		assertFalse(found.isEmpty());
+		for (Set<Integer> pattern : found.keySet()) {
+			assertTrue(pattern.contains(39));
+			assertFalse(pattern.contains(48));
+		}
+	}
+
+	private static Map<Set<Integer>, Integer> filterMinSupports(Map<Set<Integer>, Integer> patterns,
+			TIntIntMap minSupports, int defaultMinSupport) {
+		Map<Set<Integer>, Integer> filtered = new HashMap<Set<Integer>, Integer>();
+		for (Map.Entry<Set<Integer>, Integer> entry : patterns.entrySet()) {
+			int lowest = Integer.MAX_VALUE;
+			for (Integer item : entry.getKey()) {
+				lowest = Math.min(lowest, minSupports.containsKey(item) ? minSupports.get(item) : defaultMinSupport);
+			}
+			if (entry.getValue() >= lowest) {
+				filtered.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return filtered;
+	}
+
+	@Test
+	public void testMinSupports() {
+		final TIntIntMap minSupports = new TIntIntHashMap();
+		minSupports.put(41, 2);
+		minSupports.put(48, 3);
+		final int defaultMinSupport = 8;
+		assertEquals(2, MinSupportsSelector.getLowestMinSupport(minSupports, defaultMinSupport));
+
+		Map<Set<Integer>, Integer> expected = filterMinSupports(mine(FileReaderTest.PATH_50_RETAIL, 2, null, 1),
+				minSupports, defaultMinSupport);
+		Map<Set<Integer>, Integer> found = mine(FileReaderTest.PATH_50_RETAIL, 2, new Constraint() {
+			public Selector getSelector(ExplorationStep initState) {
+				return new MinSupportsSelector(minSupports, defaultMinSupport);
+			}
+
+			public boolean accept(Set<Integer> pattern) {
+				return true;
+			}
+		}, 4);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, found);
+	}
+
+	@Test
+	public void testMinSupportsStep() {
+		SyntheticDataset dataset = SyntheticDataset.zipf(3000, 300, 6, 1, 5);
+		TIntIntMap minSupports = new TIntIntHashMap();
+		// rare items get lower thresholds
+		for (int item = 100; item < 300; item++) {
+			minSupports.put(item, 5);
+		}
+
+		MapCollector all = new MapCollector();
+		PLCM unconstrained = new PLCM(all, 2);
+		unconstrained.lcm(new ExplorationStep(5, dataset));
+		Map<Set<Integer>, Integer> expected = filterMinSupports(all.patterns, minSupports, 40);
+
+		MapCollector found = new MapCollector();
+		PLCM constrained = new PLCM(found, 2);
+		constrained.lcm(new ExplorationStep(minSupports, 40, dataset));
+		assertTrue(expected.size() < all.patterns.size());
+		assertEquals(expected, found.patterns);
+
+		// sub-trees are pruned, not only filtered at output
+		assertTrue(constrained.getCounters().get(PLCMCounters.ExplorationStepInstances) < unconstrained
+				.getCounters().get(PLCMCounters.ExplorationStepInstances));
+	}
+}
@@ -0,0 +1,54 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import fr.liglab.jlcm.io.PatternsWriter;
+
+/**
+ * Collects patterns as "support[sorted items]" strings, so results of
+ * different mining methods can be compared with assertEquals. Fails if a
+ * pattern is collected twice.
+ */
+public class SetCollector extends PatternsWriter {
+	public final Set<String> patterns = new HashSet<String>();
+
+	@Override
+	public synchronized void collect(int support, int[] pattern, int length) {
+		int[] sorted = Arrays.copyOf(pattern, length);
+		Arrays.sort(sorted);
+		assertTrue(this.patterns.add(support + Arrays.toString(sorted)));
+	}
+
+	public synchronized long close() {
+		return this.patterns.size();
+	}
+
+	public int getAveragePatternLength() {
+		return 0;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.SlidingWindowMiner;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.PatternsWriter;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class SlidingWindowMinerTest {
+
+	/**
+	 * Compares each slide's patterns with a PLCM run over the window
+	 * 
+	 * @return how many slides have been mined
+	 */
+	private static int checkSlides(SlidingWindowMiner miner, List<int[]> stream, int windowSize, int minSupport) {
+		int slides = 0;
+		for (int i = 0; i < stream.size(); i++) {
+			if (miner.add(ListIterable.reader(stream.get(i)))) {
+				slides++;
+				assertEquals(Math.min(windowSize, i + 1), miner.getWindowCount());
+
+				SetCollector windowed = new SetCollector();
+				miner.mine(windowed);
+
+				SetCollector expected = new SetCollector();
+				List<int[]> window = stream.subList(Math.max(0, i + 1 - windowSize), i + 1);
+				new PLCM(expected, 1).lcm(new ExplorationStep(minSupport, new ListIterable(window)));
+
+				assertTrue(window.size() < windowSize || expected.patterns.size() > 0);
+				assertEquals(expected.patterns, windowed.patterns);
+			}
+		}
+		assertEquals(slides, miner.getSlidesCount());
+		return slides;
+	}
+
+	@Test
+	public void testSlides() {
+		List<int[]> stream = ListIterable.copy(SyntheticDataset.quest(1500, 100, 6, 30, 3, 3));
+
+		SlidingWindowMiner miner = new SlidingWindowMiner(500, 200, 10, 2);
+		assertEquals(1500 / 200, checkSlides(miner, stream, 500, 10));
+
+		// without margin, each slide is mined from scratch
+		miner = new SlidingWindowMiner(500, 200, 10, 10, 2);
+		final int slides = checkSlides(miner, stream, 500, 10);
+		assertEquals(slides, miner.getFullMinesCount());
+	}
+
+	@Test
+	public void testIncrementalSlides() {
+		List<int[]> stream = ListIterable.copy(SyntheticDataset.quest(4000, 100, 8, 50, 4, 5));
+
+		SlidingWindowMiner miner = new SlidingWindowMiner(2000, 100, 80, 40, 2);
+		final int slides = checkSlides(miner, stream, 2000, 80);
+		assertEquals(40, slides);
+		assertTrue(miner.getFullMinesCount() + " full mines", miner.getFullMinesCount() < slides / 4);
+	}
+
+	@Test
+	public void testProcess() {
+		SlidingWindowMiner miner = new SlidingWindowMiner(100, 50, 5, 1);
+		final List<String> events = new ArrayList<String>();
+		final long[] collected = new long[1];
+		miner.setListener(new SlidingWindowMiner.SlideListener() {
+			public void slideStarted(long slide, int windowCount) {
+				events.add("started " + slide + " " + windowCount);
+				collected[0] = 0;
+			}
+
+			public void slideMined(long slide) {
+				assertTrue(collected[0] > 0);
+				events.add("mined " + slide);
+			}
+		});
+		PatternsWriter collector = new PatternsWriter() {
+			@Override
+			public void collect(int support, int[] pattern, int length) {
+				collected[0]++;
+			}
+
+			public long close() {
+				return 0;
+			}
+
+			public int getAveragePatternLength() {
+				return 0;
+			}
+		};
+
+		assertEquals(4, miner.process(SyntheticDataset.zipf(230, 50, 4, 1, 1).iterator(), collector));
+		assertEquals(100, miner.getWindowCount());
+		assertEquals(Arrays.asList("started 1 50", "mined 1", "started 2 100", "mined 2", "started 3 100",
+				"mined 3", "started 4 100", "mined 4"), events);
+	}
+}
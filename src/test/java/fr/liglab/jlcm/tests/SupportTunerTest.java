@@ -0,0 +1,64 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.SupportTuner;
+import fr.liglab.jlcm.SupportTuner.OutputEstimate;
+import fr.liglab.jlcm.internals.ExplorationStep;
+
+public class SupportTunerTest {
+
+	@Test
+	public void testExactEstimateAndTuning() {
+		ExplorationStep init = new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL);
+		SupportTuner tuner = new SupportTuner(init, 1);
+		tuner.setSampleSize(Integer.MAX_VALUE);
+
+		OutputEstimate estimate = tuner.estimate(4);
+		assertTrue(estimate.isExact());
+		assertEquals(15, estimate.patterns);
+
+		assertTrue(tuner.estimate(3).patterns > 15);
+		assertEquals(4, tuner.tuneForPatterns(15));
+
+		StubPatternsCollector collector = FileReaderTest.get50RetailPatterns();
+		tuner.lcm(collector, 4);
+		collector.close();
+	}
+
+	@Test
+	public void testSampledEstimate() {
+		ExplorationStep init = new ExplorationStep(2, FileReaderTest.PATH_50_RETAIL);
+		SupportTuner tuner = new SupportTuner(init, 1);
+		tuner.setSampleSize(3);
+
+		OutputEstimate estimate = tuner.estimate(2);
+		assertEquals(3, estimate.sampledExtensions);
+		assertTrue(estimate.patterns > 0);
+		assertTrue(estimate.bytes > estimate.patterns);
+	}
+}
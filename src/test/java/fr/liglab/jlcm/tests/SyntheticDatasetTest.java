@@ -0,0 +1,129 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.internals.TransactionReader;
+import fr.liglab.jlcm.io.FileReader;
+import fr.liglab.jlcm.io.NullCollector;
+import fr.liglab.jlcm.io.SyntheticDataset;
+
+public class SyntheticDatasetTest {
+
+	private static List<int[]> readAll(Iterator<TransactionReader> transactions) {
+		List<int[]> all = new ArrayList<int[]>();
+		int[] buffer = new int[1024];
+		while (transactions.hasNext()) {
+			TransactionReader transaction = transactions.next();
+			int length = 0;
+			while (transaction.hasNext()) {
+				buffer[length++] = transaction.next();
+			}
+			all.add(Arrays.copyOf(buffer, length));
+		}
+		return all;
+	}
+
+	private static void checkDataset(SyntheticDataset dataset, double avgLength) {
+		List<int[]> transactions = readAll(dataset.iterator());
+		assertEquals(dataset.getTransactionsCount(), transactions.size());
+
+		long lengthsSum = 0;
+		for (int[] transaction : transactions) {
+			assertTrue(transaction.length > 0);
+			for (int i = 0; i < transaction.length; i++) {
+				assertTrue(transaction[i] >= 0 && transaction[i] < dataset.getItemsCount());
+				if (i > 0) {
+					assertTrue(transaction[i - 1] < transaction[i]);
+				}
+			}
+			lengthsSum += transaction.length;
+		}
+
+		final double actualAverage = ((double) lengthsSum) / transactions.size();
+		assertEquals(avgLength, actualAverage, avgLength * 0.2);
+
+		List<int[]> again = readAll(dataset.iterator());
+		for (int i = 0; i < transactions.size(); i++) {
+			assertTrue(Arrays.equals(transactions.get(i), again.get(i)));
+		}
+	}
+
+	@Test
+	public void testQuest() {
+		checkDataset(SyntheticDataset.quest(10000, 1000, 10, 200, 4, 1), 10);
+	}
+
+	@Test
+	public void testZipf() {
+		checkDataset(SyntheticDataset.zipf(10000, 5000, 8, 1.1, 1), 8);
+	}
+
+	@Test
+	public void testSeed() {
+		List<int[]> a = readAll(SyntheticDataset.zipf(100, 1000, 8, 1, 1).iterator());
+		List<int[]> b = readAll(SyntheticDataset.zipf(100, 1000, 8, 1, 2).iterator());
+		boolean allEqual = true;
+		for (int i = 0; i < a.size(); i++) {
+			allEqual &= Arrays.equals(a.get(i), b.get(i));
+		}
+		assertFalse(allEqual);
+	}
+
+	@Test
+	public void testWriteAndMine() throws IOException {
+		SyntheticDataset dataset = SyntheticDataset.quest(2000, 100, 8, 50, 4, 42);
+		File file = File.createTempFile("jlcm-synthetic", ".dat");
+		try {
+			dataset.writeTo(file.getPath());
+			List<int[]> fromFile = readAll(new FileReader(file.getPath()));
+			List<int[]> generated = readAll(dataset.iterator());
+			assertEquals(generated.size(), fromFile.size());
+			for (int i = 0; i < generated.size(); i++) {
+				assertTrue(Arrays.equals(generated.get(i), fromFile.get(i)));
+			}
+
+			NullCollector fromMemory = new NullCollector();
+			new PLCM(fromMemory, 2).lcm(new ExplorationStep(20, dataset));
+			NullCollector fromDisk = new NullCollector();
+			new PLCM(fromDisk, 2).lcm(new ExplorationStep(20, file.getPath()));
+			assertTrue(fromMemory.close() > 0);
+			assertEquals(fromMemory.close(), fromDisk.close());
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+	This file is part of jLCM - see https://github.com/martinkirch/jlcm/
+	
+	Copyright 2013,2014 Martin Kirchgessner, Vincent Leroy, Alexandre Termier, Sihem Amer-Yahia, Marie-Christine Rousset, Université Joseph Fourier and CNRS
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+	 http://www.apache.org/licenses/LICENSE-2.0
+	 
+	or see the LICENSE.txt file joined with this program.
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+
+
+package fr.liglab.jlcm.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import fr.liglab.jlcm.PLCM;
+import fr.liglab.jlcm.internals.ExplorationStep;
+import fr.liglab.jlcm.io.TopKCollector;
+
+public class TopKCollectorTest {
+
+	private static StubPatternsCollector get50RetailTop4() {
+		StubPatternsCollector patterns = new StubPatternsCollector();
+		patterns.expectCollect(32, 39);
+		patterns.expectCollect(23, 48);
+		patterns.expectCollect(18, 48, 39);
+		patterns.expectCollect(12, 38);
+		return patterns;
+	}
+
+	private void mineTop4(int nbThreads) {
+		ExplorationStep init = new ExplorationStep(1, FileReaderTest.PATH_50_RETAIL);
+		TopKCollector collector = new TopKCollector(get50RetailTop4(), 4);
+		init.appendSelector(collector.getSelector());
+		PLCM algo = new PLCM(collector, nbThreads);
+		algo.lcm(init);
+		assertEquals(4, collector.close());
+		assertEquals(13, collector.getMinSupport());
+	}
+
+	@Test
+	public void testTop4() {
+		mineTop4(1);
+	}
+
+	@Test
+	public void testTop4MultiThreaded() {
+		mineTop4(4);
+	}
+}